@@ -10,6 +10,7 @@ public class Flight {
     private int seats;
     private double fillPercent;
     private ShapeType shape;
+    private int departureDay;   // days after the schedule's first day
 
     public enum ShapeType { CIRCLE, TRIANGLE, SQUARE, PENTAGON, HEXAGON, OCTAGON }
 
@@ -31,4 +32,11 @@ public class Flight {
     public void setFillPercent(double fillPercent) { this.fillPercent = fillPercent; }
     public ShapeType getShape() { return shape; }
     public void setShape(ShapeType shape) { this.shape = shape; }
+    public int getDepartureDay() { return departureDay; }
+    public void setDepartureDay(int departureDay) { this.departureDay = departureDay; }
+
+    /** Departure as minutes from midnight of the schedule's first day. */
+    public int getDepartureMinute() {
+        return departureDay * 1440 + departureTime.toSecondOfDay() / 60;
+    }
 }
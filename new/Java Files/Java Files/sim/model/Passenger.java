@@ -15,6 +15,9 @@ public class Passenger {
     // hold-room entry minute (relative to start) and arrival order
     private int holdRoomEntryMinute  = -1;
     private int holdRoomSequence     = -1;
+
+    // position in the engine's passenger roster (-1 = not registered)
+    private int id = -1;
     /**
      * Old‑style constructor: defaults to in‑person, unknown minute
      */
@@ -22,6 +25,26 @@ public class Passenger {
         this(flight, -1, true);
     }
 
+    /** A copy of {@code other}, roster id included. */
+    public Passenger(Passenger other) {
+        this(other.flight, other.arrivalMinute, other.inPerson);
+        this.ticketCompletionMinute = other.ticketCompletionMinute;
+        this.checkpointEntryMinute = other.checkpointEntryMinute;
+        this.checkpointCompletionMinute = other.checkpointCompletionMinute;
+        this.missed = other.missed;
+        this.holdRoomEntryMinute = other.holdRoomEntryMinute;
+        this.holdRoomSequence = other.holdRoomSequence;
+        this.id = other.id;
+    }
+
+    /** Index in the run's passenger roster, or -1 if not registered. */
+    public int getId() {
+        return id;
+    }
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /** When did they arrive in the hold-room? */
     public int getHoldRoomEntryMinute() {
         return holdRoomEntryMinute;
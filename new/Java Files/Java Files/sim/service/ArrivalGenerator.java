@@ -60,6 +60,20 @@ public class ArrivalGenerator {
     }
 
 
+    /**
+     * Expected arrivals in each minute of the window, before rounding to whole
+     * passengers (the mean a random arrival process draws around).
+     */
+    public double[] expectedPerMinuteArrivals(Flight flight) {
+        int totalPassengers = (int) Math.round(flight.getSeats() * flight.getFillPercent());
+        double[] expected = new double[totalMinutes];
+        for (int m = 0; m < totalMinutes; m++) {
+            expected[m] = minuteProbabilities[m] * totalPassengers;
+        }
+        return expected;
+    }
+
+
     /**
      * Aggregates per-minute arrivals into interval buckets.
      * Returns an int[] of length (totalMinutes/intervalMinutes).
@@ -0,0 +1,32 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Where a run's passenger arrivals come from, minute by minute.
+ *
+ * By default the engine uses the per-flight profile from {@link ArrivalGenerator};
+ * {@link SimulationEngine#setArrivalSource} swaps in another source, such as
+ * {@link LogArrivalSource} replaying recorded arrivals. The engine asks for one
+ * minute at a time as it simulates, so a source can stream its data instead of
+ * holding it all.
+ */
+public interface ArrivalSource {
+    /**
+     * Called once when attached to an engine, before any {@link #arrivalsAt}.
+     *
+     * @param start   wall-clock time of minute 0
+     * @param flights the run's flights; counts are indexed the same way
+     */
+    void bind(LocalTime start, List<Flight> flights);
+
+    /**
+     * Fill {@code counts[i]} with the passengers for flight i arriving during
+     * {@code minute} (minutes since start). Minutes normally arrive in order, one per
+     * simulated interval; an earlier minute means the run started over.
+     */
+    void arrivalsAt(int minute, int[] counts);
+}
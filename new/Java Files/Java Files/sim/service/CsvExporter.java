@@ -0,0 +1,240 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the five interval CSVs (arrivals, ticket queue/completed, checkpoint
+ * queue/completed) straight from a run's recorded counts (a live engine or a
+ * reopened {@link RunFile}).
+ *
+ * Nothing here touches Swing: rows are formatted from the primitive per-step
+ * counts into one reused StringBuilder and streamed through a buffered writer, and
+ * the five files are written in parallel. The layout matches the data table window
+ * (one column per interval, series names in the first column).
+ *
+ * Call this after the run is complete, e.g.
+ * <pre>
+ *     engine.runAllIntervals();
+ *     CsvExporter.exportAll(engine, dir, true, null);
+ * </pre>
+ */
+public final class CsvExporter {
+    /** File names, in tab order. */
+    public static final String[] FILE_NAMES = {
+        "Arrivals.csv", "TicketQueue.csv", "TicketCompleted.csv",
+        "CheckpointQueue.csv", "CheckpointCompleted.csv"
+    };
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Progress callback; may be invoked from any export thread. */
+    public interface Progress {
+        void update(long rowsDone, long rowsTotal);
+    }
+
+    private CsvExporter() { }
+
+    /**
+     * Export every table into {@code dir} (created if missing).
+     *
+     * @param gzip     append ".gz" to each name and compress
+     * @param progress optional, called after each row written
+     * @return the files written, in {@link #FILE_NAMES} order
+     */
+    public static List<Path> exportAll(RunData engine,
+                                       Path dir,
+                                       boolean gzip,
+                                       Progress progress) throws IOException {
+        Files.createDirectories(dir);
+
+        LocalTime startTime = engine.getGlobalStart();
+        int interval = engine.getInterval();
+        int totalIntervals = engine.getTotalIntervals();
+
+        List<Table> tables = new ArrayList<>();
+        tables.add(arrivals(engine, startTime));
+        tables.add(history(engine.getTicketQueueCounts(), "Ticket Queue",
+                           startTime, interval, totalIntervals));
+        tables.add(history(engine.getTicketServedCounts(), "Ticket Completed",
+                           startTime, interval, totalIntervals));
+        tables.add(history(engine.getCheckpointQueueCounts(), "Checkpoint Queue",
+                           startTime, interval, totalIntervals));
+        tables.add(history(engine.getCheckpointServedCounts(), "Checkpoint Completed",
+                           startTime, interval, totalIntervals));
+
+        long total = 0;
+        for (Table t : tables) total += t.rows();
+        final long rowsTotal = total;
+        AtomicLong done = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(
+            Math.min(tables.size(), Math.max(1, Runtime.getRuntime().availableProcessors())),
+            r -> {
+                Thread t = new Thread(r, "csv-export");
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < tables.size(); i++) {
+                Table table = tables.get(i);
+                Path file = dir.resolve(gzip ? FILE_NAMES[i] + ".gz" : FILE_NAMES[i]);
+                futures.add(pool.submit(() -> {
+                    write(table, file, gzip, () -> {
+                        long d = done.incrementAndGet();
+                        if (progress != null) progress.update(d, rowsTotal);
+                    });
+                    return file;
+                }));
+            }
+            List<Path> written = new ArrayList<>();
+            for (Future<Path> f : futures) {
+                written.add(f.get());
+            }
+            return written;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV export interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("CSV export failed: " + cause, cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ---- tables ----
+
+    /** A series x interval grid of counts, with a total row. */
+    private interface Counts {
+        int get(int series, int interval);
+    }
+
+    private static final class Table {
+        final String[] seriesNames;
+        final String totalName;
+        final boolean totalFirst;
+        final String[] intervalNames;
+        final Counts counts;
+
+        Table(String[] seriesNames, String totalName, boolean totalFirst,
+              String[] intervalNames, Counts counts) {
+            this.seriesNames = seriesNames;
+            this.totalName = totalName;
+            this.totalFirst = totalFirst;
+            this.intervalNames = intervalNames;
+            this.counts = counts;
+        }
+
+        int rows() { return seriesNames.length + 1; }
+    }
+
+    private static Table arrivals(RunData engine, LocalTime startTime) {
+        List<Flight> flights = engine.getFlights();
+        int totalMinutes = Math.max(engine.getArrivalSpan() - 20, 0);
+        Map<Flight, int[]> perMin = engine.getMinuteArrivalsMap();
+        int[][] rows = new int[flights.size()][];
+        String[] names = new String[flights.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Flight f = flights.get(i);
+            rows[i] = perMin.getOrDefault(f, new int[totalMinutes]);
+            names[i] = "Arrivals - " + f.getFlightNumber();
+        }
+        String[] cols = new String[totalMinutes];
+        for (int m = 0; m < totalMinutes; m++) {
+            cols[m] = startTime.plusMinutes(m + 1).format(FMT);
+        }
+        return new Table(names, "Total Arrivals", false, cols, (r, m) -> rows[r][m]);
+    }
+
+    private static Table history(LaneCounts counts,
+                                 String label,
+                                 LocalTime startTime,
+                                 int interval,
+                                 int totalIntervals) {
+        int ti = Math.max(0, Math.min(totalIntervals, counts.steps()));
+        String[] names = new String[counts.lanes()];
+        for (int r = 0; r < names.length; r++) {
+            names[r] = label + " " + (r + 1);
+        }
+        String[] cols = new String[ti];
+        for (int c = 0; c < ti; c++) {
+            cols[c] = startTime.plusMinutes((long) (c + 1) * interval).format(FMT);
+        }
+        return new Table(names, "Total " + label, true, cols, (r, c) -> counts.get(c, r));
+    }
+
+    // ---- writing ----
+
+    private static void write(Table t, Path file, boolean gzip, Runnable rowDone) throws IOException {
+        OutputStream raw = Files.newOutputStream(file);
+        if (gzip) raw = new GZIPOutputStream(raw, BUFFER_BYTES);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(raw, StandardCharsets.UTF_8), BUFFER_BYTES)) {
+            int n = t.intervalNames.length;
+            StringBuilder line = new StringBuilder(16 + n * 6);
+
+            line.append("Time");
+            for (String c : t.intervalNames) {
+                line.append(',').append(escapeCsv(c));
+            }
+            out.append(line).append('\n');
+
+            int[] totals = new int[n];
+            for (int s = 0; s < t.seriesNames.length; s++) {
+                for (int c = 0; c < n; c++) {
+                    totals[c] += t.counts.get(s, c);
+                }
+            }
+
+            if (t.totalFirst) writeRow(out, line, t.totalName, totals, rowDone);
+            int[] row = new int[n];
+            for (int s = 0; s < t.seriesNames.length; s++) {
+                for (int c = 0; c < n; c++) {
+                    row[c] = t.counts.get(s, c);
+                }
+                writeRow(out, line, t.seriesNames[s], row, rowDone);
+            }
+            if (!t.totalFirst) writeRow(out, line, t.totalName, totals, rowDone);
+        }
+    }
+
+    private static void writeRow(Writer out, StringBuilder line, String name,
+                                 int[] values, Runnable rowDone) throws IOException {
+        line.setLength(0);
+        line.append(escapeCsv(name));
+        for (int v : values) {
+            line.append(',').append(v);
+        }
+        out.append(line).append('\n');
+        rowDone.run();
+    }
+
+    static String escapeCsv(String s) {
+        boolean need = s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r");
+        String t = s.replace("\"", "\"\"");
+        return need ? "\"" + t + "\"" : t;
+    }
+}
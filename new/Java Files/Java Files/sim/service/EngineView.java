@@ -0,0 +1,67 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.util.List;
+
+/**
+ * Read-only view of an engine pinned to one interval.
+ *
+ * Views are cheap: they hold the engine and an interval number, and build the
+ * {@link IntervalFrame} from recorded history the first time it is asked for. They
+ * never move the engine's clock, so any number of snapshot and summary windows can
+ * look at different intervals of the same run while playback carries on.
+ *
+ * Obtain one with {@link SimulationEngine#viewAt(int)}.
+ */
+public final class EngineView {
+    private final SimulationEngine engine;
+    private final int interval;
+
+    private volatile IntervalFrame frame;
+
+    EngineView(SimulationEngine engine, int interval) {
+        this.engine = engine;
+        this.interval = interval;
+    }
+
+    /** Interval shown (same meaning as getCurrentInterval()). */
+    public int getInterval() { return interval; }
+
+    /** History index shown; negative when nothing had been simulated. */
+    public int getStep() { return interval - 1; }
+
+    // configuration never changes after construction, so no locking needed
+    public List<Flight> getFlights() { return engine.getFlights(); }
+    public List<TicketCounterConfig> getCounterConfigs() { return engine.getCounterConfigs(); }
+    public int getArrivalSpan() { return engine.getArrivalSpan(); }
+    public int getHoldRoomCellSize(Flight f) { return engine.getHoldRoomCellSize(f); }
+
+    /** Render frame for this interval, built on first use. */
+    public IntervalFrame getFrame() {
+        IntervalFrame f = frame;
+        if (f == null) {
+            synchronized (engine) {
+                f = engine.frameAt(interval);
+            }
+            frame = f;
+        }
+        return f;
+    }
+
+    /** Passengers in {@code flight}'s hold room at this interval. */
+    public int getHoldRoomCount(Flight flight) {
+        int idx = engine.getFlights().indexOf(flight);
+        if (idx < 0 || getStep() < 0) return 0;
+
+        IntervalFrame f = frame;
+        if (f != null) {
+            return f.getHoldRooms().get(idx).size();
+        }
+        // a single count doesn't justify packing every lane
+        synchronized (engine) {
+            return engine.getHistoryHoldRooms().get(getStep()).get(idx).size();
+        }
+    }
+}
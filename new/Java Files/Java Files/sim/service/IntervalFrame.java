@@ -0,0 +1,104 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, render-ready view of one interval.
+ *
+ * Built by {@link SimulationEngine#frameAt(int)} on whichever thread owns the engine
+ * and handed to the UI, so painting never has to touch live engine state. Every
+ * lane is pre-packed into {@link LaneCells} (queued and served kept apart, ticket
+ * "served" already trimmed to passengers still walking to the checkpoint), so
+ * painting is an array walk with no filtering.
+ */
+public final class IntervalFrame {
+    private final int interval;
+    private final int maxComputedInterval;
+    private final int totalIntervals;
+
+    private final List<LaneCells> queuedTicket;
+    private final List<LaneCells> visibleServedTicket;
+    private final int[] servedTicketCounts;
+    private final List<LaneCells> queuedCheckpoint;
+    private final List<LaneCells> servedCheckpoint;
+    private final List<LaneCells> holdRooms;
+    private final List<Flight> closedFlights;
+    private final int[] arrivals;       // shared with the engine; read up to maxComputedInterval
+
+    IntervalFrame(int interval,
+                  int maxComputedInterval,
+                  int totalIntervals,
+                  List<LaneCells> queuedTicket,
+                  List<LaneCells> visibleServedTicket,
+                  int[] servedTicketCounts,
+                  List<LaneCells> queuedCheckpoint,
+                  List<LaneCells> servedCheckpoint,
+                  List<LaneCells> holdRooms,
+                  List<Flight> closedFlights,
+                  int[] arrivals) {
+        this.interval = interval;
+        this.maxComputedInterval = maxComputedInterval;
+        this.totalIntervals = totalIntervals;
+        this.queuedTicket = Collections.unmodifiableList(queuedTicket);
+        this.visibleServedTicket = Collections.unmodifiableList(visibleServedTicket);
+        this.servedTicketCounts = servedTicketCounts;
+        this.queuedCheckpoint = Collections.unmodifiableList(queuedCheckpoint);
+        this.servedCheckpoint = Collections.unmodifiableList(servedCheckpoint);
+        this.holdRooms = Collections.unmodifiableList(holdRooms);
+        this.closedFlights = Collections.unmodifiableList(new ArrayList<>(closedFlights));
+        this.arrivals = arrivals;
+    }
+
+    /** Frame for interval 0 (nothing simulated yet): every lane is empty. */
+    static IntervalFrame empty(int maxComputedInterval,
+                               int totalIntervals,
+                               int ticketLanes,
+                               int checkpointLanes,
+                               int holdRooms,
+                               int[] arrivals) {
+        List<LaneCells> t = Collections.nCopies(ticketLanes, LaneCells.EMPTY);
+        List<LaneCells> c = Collections.nCopies(checkpointLanes, LaneCells.EMPTY);
+        return new IntervalFrame(0, maxComputedInterval, totalIntervals,
+                t, t, new int[ticketLanes], c, c,
+                Collections.nCopies(holdRooms, LaneCells.EMPTY), Collections.emptyList(), arrivals);
+    }
+
+    /** The engine interval this frame shows (same meaning as getCurrentInterval()). */
+    public int getInterval() { return interval; }
+
+    /** History index rendered by this frame; negative when nothing has been simulated. */
+    public int getStep() { return interval - 1; }
+
+    public int getMaxComputedInterval() { return maxComputedInterval; }
+    public int getTotalIntervals() { return totalIntervals; }
+
+    public boolean canRewind() { return interval > 0; }
+    public boolean isFinished() { return interval >= totalIntervals; }
+
+    public List<LaneCells> getQueuedTicket() { return queuedTicket; }
+
+    /** Served ticket passengers still walking to the checkpoint at this step. */
+    public List<LaneCells> getVisibleServedTicket() { return visibleServedTicket; }
+
+    /** Everyone served at ticket counter {@code lane} so far (not just those still visible). */
+    public int getServedTicketCount(int lane) { return servedTicketCounts[lane]; }
+
+    public List<LaneCells> getQueuedCheckpoint() { return queuedCheckpoint; }
+    public List<LaneCells> getServedCheckpoint() { return servedCheckpoint; }
+    public List<LaneCells> getHoldRooms() { return holdRooms; }
+
+    /**
+     * Arrivals during interval {@code i} (1..maxComputedInterval; the minute before
+     * it), as the engine simulated them; 0 outside that range.
+     */
+    public int getArrivalsAtInterval(int i) {
+        return i <= 0 || i > maxComputedInterval ? 0 : arrivals[i];
+    }
+
+    /** Flights whose boarding closed during this step. */
+    public List<Flight> getClosedFlights() { return closedFlights; }
+}
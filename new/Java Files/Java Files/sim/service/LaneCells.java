@@ -0,0 +1,104 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packed, render-ready contents of one lane (or hold room) for one interval.
+ *
+ * Each cell is an int: flight index in the high bits, border-colour class in the
+ * low two bits, in queue order. Painting is a plain walk over the array; the
+ * parallel passenger array is only consulted when someone clicks a cell.
+ */
+public final class LaneCells {
+    /** Border-colour classes (low two bits of each cell). */
+    public static final int IN_PERSON = 0;
+    public static final int ONLINE    = 1;
+    public static final int MISSED    = 2;
+
+    private static final int CLASS_BITS = 2;
+    private static final int CLASS_MASK = (1 << CLASS_BITS) - 1;
+
+    static final LaneCells EMPTY = new LaneCells(new int[0], new Passenger[0], 0);
+
+    private final int[] cells;
+    private final Passenger[] passengers;
+    private final int flightCount;
+
+    // per-flight partitions, built on first request (snapshot windows filter by flight)
+    private volatile LaneCells[] byFlight;
+
+    private LaneCells(int[] cells, Passenger[] passengers, int flightCount) {
+        this.cells = cells;
+        this.passengers = passengers;
+        this.flightCount = flightCount;
+    }
+
+    /**
+     * Pack a lane.
+     *
+     * @param holdRoom hold rooms colour every missed passenger red; ticket and
+     *                 checkpoint lanes only those without a checkpoint completion
+     */
+    static LaneCells pack(List<Passenger> lane, Map<Flight, Integer> flightIndex, boolean holdRoom) {
+        int n = lane.size();
+        if (n == 0) return new LaneCells(EMPTY.cells, EMPTY.passengers, flightIndex.size());
+
+        int[] cells = new int[n];
+        Passenger[] passengers = new Passenger[n];
+        int i = 0;
+        for (Passenger p : lane) {
+            boolean red = holdRoom
+                ? p.isMissed()
+                : p.isMissed() && p.getCheckpointCompletionMinute() < 0;
+            int cls = red ? MISSED : (p.isInPerson() ? IN_PERSON : ONLINE);
+            cells[i] = (flightIndex.get(p.getFlight()) << CLASS_BITS) | cls;
+            passengers[i] = p;
+            i++;
+        }
+        return new LaneCells(cells, passengers, flightIndex.size());
+    }
+
+    public int size() { return cells.length; }
+
+    public int flightIndex(int i) { return cells[i] >>> CLASS_BITS; }
+
+    public int colorClass(int i) { return cells[i] & CLASS_MASK; }
+
+    public Passenger passenger(int i) { return passengers[i]; }
+
+    /** Only the cells of one flight, in the same order; flightIndex &lt; 0 means all. */
+    public LaneCells forFlight(int flightIndex) {
+        if (flightIndex < 0) return this;
+        if (flightIndex >= flightCount) return EMPTY;
+        LaneCells[] parts = byFlight;
+        if (parts == null) {
+            parts = partition();
+            byFlight = parts;
+        }
+        return parts[flightIndex];
+    }
+
+    private LaneCells[] partition() {
+        int[] counts = new int[flightCount];
+        for (int c : cells) counts[c >>> CLASS_BITS]++;
+
+        LaneCells[] parts = new LaneCells[flightCount];
+        int[] fill = new int[flightCount];
+        for (int f = 0; f < flightCount; f++) {
+            parts[f] = counts[f] == 0
+                ? EMPTY
+                : new LaneCells(new int[counts[f]], new Passenger[counts[f]], flightCount);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            int f = cells[i] >>> CLASS_BITS;
+            int k = fill[f]++;
+            parts[f].cells[k] = cells[i];
+            parts[f].passengers[k] = passengers[i];
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,128 @@
+package sim.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Per-interval passenger counts for a fixed set of lanes, in one flat int[].
+ *
+ * Row {@code step} holds one count per lane (same step index as the engine's history
+ * lists). Only the engine thread appends; readers on other threads may call
+ * {@link #steps()} and {@link #copyRows} without the engine lock: a row is written
+ * in full before the step count that exposes it is published.
+ *
+ * A rolling run {@link #retire}s old rows to a {@link SpillFile}; the array then
+ * holds only rows from {@code first} on, and older rows are read back from disk.
+ * The array is never compacted in place, so a reader holding the previous one still
+ * sees valid rows.
+ */
+public final class LaneCountHistory implements LaneCounts {
+    private final int lanes;
+
+    /** Rows [first, ...) of the history. */
+    private static final class Rows {
+        final int[] counts;
+        final int first;
+
+        Rows(int[] counts, int first) {
+            this.counts = counts;
+            this.first = first;
+        }
+    }
+
+    private volatile Rows rows;
+    private volatile int steps;
+    // bumped by clear(), so readers holding copies can tell a re-run from growth
+    private volatile int generation;
+
+    private SpillFile spill;
+
+    public LaneCountHistory(int lanes) {
+        this.lanes = lanes;
+        this.rows = new Rows(new int[Math.max(1, lanes) * 64], 0);
+    }
+
+    @Override public int lanes() { return lanes; }
+
+    @Override public int steps() { return steps; }
+
+    @Override public int generation() { return generation; }
+
+    @Override public int get(int step, int lane) {
+        if (step < 0 || step >= steps) throw new IndexOutOfBoundsException("step " + step);
+        Rows r = rows;
+        if (step < r.first) {
+            return spill.read(4L * ((long) step * lanes + lane), 4).getInt();
+        }
+        return r.counts[(step - r.first) * lanes + lane];
+    }
+
+    @Override public void copyRows(int fromStep, int toStep, int[] dst) {
+        Rows r = rows;
+        int split = Math.max(fromStep, Math.min(toStep, r.first));
+        if (split > fromStep) {
+            int n = (split - fromStep) * lanes;
+            spill.read(4L * fromStep * lanes, 4 * n).asIntBuffer().get(dst, fromStep * lanes, n);
+        }
+        if (toStep > split) {
+            System.arraycopy(r.counts, (split - r.first) * lanes, dst, split * lanes, (toStep - split) * lanes);
+        }
+    }
+
+    /** Engine thread only: record one step's lane sizes. */
+    void append(int[] row) {
+        int n = steps;
+        Rows r = rows;
+        if ((n + 1 - r.first) * lanes > r.counts.length) {
+            int[] c = Arrays.copyOf(r.counts, Math.max(r.counts.length * 2, (n + 1 - r.first) * lanes));
+            r = new Rows(c, r.first);
+            rows = r;
+        }
+        System.arraycopy(row, 0, r.counts, (n - r.first) * lanes, lanes);
+        steps = n + 1;
+    }
+
+    /**
+     * Engine thread only: move rows before {@code step} to disk. Done in batches, once
+     * they make up half the rows held, so each row is copied a bounded number of times.
+     */
+    void retire(int step) {
+        Rows r = rows;
+        int upTo = Math.min(step, steps);
+        int held = steps - r.first;
+        if (upTo - r.first < Math.max(64, held / 2)) return;
+        if (spill == null) spill = new SpillFile("sim-counts");
+
+        ByteBuffer out = ByteBuffer.allocate(4 * (upTo - r.first) * lanes).order(ByteOrder.LITTLE_ENDIAN);
+        out.asIntBuffer().put(r.counts, 0, (upTo - r.first) * lanes);
+        spill.write(4L * r.first * lanes, out);
+
+        int keep = (steps - upTo) * lanes;
+        int[] c = new int[Math.max(Math.max(1, lanes) * 64, 2 * keep)];
+        System.arraycopy(r.counts, (upTo - r.first) * lanes, c, 0, keep);
+        rows = new Rows(c, upTo);
+    }
+
+    /** Engine thread only: replace everything with a copy of {@code src}. */
+    void load(LaneCounts src) {
+        if (src.lanes() != lanes) {
+            throw new IllegalArgumentException("expected " + lanes + " lanes, got " + src.lanes());
+        }
+        int n = src.steps();
+        int[] c = new int[Math.max(Math.max(1, lanes) * 64, n * lanes)];
+        src.copyRows(0, n, c);
+        rows = new Rows(c, 0);
+        steps = n;
+        generation++;
+    }
+
+    /** Engine thread only: forget everything (a full re-run follows). */
+    void clear() {
+        steps = 0;
+        Rows r = rows;
+        if (r.first > 0) rows = new Rows(r.counts, 0);
+        if (spill != null) spill.reset();
+        generation++;
+    }
+}
@@ -0,0 +1,25 @@
+package sim.service;
+
+/**
+ * Read access to per-step lane counts, wherever they are stored.
+ *
+ * Step-major: row {@code step} holds one count per lane. Implemented by the live
+ * {@link LaneCountHistory} and by the mapped columns of a {@link RunFile}.
+ */
+public interface LaneCounts {
+    int lanes();
+
+    /** Number of recorded steps. */
+    int steps();
+
+    int get(int step, int lane);
+
+    /**
+     * Copy rows [fromStep, toStep) into {@code dst} starting at row {@code fromStep}
+     * (so dst uses the same layout). dst must hold toStep * lanes() ints.
+     */
+    void copyRows(int fromStep, int toStep, int[] dst);
+
+    /** Changes whenever recorded rows are discarded, so cached copies can tell. */
+    int generation();
+}
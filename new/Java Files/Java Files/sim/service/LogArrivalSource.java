@@ -0,0 +1,337 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays recorded arrivals (door counters, boarding-pass scans) from a log file.
+ *
+ * One record per line, in time order:
+ * <pre>
+ *   timestamp, flight number[, count]
+ * </pre>
+ * separated by commas, semicolons, tabs or spaces. The timestamp is H:MM[:SS] or
+ * yyyy-MM-dd[T| ]HH:MM[:SS], optionally followed by fractions or a zone (ignored);
+ * count defaults to 1. Lines that don't parse (headers, comments) are skipped and
+ * counted, as are records for flights the run doesn't have.
+ *
+ * A dated log may cover months: the day to replay is found by binary search, and
+ * records are then read straight from a sliding memory-mapped window as the engine
+ * asks for each minute. Nothing but the current position and one offset per minute
+ * simulated is kept, so the log is never loaded as a whole. Going back to an earlier
+ * minute (a re-run) jumps to the offset recorded for it.
+ *
+ * Engine thread only.
+ */
+public final class LogArrivalSource implements ArrivalSource, Closeable {
+    private static final long WINDOW_BYTES = 64L << 20;
+    private static final int DAY_SECONDS = 86_400;
+
+    private final FileChannel channel;
+    private final long size;
+    private final LocalDate day;
+
+    // sliding read-only mapping
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+
+    // flight numbers (UTF-8) in an open-addressing table of index + 1
+    private byte[][] names = new byte[0][];
+    private int[] table = new int[1];
+
+    private int startSecond;
+    private int firstDeparture;
+    private boolean wrapsMidnight;
+    private long anchor;          // absolute second of minute 0
+
+    // streaming cursor
+    private long firstRecord;
+    private long pos;
+    private long[] minuteStart = new long[256];
+    private int minutesKnown;
+    private long scannedTo;       // high-water mark, so re-runs don't recount
+
+    private long records;
+    private long unmatched;
+    private long badLines;
+
+    // the line last parsed
+    private long recSecond;
+    private int recFlight;
+    private int recCount;
+    private long recNext;
+
+    /**
+     * @param log the arrivals log
+     * @param day day to replay from a dated log; null for the first day in the log
+     *            (ignored for logs without dates)
+     */
+    public LogArrivalSource(Path log, LocalDate day) throws IOException {
+        this.channel = FileChannel.open(log, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.day = day;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Records delivered to flights in the run. */
+    public long getRecords() { return records; }
+
+    /** Records naming a flight the run doesn't have. */
+    public long getUnmatched() { return unmatched; }
+
+    /** Lines that could not be read as a record. */
+    public long getBadLines() { return badLines; }
+
+    @Override
+    public void bind(LocalTime start, List<Flight> flights) {
+        names = new byte[flights.size()][];
+        table = new int[Integer.highestOneBit(Math.max(1, flights.size()) * 2) * 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = flights.get(i).getFlightNumber().getBytes(StandardCharsets.UTF_8);
+            int slot = hash(names[i], 0, names[i].length) & (table.length - 1);
+            while (table[slot] != 0) slot = (slot + 1) & (table.length - 1);
+            table[slot] = i + 1;
+        }
+
+        startSecond = start.toSecondOfDay();
+        firstDeparture = flights.stream()
+            .mapToInt(f -> f.getDepartureMinute() * 60)
+            .min().orElse(startSecond);
+        // the run starts the evening before its first departure
+        wrapsMidnight = startSecond > firstDeparture;
+
+        try {
+            long first = 0;
+            while (first < size && !parse(first)) first = recNext;
+            if (first < size && recSecond >= DAY_SECONDS) {
+                long epochDay;
+                if (day != null) {
+                    epochDay = day.toEpochDay();
+                } else {
+                    epochDay = recSecond / DAY_SECONDS;
+                    // a first record after the start time is the run's evening, else its morning
+                    if (wrapsMidnight && recSecond % DAY_SECONDS >= startSecond) epochDay++;
+                }
+                anchor = epochDay * DAY_SECONDS + startSecond - (wrapsMidnight ? DAY_SECONDS : 0);
+                firstRecord = seek(anchor);
+            } else {
+                anchor = startSecond - (wrapsMidnight ? DAY_SECONDS : 0);
+                firstRecord = 0;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read arrivals log: " + ex.getMessage(), ex);
+        }
+        pos = firstRecord;
+        minutesKnown = 0;
+        scannedTo = firstRecord;
+        records = unmatched = badLines = 0;
+    }
+
+    @Override
+    public void arrivalsAt(int minute, int[] counts) {
+        Arrays.fill(counts, 0);
+        if (minute < 0) return;
+        if (minute < minutesKnown) {
+            pos = minuteStart[minute];
+        } else {
+            if (minute >= minuteStart.length) {
+                minuteStart = Arrays.copyOf(minuteStart, Math.max(minuteStart.length * 2, minute + 1));
+            }
+            Arrays.fill(minuteStart, minutesKnown, minute + 1, pos);
+            minutesKnown = minute + 1;
+        }
+        try {
+            while (pos < size) {
+                boolean ok = parse(pos);
+                boolean fresh = pos >= scannedTo;
+                if (!ok) {
+                    if (fresh) badLines++;
+                } else {
+                    long m = Math.floorDiv(recSecond - anchor, 60);
+                    if (m > minute) break;
+                    if (m == minute) {
+                        if (recFlight >= 0) {
+                            counts[recFlight] += recCount;
+                            if (fresh) records++;
+                        } else if (fresh) {
+                            unmatched++;
+                        }
+                    }
+                }
+                pos = recNext;
+                if (pos > scannedTo) scannedTo = pos;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read arrivals log: " + ex.getMessage(), ex);
+        }
+    }
+
+    // ============================
+    // Reading
+    // ============================
+
+    private int byteAt(long i) throws IOException {
+        if (i < windowStart || i >= windowStart + windowLength) {
+            windowStart = i;
+            windowLength = (int) Math.min(WINDOW_BYTES, size - i);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+        }
+        return window.get((int) (i - windowStart));
+    }
+
+    /** First line starting at or after {@code p}. */
+    private long lineStart(long p) throws IOException {
+        if (p == 0) return 0;
+        while (p < size && byteAt(p - 1) != '\n') p++;
+        return p;
+    }
+
+    /** First record at or after {@code second} in a time-ordered log. */
+    private long seek(long second) throws IOException {
+        long lo = 0, hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long q = lineStart(mid);
+            while (q < size && !parse(q)) q = recNext;
+            if (q >= size || recSecond >= second) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lineStart(lo);
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == ',' || c == ';' || c == '\t' || c == ' ';
+    }
+
+    private boolean digit(long i) throws IOException {
+        if (i >= size) return false;
+        int c = byteAt(i);
+        return c >= '0' && c <= '9';
+    }
+
+    private int number(long i, int digits) throws IOException {
+        int v = 0;
+        for (int k = 0; k < digits; k++) v = v * 10 + (byteAt(i + k) - '0');
+        return v;
+    }
+
+    /**
+     * Parse the line at {@code p} into the rec* fields (recSecond is absolute for
+     * dated lines, else a second of the run's day); recNext is set either way.
+     *
+     * @return false if the line is not a record
+     */
+    private boolean parse(long p) throws IOException {
+        long end = p;
+        while (end < size && byteAt(end) != '\n') end++;
+        recNext = end < size ? end + 1 : size;
+        if (end > p && byteAt(end - 1) == '\r') end--;
+
+        long i = p;
+        long epochDay = -1;
+        if (i + 10 <= end && digit(i) && digit(i + 3) && byteAt(i + 4) == '-') {
+            if (byteAt(i + 7) != '-') return false;
+            int y = number(i, 4), mo = number(i + 5, 2), d = number(i + 8, 2);
+            if (mo < 1 || mo > 12 || d < 1 || d > 31) return false;
+            epochDay = epochDay(y, mo, d);
+            i += 10;
+            if (i >= end || (byteAt(i) != 'T' && byteAt(i) != ' ')) return false;
+            i++;
+        }
+
+        if (!digit(i)) return false;
+        int h = byteAt(i++) - '0';
+        if (digit(i)) h = h * 10 + byteAt(i++) - '0';
+        if (i >= end || byteAt(i) != ':' || !digit(i + 1) || !digit(i + 2)) return false;
+        int m = number(i + 1, 2);
+        i += 3;
+        int s = 0;
+        if (i < end && byteAt(i) == ':' && digit(i + 1) && digit(i + 2)) {
+            s = number(i + 1, 2);
+            i += 3;
+        }
+        if (h > 23 || m > 59 || s > 59) return false;
+        int sod = h * 3600 + m * 60 + s;
+
+        while (i < end && !isDelimiter(byteAt(i))) i++;   // fractions, zone
+        while (i < end && isDelimiter(byteAt(i))) i++;
+        long nameStart = i;
+        while (i < end && !isDelimiter(byteAt(i))) i++;
+        long nameEnd = i;
+        if (nameEnd - nameStart >= 2 && byteAt(nameStart) == '"' && byteAt(nameEnd - 1) == '"') {
+            nameStart++;
+            nameEnd--;
+        }
+        if (nameEnd <= nameStart) return false;
+        while (i < end && isDelimiter(byteAt(i))) i++;
+
+        int count = 1;
+        if (i < end) {
+            count = 0;
+            while (i < end && digit(i)) count = count * 10 + byteAt(i++) - '0';
+            if (i < end && !isDelimiter(byteAt(i))) return false;
+        }
+
+        if (epochDay >= 0) {
+            recSecond = epochDay * DAY_SECONDS + sod;
+        } else {
+            // from the start time on, the evening before a run that crosses midnight
+            recSecond = wrapsMidnight && sod >= startSecond ? sod - DAY_SECONDS : sod;
+        }
+        recFlight = flight(nameStart, nameEnd);
+        recCount = count;
+        return true;
+    }
+
+    private int flight(long s, long e) throws IOException {
+        int len = (int) (e - s);
+        int h = 0;
+        for (long i = s; i < e; i++) h = 31 * h + (byteAt(i) & 0xff);
+        int slot = h & (table.length - 1);
+        while (table[slot] != 0) {
+            byte[] name = names[table[slot] - 1];
+            if (name.length == len) {
+                int k = 0;
+                while (k < len && name[k] == (byte) byteAt(s + k)) k++;
+                if (k == len) return table[slot] - 1;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private static int hash(byte[] b, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + (b[i] & 0xff);
+        return h;
+    }
+
+    /** Days since 1970-01-01 (proleptic Gregorian), without a LocalDate per line. */
+    private static long epochDay(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+}
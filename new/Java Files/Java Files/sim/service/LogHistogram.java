@@ -0,0 +1,109 @@
+package sim.service;
+
+import java.util.Arrays;
+
+/**
+ * Counts of non-negative whole values (minutes) in HDR-style log buckets: exact up to
+ * 63, then 32 buckets per power of two, so a quantile is within about 3% of the true
+ * value at any size. Histograms of the same kind merge by adding bucket counts, which
+ * is how replications run in parallel are pooled without keeping their passengers.
+ *
+ * Not thread-safe; the engine updates its own on its thread. {@link #copy()} for a
+ * stable view elsewhere.
+ */
+public final class LogHistogram {
+    private static final int PRECISION = 5;                 // bits kept below the top one
+    private static final int LINEAR = 2 << PRECISION;       // 64: values below are exact
+    private static final int PER_OCTAVE = 1 << PRECISION;   // 32
+
+    private long[] counts = new long[0];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /** Count {@code value}; negatives count as 0. */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int b = bucket(v);
+        if (b >= counts.length) counts = Arrays.copyOf(counts, Math.max(b + 1, counts.length * 2));
+        counts[b]++;
+        count++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    /** Add {@code other}'s counts to these. */
+    public void merge(LogHistogram other) {
+        if (other.count == 0) return;
+        if (other.counts.length > counts.length) counts = Arrays.copyOf(counts, other.counts.length);
+        for (int b = 0; b < other.counts.length; b++) counts[b] += other.counts[b];
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    public LogHistogram copy() {
+        LogHistogram h = new LogHistogram();
+        h.merge(this);
+        return h;
+    }
+
+    public long getCount() { return count; }
+
+    /** Mean value; NaN if empty. */
+    public double getMean() { return count == 0 ? Double.NaN : (double) sum / count; }
+
+    /** Smallest value; 0 if empty. */
+    public long getMin() { return count == 0 ? 0 : min; }
+
+    /** Largest value; 0 if empty. */
+    public long getMax() { return count == 0 ? 0 : max; }
+
+    /**
+     * The value at quantile {@code q} (0.5 = median, 0.95 = p95): the middle of the
+     * bucket holding that rank, kept within the observed min and max. NaN if empty.
+     */
+    public double getQuantile(double q) {
+        if (count == 0) return Double.NaN;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, q)) * count));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                double mid = (low(b) + low(b + 1) - 1) / 2.0;
+                return Math.min(max, Math.max(min, mid));
+            }
+        }
+        return max;
+    }
+
+    // ============================
+    // Buckets
+    // ============================
+
+    private static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int octave = 63 - Long.numberOfLeadingZeros(v);             // >= PRECISION + 1
+        int top = (int) (v >>> (octave - PRECISION));               // PER_OCTAVE..2*PER_OCTAVE-1
+        return LINEAR + (octave - PRECISION - 1) * PER_OCTAVE + top - PER_OCTAVE;
+    }
+
+    /** Smallest value in bucket {@code b}. */
+    private static long low(int b) {
+        if (b < LINEAR) return b;
+        int octave = (b - LINEAR) / PER_OCTAVE + PRECISION + 1;
+        long top = (b - LINEAR) % PER_OCTAVE + PER_OCTAVE;
+        return top << (octave - PRECISION);
+    }
+}
@@ -0,0 +1,145 @@
+package sim.service;
+
+import sim.model.Passenger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * One kind of lane history (step -> lane -> passengers), as the engine records it.
+ *
+ * Steps simulated in this process are plain lists. A reopened session instead
+ * {@link #load}s its steps from a mapped, delta-encoded region and decodes each step
+ * when first asked for: keyframes every few steps are written in full, the steps in
+ * between as changes from the previous one (see {@link SnapshotCodec}). The last
+ * decoded step is kept, so scrubbing forward is one delta per step.
+ *
+ * A rolling run {@link #retire}s the oldest plain steps the same way, appending them
+ * to a {@link SpillFile}, so only its trailing window stays on the heap:
+ * steps are [loaded | spilled | live].
+ */
+final class PassengerHistory extends AbstractList<List<List<Passenger>>> implements RandomAccess {
+    /** Keyframe spacing used when saving. */
+    static final int KEY_EVERY = 32;
+
+    private final List<List<List<Passenger>>> live = new ArrayList<>();
+
+    // loaded steps [0, loadedSteps)
+    private ByteBuffer loaded;
+    private int[] offsets;
+    private int loadedSteps;
+    private int keyEvery;
+    private SnapshotCodec codec;
+
+    // spilled steps [loadedSteps, loadedSteps + spilledSteps), record i at spillAt[i]
+    private SpillFile spill;
+    private SnapshotCodec spillCodec;
+    private long[] spillAt = new long[64];
+    private int spilledSteps;
+    private List<List<Passenger>> lastSpilled;
+
+    private int cachedStep = -1;
+    private List<List<Passenger>> cached;
+
+    @Override
+    public List<List<Passenger>> get(int step) {
+        if (step < loadedSteps + spilledSteps) return storedStep(step);
+        return live.get(step - loadedSteps - spilledSteps);
+    }
+
+    @Override
+    public int size() {
+        return loadedSteps + spilledSteps + live.size();
+    }
+
+    @Override
+    public boolean add(List<List<Passenger>> step) {
+        return live.add(step);
+    }
+
+    @Override
+    public void clear() {
+        live.clear();
+        synchronized (this) {
+            loaded = null;
+            offsets = null;
+            loadedSteps = 0;
+            spilledSteps = 0;
+            lastSpilled = null;
+            if (spill != null) spill.reset();
+            cachedStep = -1;
+            cached = null;
+        }
+    }
+
+    /** Replace the contents with steps read from a saved session. */
+    synchronized void load(ByteBuffer data, int[] offsets, int keyEvery, SnapshotCodec codec) {
+        live.clear();
+        this.loaded = data;
+        this.offsets = offsets;
+        this.loadedSteps = offsets.length;
+        this.keyEvery = keyEvery;
+        this.codec = codec;
+        this.spilledSteps = 0;
+        this.lastSpilled = null;
+        this.cachedStep = -1;
+        this.cached = null;
+    }
+
+    /**
+     * Move every plain step before {@code step} to disk, encoded with {@code codec}.
+     * Engine thread only.
+     */
+    synchronized void retire(int step, SnapshotCodec codec) {
+        int n = Math.min(step, size()) - loadedSteps - spilledSteps;
+        if (n <= 0) return;
+        if (spill == null) spill = new SpillFile("sim-history");
+        spillCodec = codec;
+        if (spilledSteps + n + 1 > spillAt.length) {
+            spillAt = Arrays.copyOf(spillAt, Math.max(spillAt.length * 2, spilledSteps + n + 1));
+        }
+        for (int i = 0; i < n; i++) {
+            List<List<Passenger>> lanes = live.get(i);
+            boolean key = spilledSteps % KEY_EVERY == 0;
+            spillAt[spilledSteps] = spill.append(codec.encodeLanes(lanes, key ? null : lastSpilled));
+            spilledSteps++;
+            lastSpilled = lanes;
+        }
+        spillAt[spilledSteps] = spill.length();
+        live.subList(0, n).clear();
+    }
+
+    /** A loaded or spilled step, decoded from its nearest keyframe (or the cached step). */
+    private synchronized List<List<Passenger>> storedStep(int step) {
+        if (step == cachedStep) return cached;
+        boolean isLoaded = step < loadedSteps;
+        int first = isLoaded ? 0 : loadedSteps;
+        int every = isLoaded ? keyEvery : KEY_EVERY;
+        int from = step - (step - first) % every;
+        List<List<Passenger>> lanes = null;
+        if (cachedStep >= from && cachedStep < step) {
+            from = cachedStep + 1;
+            lanes = cached;
+        }
+        for (int s = from; s <= step; s++) {
+            boolean key = (s - first) % every == 0;
+            if (isLoaded) {
+                ByteBuffer b = loaded.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                b.position(offsets[s]);
+                lanes = codec.getLanes(b, key ? null : lanes);
+            } else {
+                int i = s - loadedSteps;
+                ByteBuffer b = spill.read(spillAt[i], (int) (spillAt[i + 1] - spillAt[i]));
+                lanes = spillCodec.getLanes(b, key ? null : lanes);
+            }
+        }
+        cachedStep = step;
+        cached = lanes;
+        return lanes;
+    }
+}
@@ -0,0 +1,138 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Every passenger created in a run, indexed by {@link Passenger#getId()}.
+ *
+ * In a rolling run the engine {@link #retire}s passengers whose flight has left the
+ * trailing window: their fields go to a fixed-size record in a {@link SpillFile} and
+ * the object is dropped. Asking for a retired id reads the record back into a fresh
+ * Passenger, so old history and snapshots still decode, while only the passengers of
+ * recent flights stay on the heap.
+ *
+ * Engine thread only (or under the engine lock).
+ */
+final class PassengerRoster extends AbstractList<Passenger> implements RandomAccess {
+    // flight, arrival, ticket done, checkpoint entry/done, hold entry/sequence, flags
+    private static final int RECORD = 32;
+
+    private final List<Flight> flights;
+    private final Map<Flight, Integer> flightIndex = new IdentityHashMap<>();
+
+    // ids [first, size) live in slots[0, size - first); null = retired
+    private Passenger[] slots = new Passenger[1024];
+    private int first;
+    private int size;
+    // slots[0, retired) are all null; it only grows until the next compaction
+    private int retired;
+
+    private SpillFile spill;
+
+    PassengerRoster(List<Flight> flights) {
+        this.flights = flights;
+        for (int i = 0; i < flights.size(); i++) {
+            flightIndex.put(flights.get(i), i);
+        }
+    }
+
+    @Override
+    public Passenger get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("passenger " + id);
+        if (id >= first) {
+            Passenger p = slots[id - first];
+            if (p != null) return p;
+        }
+        return restore(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(Passenger p) {
+        if (size - first == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[size - first] = p;
+        size++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, 0, size - first, null);
+        first = 0;
+        size = 0;
+        retired = 0;
+        if (spill != null) spill.reset();
+    }
+
+    /** Lowest id that may still be held on the heap. */
+    int firstLive() {
+        return first + retired;
+    }
+
+    /** The passenger with {@code id} if still on the heap, else null. */
+    Passenger live(int id) {
+        return id >= first && id < size ? slots[id - first] : null;
+    }
+
+    /** Write {@code p} to disk and drop it; later gets return a copy read back. */
+    void retire(Passenger p) {
+        int id = p.getId();
+        if (live(id) != p) return;
+        if (spill == null) spill = new SpillFile("sim-passengers");
+
+        ByteBuffer b = ByteBuffer.allocate(RECORD).order(ByteOrder.LITTLE_ENDIAN);
+        Integer f = p.getFlight() == null ? null : flightIndex.get(p.getFlight());
+        b.putInt(f == null ? -1 : f);
+        b.putInt(p.getArrivalMinute());
+        b.putInt(p.getTicketCompletionMinute());
+        b.putInt(p.getCheckpointEntryMinute());
+        b.putInt(p.getCheckpointCompletionMinute());
+        b.putInt(p.getHoldRoomEntryMinute());
+        b.putInt(p.getHoldRoomSequence());
+        b.putInt((p.isInPerson() ? RunFile.FLAG_IN_PERSON : 0) | (p.isMissed() ? RunFile.FLAG_MISSED : 0));
+        b.flip();
+        spill.write((long) id * RECORD, b);
+        slots[id - first] = null;
+
+        // extend the retired prefix from where it stopped; compact once it is half the window
+        while (first + retired < size && slots[retired] == null) retired++;
+        if (retired > 0 && retired >= (size - first) / 2) {
+            int k = retired;
+            System.arraycopy(slots, k, slots, 0, size - first - k);
+            Arrays.fill(slots, size - first - k, size - first, null);
+            first += k;
+            retired = 0;
+        }
+    }
+
+    private Passenger restore(int id) {
+        ByteBuffer b = spill.read((long) id * RECORD, RECORD);
+        int f = b.getInt();
+        Passenger p = new Passenger(f < 0 ? null : flights.get(f), b.getInt(),
+            (b.getInt(28) & RunFile.FLAG_IN_PERSON) != 0);
+        p.setTicketCompletionMinute(b.getInt());
+        p.setCheckpointEntryMinute(b.getInt());
+        p.setCheckpointCompletionMinute(b.getInt());
+        p.setHoldRoomEntryMinute(b.getInt());
+        p.setHoldRoomSequence(b.getInt());
+        p.setMissed((b.getInt() & RunFile.FLAG_MISSED) != 0);
+        p.setId(id);
+        return p;
+    }
+}
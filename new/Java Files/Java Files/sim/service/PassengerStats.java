@@ -0,0 +1,152 @@
+package sim.service;
+
+import java.util.Arrays;
+
+/**
+ * Passenger KPIs kept as the run goes, so wait-time figures don't have to be rebuilt
+ * from the passengers afterwards. The engine records each passenger as it finishes a
+ * stage:
+ * <ul>
+ *   <li>ticket wait: arrival to leaving the counter (in-person passengers only);</li>
+ *   <li>checkpoint wait: joining the checkpoint queue to leaving the lane;</li>
+ *   <li>time to hold room: arrival to entering the hold room;</li>
+ *   <li>slack: minutes left before boarding closes on entering the hold room.</li>
+ * </ul>
+ * Each KPI has a {@link LogHistogram} for the whole run and one per flight, and the
+ * waits one per lane too. Arrivals and missed passengers (those not in the hold room
+ * when boarding closed) are counted per flight. Stats of runs of the same schedule
+ * and staffing {@link #merge} into pooled figures.
+ *
+ * Covers the intervals this engine simulated itself; a reopened session starts
+ * empty. Engine thread only, like the engine's lanes; {@link #copy()} for a stable
+ * view elsewhere.
+ */
+public final class PassengerStats {
+    public enum Kpi { TICKET_WAIT, CHECKPOINT_WAIT, TIME_TO_HOLD_ROOM, SLACK }
+
+    private final LogHistogram[] total = new LogHistogram[Kpi.values().length];
+    private final LogHistogram[][] byFlight = new LogHistogram[Kpi.values().length][];
+    private final LogHistogram[] ticketLanes;
+    private final LogHistogram[] checkpointLanes;
+    private final long[] arrivals;
+    private final long[] missed;
+
+    PassengerStats(int flights, int counters, int checkpoints) {
+        for (Kpi k : Kpi.values()) {
+            total[k.ordinal()] = new LogHistogram();
+            byFlight[k.ordinal()] = histograms(flights);
+        }
+        ticketLanes = histograms(counters);
+        checkpointLanes = histograms(checkpoints);
+        arrivals = new long[flights];
+        missed = new long[flights];
+    }
+
+    private static LogHistogram[] histograms(int n) {
+        LogHistogram[] h = new LogHistogram[n];
+        for (int i = 0; i < n; i++) h[i] = new LogHistogram();
+        return h;
+    }
+
+    // ============================
+    // Recording (engine)
+    // ============================
+
+    void arrived(int flight) {
+        arrivals[flight]++;
+    }
+
+    void ticketServed(int flight, int counter, int wait) {
+        record(Kpi.TICKET_WAIT, flight, wait);
+        ticketLanes[counter].record(wait);
+    }
+
+    void checkpointServed(int flight, int lane, int wait) {
+        record(Kpi.CHECKPOINT_WAIT, flight, wait);
+        checkpointLanes[lane].record(wait);
+    }
+
+    void enteredHoldRoom(int flight, int timeToHoldRoom, int slack) {
+        record(Kpi.TIME_TO_HOLD_ROOM, flight, timeToHoldRoom);
+        record(Kpi.SLACK, flight, slack);
+    }
+
+    /** Boarding closed: whoever arrived and isn't in the hold room missed it. */
+    void closed(int flight) {
+        missed[flight] = arrivals[flight] - byFlight[Kpi.TIME_TO_HOLD_ROOM.ordinal()][flight].getCount();
+    }
+
+    private void record(Kpi kpi, int flight, int value) {
+        total[kpi.ordinal()].record(value);
+        byFlight[kpi.ordinal()][flight].record(value);
+    }
+
+    void clear() {
+        for (int k = 0; k < total.length; k++) {
+            total[k].clear();
+            for (LogHistogram h : byFlight[k]) h.clear();
+        }
+        for (LogHistogram h : ticketLanes) h.clear();
+        for (LogHistogram h : checkpointLanes) h.clear();
+        Arrays.fill(arrivals, 0);
+        Arrays.fill(missed, 0);
+    }
+
+    // ============================
+    // Reading
+    // ============================
+
+    /** {@code kpi} over every passenger so far. */
+    public LogHistogram get(Kpi kpi) { return total[kpi.ordinal()]; }
+
+    /** {@code kpi} over flight {@code flight}'s passengers (engine flight order). */
+    public LogHistogram getByFlight(Kpi kpi, int flight) { return byFlight[kpi.ordinal()][flight]; }
+
+    /** Ticket wait at counter {@code counter}. */
+    public LogHistogram getTicketLane(int counter) { return ticketLanes[counter]; }
+
+    /** Checkpoint wait at lane {@code lane}. */
+    public LogHistogram getCheckpointLane(int lane) { return checkpointLanes[lane]; }
+
+    public int getFlights() { return arrivals.length; }
+
+    public long getArrivals(int flight) { return arrivals[flight]; }
+
+    /** Passengers of {@code flight} who missed it; 0 until its boarding closes. */
+    public long getMissed(int flight) { return missed[flight]; }
+
+    public long getTotalMissed() {
+        long n = 0;
+        for (long m : missed) n += m;
+        return n;
+    }
+
+    // ============================
+    // Pooling
+    // ============================
+
+    /** Add {@code other}'s counts; it must come from the same flights and lanes. */
+    public void merge(PassengerStats other) {
+        if (other.arrivals.length != arrivals.length
+                || other.ticketLanes.length != ticketLanes.length
+                || other.checkpointLanes.length != checkpointLanes.length) {
+            throw new IllegalArgumentException("Cannot merge stats of different flights or lanes");
+        }
+        for (int k = 0; k < total.length; k++) {
+            total[k].merge(other.total[k]);
+            for (int f = 0; f < arrivals.length; f++) byFlight[k][f].merge(other.byFlight[k][f]);
+        }
+        for (int c = 0; c < ticketLanes.length; c++) ticketLanes[c].merge(other.ticketLanes[c]);
+        for (int c = 0; c < checkpointLanes.length; c++) checkpointLanes[c].merge(other.checkpointLanes[c]);
+        for (int f = 0; f < arrivals.length; f++) {
+            arrivals[f] += other.arrivals[f];
+            missed[f] += other.missed[f];
+        }
+    }
+
+    public PassengerStats copy() {
+        PassengerStats s = new PassengerStats(arrivals.length, ticketLanes.length, checkpointLanes.length);
+        s.merge(this);
+        return s;
+    }
+}
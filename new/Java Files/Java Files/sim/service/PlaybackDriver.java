@@ -0,0 +1,165 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Runs AutoRun playback on its own thread.
+ *
+ * The worker advances the engine at the requested number of intervals per second
+ * and publishes at most one {@link IntervalFrame} per display frame through an
+ * {@link AtomicReference}; the UI simply picks up whatever frame is newest, so
+ * intermediate intervals are skipped when playback outruns the screen.
+ *
+ * While the worker is stepping it holds the engine's monitor. Code on other threads
+ * that needs to read or move the engine directly should pause the driver first or
+ * synchronize on the engine.
+ */
+public class PlaybackDriver {
+    /** Publish/batch period: roughly one 60 Hz display frame. */
+    public static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private final SimulationEngine engine;
+    private final AtomicReference<IntervalFrame> latest = new AtomicReference<>();
+
+    private volatile double intervalsPerSecond = 1.0;
+    private volatile boolean running = false;
+    private volatile Predicate<List<Flight>> pauseOnClosures = closed -> false;
+
+    private Thread worker;
+
+    public PlaybackDriver(SimulationEngine engine) {
+        this.engine = engine;
+        publishCurrent();
+    }
+
+    /** Playback speed; values above the display rate simply skip frames. */
+    public void setIntervalsPerSecond(double ips) {
+        this.intervalsPerSecond = Math.max(0.1, ips);
+    }
+
+    public double getIntervalsPerSecond() {
+        return intervalsPerSecond;
+    }
+
+    /**
+     * Called on the worker with the flights that closed in a freshly computed interval;
+     * returning true pauses playback on that interval so the UI can react.
+     */
+    public void setPauseOnClosures(Predicate<List<Flight>> pauseOnClosures) {
+        this.pauseOnClosures = pauseOnClosures == null ? closed -> false : pauseOnClosures;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Newest published frame (never null). */
+    public IntervalFrame getLatestFrame() {
+        return latest.get();
+    }
+
+    /** Re-publish the engine's current interval, e.g. after a manual step or rewind. */
+    public IntervalFrame publishCurrent() {
+        IntervalFrame frame;
+        synchronized (engine) {
+            frame = engine.currentFrame();
+        }
+        latest.set(frame);
+        return frame;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        // a worker that stopped itself may still be publishing its last frame
+        joinWorker();
+        running = true;
+        worker = new Thread(this::runLoop, "sim-playback");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Stop stepping and wait for the worker to publish its final frame. */
+    public synchronized void pause() {
+        running = false;
+        joinWorker();
+    }
+
+    private void joinWorker() {
+        Thread w = worker;
+        worker = null;
+        if (w != null && w != Thread.currentThread()) {
+            try {
+                w.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runLoop() {
+        long last = System.nanoTime();
+        long lastPublish = 0;
+        double budget = 0;
+
+        while (running) {
+            double ips = intervalsPerSecond;
+            long now = System.nanoTime();
+            // cap catch-up so a stall doesn't turn into a burst of thousands of steps
+            budget = Math.min(budget + (now - last) * ips / 1e9, Math.max(1.0, ips * 0.25));
+            last = now;
+
+            if (budget < 1.0) {
+                long waitNanos = (long) ((1.0 - budget) / ips * 1e9);
+                LockSupport.parkNanos(Math.min(waitNanos, FRAME_NANOS));
+                continue;
+            }
+
+            boolean stop = false;
+            IntervalFrame frame = null;
+            synchronized (engine) {
+                long batchStart = System.nanoTime();
+                while (budget >= 1.0 && running) {
+                    if (engine.getCurrentInterval() >= engine.getTotalIntervals()) {
+                        stop = true;
+                        break;
+                    }
+                    engine.computeNextInterval();
+                    budget -= 1.0;
+
+                    List<Flight> closed = engine.getFlightsJustClosed();
+                    if (!closed.isEmpty() && pauseOnClosures.test(closed)) {
+                        stop = true;
+                        break;
+                    }
+                    if (engine.getCurrentInterval() >= engine.getTotalIntervals()) {
+                        stop = true;
+                        break;
+                    }
+                    // keep each batch within one frame so pause() stays responsive
+                    if (System.nanoTime() - batchStart > FRAME_NANOS) {
+                        break;
+                    }
+                }
+                long t = System.nanoTime();
+                if (!stop && running && t - lastPublish >= FRAME_NANOS) {
+                    frame = engine.currentFrame();
+                    lastPublish = t;
+                }
+            }
+            if (frame != null) {
+                latest.set(frame);
+            }
+            if (stop) {
+                running = false;
+            }
+        }
+        // always leave the frame the engine actually stopped on
+        publishCurrent();
+    }
+}
@@ -0,0 +1,144 @@
+package sim.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Queue lengths counted at the airport, one line per observed minute:
+ * <pre>
+ *   time, ticket lane 1..n, checkpoint lane 1..m
+ * </pre>
+ * or, when only totals were counted,
+ * <pre>
+ *   time, ticket queue, checkpoint queue
+ * </pre>
+ * Time is H:MM or H:MM:SS (seconds are dropped); fields are separated by commas,
+ * semicolons, tabs or spaces. An empty field means that lane wasn't counted then.
+ * Blank lines, '#' comments and a header line are skipped; anything else that
+ * doesn't parse is an error.
+ */
+public final class QueueObservations {
+    private final int[] minuteOfDay;
+    private final double[][] ticket;        // NaN = not observed
+    private final double[][] checkpoint;
+    private final boolean totals;
+
+    private QueueObservations(int[] minuteOfDay, double[][] ticket, double[][] checkpoint, boolean totals) {
+        this.minuteOfDay = minuteOfDay;
+        this.ticket = ticket;
+        this.checkpoint = checkpoint;
+        this.totals = totals;
+    }
+
+    /**
+     * @param ticketLanes     counters in the run being calibrated
+     * @param checkpointLanes checkpoint lanes in the run being calibrated
+     */
+    public static QueueObservations read(Path file, int ticketLanes, int checkpointLanes) throws IOException {
+        List<Integer> minutes = new ArrayList<>();
+        List<double[]> ticket = new ArrayList<>();
+        List<double[]> checkpoint = new ArrayList<>();
+        Boolean totals = null;
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            boolean headerAllowed = true;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                String s = line.trim();
+                if (s.isEmpty() || s.startsWith("#")) continue;
+                String[] f = s.split(s.matches(".*[,;\t].*") ? "\\s*[,;\t]\\s*" : "\\s+", -1);
+
+                int minute = minuteOf(f[0]);
+                if (minute < 0) {
+                    if (headerAllowed) {
+                        headerAllowed = false;
+                        continue;
+                    }
+                    throw new IOException("line " + lineNo + ": bad time '" + f[0] + "'");
+                }
+                headerAllowed = false;
+
+                int values = f.length - 1;
+                boolean rowTotals;
+                if (values == ticketLanes + checkpointLanes) {
+                    rowTotals = false;
+                } else if (values == 2) {
+                    rowTotals = true;
+                } else {
+                    throw new IOException("line " + lineNo + ": expected 2 or "
+                        + (ticketLanes + checkpointLanes) + " values, found " + values);
+                }
+                if (totals == null) totals = rowTotals;
+                if (totals != rowTotals) {
+                    throw new IOException("line " + lineNo + ": mixes totals and per-lane counts");
+                }
+
+                int nt = totals ? 1 : ticketLanes;
+                double[] t = new double[nt];
+                double[] c = new double[totals ? 1 : checkpointLanes];
+                for (int i = 0; i < values; i++) {
+                    double v = value(f[i + 1], lineNo);
+                    if (i < nt) t[i] = v;
+                    else c[i - nt] = v;
+                }
+                minutes.add(minute);
+                ticket.add(t);
+                checkpoint.add(c);
+            }
+        }
+        if (minutes.isEmpty()) throw new IOException("No observations in " + file.getFileName());
+
+        return new QueueObservations(
+            minutes.stream().mapToInt(Integer::intValue).toArray(),
+            ticket.toArray(new double[0][]),
+            checkpoint.toArray(new double[0][]),
+            totals);
+    }
+
+    /** Minute of the day for H:MM[:SS], or -1. */
+    private static int minuteOf(String s) {
+        String[] p = s.split(":");
+        if (p.length < 2 || p.length > 3) return -1;
+        try {
+            int h = Integer.parseInt(p[0]);
+            int m = Integer.parseInt(p[1]);
+            if (h < 0 || h > 23 || m < 0 || m > 59 || p[1].length() != 2) return -1;
+            return h * 60 + m;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static double value(String s, int lineNo) throws IOException {
+        if (s.isEmpty()) return Double.NaN;
+        try {
+            double v = Double.parseDouble(s);
+            if (v < 0) throw new IOException("line " + lineNo + ": negative count " + s);
+            return v;
+        } catch (NumberFormatException ex) {
+            throw new IOException("line " + lineNo + ": bad count '" + s + "'");
+        }
+    }
+
+    /** Number of observed minutes. */
+    public int size() { return minuteOfDay.length; }
+
+    /** True if only queue totals were counted, not each lane. */
+    public boolean isTotals() { return totals; }
+
+    public int getMinuteOfDay(int row) { return minuteOfDay[row]; }
+
+    /** Ticket queue per counter (one total if {@link #isTotals()}); NaN = not counted. */
+    public double[] getTicket(int row) { return Arrays.copyOf(ticket[row], ticket[row].length); }
+
+    /** Checkpoint queue per lane (one total if {@link #isTotals()}); NaN = not counted. */
+    public double[] getCheckpoint(int row) { return Arrays.copyOf(checkpoint[row], checkpoint[row].length); }
+}
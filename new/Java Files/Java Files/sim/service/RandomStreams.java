@@ -0,0 +1,68 @@
+package sim.service;
+
+import org.apache.commons.math3.special.Erf;
+
+/**
+ * Uniform draws addressed by (kind, stream, minute) rather than taken in sequence.
+ *
+ * Each draw is a hash of the seed and its address, so a flight's or lane's draw for
+ * a minute is the same whatever else the run did: two scenarios given the same seed
+ * see the same arrivals and service luck (common random numbers), a re-run or a
+ * rewind reproduces itself exactly, and the antithetic twin of a seed gets 1 - u
+ * wherever the original got u.
+ */
+final class RandomStreams {
+    static final int ARRIVALS = 1;
+    static final int TICKET = 2;
+    static final int CHECKPOINT = 3;
+
+    private final long seed;
+    private final boolean antithetic;
+
+    RandomStreams(long seed, boolean antithetic) {
+        this.seed = seed;
+        this.antithetic = antithetic;
+    }
+
+    /** A draw in (0, 1). */
+    double uniform(int kind, int stream, int minute) {
+        long z = mix(seed + 0x9E3779B97F4A7C15L * kind);
+        z = mix(z + 0x9E3779B97F4A7C15L * stream);
+        z = mix(z + minute);
+        double u = ((z >>> 11) + 0.5) * 0x1.0p-53;
+        return antithetic ? 1 - u : u;
+    }
+
+    /** A seed for branch {@code b} of stage {@code a} of the run on {@code seed}. */
+    static long derive(long seed, int a, int b) {
+        return mix(mix(mix(seed) + a) + b);
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Poisson(mean) by inversion of one uniform, so antithetic draws stay negatively
+     * correlated; a normal approximation past where the pmf would underflow.
+     */
+    static int poisson(double mean, double u) {
+        if (mean <= 0) return 0;
+        if (mean > 500) {
+            double x = mean + Math.sqrt(2 * mean) * Erf.erfInv(2 * u - 1);
+            return (int) Math.max(0, Math.round(x));
+        }
+        double p = Math.exp(-mean);
+        double cdf = p;
+        int k = 0;
+        while (u > cdf && p > 0) {
+            k++;
+            p *= mean / k;
+            cdf += p;
+        }
+        return k;
+    }
+}
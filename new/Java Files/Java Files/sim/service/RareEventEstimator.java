@@ -0,0 +1,250 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the probability of a rare bad day: some flight leaving {@code threshold}
+ * or more passengers behind (not in the hold room when boarding closes), in a
+ * stochastic run of a scenario.
+ *
+ * Plain replication needs about 100/p runs to see such a day often enough; this uses
+ * fixed-effort multilevel splitting instead. A run's score is the largest number of
+ * a flight's passengers who look set to miss it: those queued so deep that, served
+ * at the lane's rate, they won't reach the hold room before boarding closes, and at
+ * the close itself the flight's actual missed count, so a bad day passes every
+ * level below the threshold on its way. Stage k runs a fixed number of
+ * trajectories from the states where stage k-1's trajectories first reached level
+ * k-1, each until it reaches level k or the day ends. The states that made it are
+ * forked ({@link SimulationEngine#fork}) and resimulated on fresh random streams in
+ * the next stage, so the effort goes to the runs already heading for trouble. The
+ * estimate is the product of the stages' success fractions.
+ *
+ * Trajectories of a stage run on a pool; each has its own seed, derived from the
+ * seed, stage and trajectory number, so the estimate doesn't depend on thread
+ * timing.
+ */
+public final class RareEventEstimator {
+    /** What the splitting found. */
+    public static final class Result {
+        private final double probability;
+        private final double relativeError;
+        private final int[] levels;
+        private final double[] stageProbabilities;
+        private final int runs;
+
+        Result(double probability, double relativeError, int[] levels, double[] stageProbabilities, int runs) {
+            this.probability = probability;
+            this.relativeError = relativeError;
+            this.levels = levels;
+            this.stageProbabilities = stageProbabilities;
+            this.runs = runs;
+        }
+
+        /** Estimated probability that some flight misses at least the threshold. */
+        public double getProbability() { return probability; }
+
+        /** Estimated standard error over the probability (treating stages as independent). */
+        public double getRelativeError() { return relativeError; }
+
+        /** Score levels of the stages; the last is the threshold. */
+        public int[] getLevels() { return Arrays.copyOf(levels, levels.length); }
+
+        /** Fraction of stage k's trajectories that reached level k. */
+        public double getStageProbability(int k) { return stageProbabilities[k]; }
+
+        /** Trajectories simulated, all stages together. */
+        public int getRuns() { return runs; }
+
+        /**
+         * Full-length runs plain replication would need for the same relative error.
+         */
+        public double getPlainRuns() {
+            if (!(probability > 0) || !(relativeError > 0)) return Double.POSITIVE_INFINITY;
+            return (1 - probability) / (probability * relativeError * relativeError);
+        }
+    }
+
+    private final ReplicationManager.Scenario scenario;
+    private final int threshold;
+    private final Map<Flight, Integer> flightIndex = new IdentityHashMap<>();
+    private int[] levels;
+    private int trajectories = 200;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** @param threshold missed passengers on one flight that make a bad day */
+    public RareEventEstimator(ReplicationManager.Scenario scenario, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("Threshold must be at least 1");
+        this.scenario = scenario;
+        this.threshold = threshold;
+        List<Flight> flights = scenario.getFlights();
+        for (int i = 0; i < flights.size(); i++) flightIndex.put(flights.get(i), i);
+    }
+
+    /**
+     * Intermediate score levels, ascending and below the threshold. Default: every
+     * eighth of the threshold from three eighths up; a run's score passes the first
+     * few almost surely, so splitting starts there.
+     */
+    public void setLevels(int... levels) {
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] < 1 || levels[i] >= threshold || (i > 0 && levels[i] <= levels[i - 1])) {
+                throw new IllegalArgumentException("Levels must ascend from 1 to below the threshold");
+            }
+        }
+        this.levels = Arrays.copyOf(levels, levels.length);
+    }
+
+    /** Trajectories per stage. Default 200. */
+    public void setTrajectories(int n) { trajectories = Math.max(1, n); }
+
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    // ============================
+    // Splitting
+    // ============================
+
+    /** Run the stages; blocks until done. */
+    public Result estimate() {
+        int[] stageLevels = stageLevels();
+        double[] stageP = new double[stageLevels.length];
+        double probability = 1;
+        double relVariance = 0;
+        int runs = 0;
+
+        List<SimulationEngine> starts = new ArrayList<>();
+        starts.add(scenario.start(seed, false));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "rare-event-splitting");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int k = 0; k < stageLevels.length; k++) {
+                List<Future<SimulationEngine>> futures = new ArrayList<>(trajectories);
+                for (int j = 0; j < trajectories; j++) {
+                    SimulationEngine from = starts.get(j % starts.size());
+                    long s = RandomStreams.derive(seed, k, j);
+                    int level = stageLevels[k];
+                    boolean last = k == stageLevels.length - 1;
+                    futures.add(pool.submit(() -> advance(from, s, level, last)));
+                }
+                List<SimulationEngine> reached = new ArrayList<>();
+                for (Future<SimulationEngine> f : futures) {
+                    SimulationEngine t = f.get();
+                    if (t != null) reached.add(t);
+                }
+                runs += trajectories;
+                stageP[k] = (double) reached.size() / trajectories;
+                probability *= stageP[k];
+                if (reached.isEmpty()) {
+                    return new Result(0, Double.POSITIVE_INFINITY, stageLevels, stageP, runs);
+                }
+                relVariance += (1 - stageP[k]) / (stageP[k] * trajectories);
+                starts = reached;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot finish splitting: interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot finish splitting: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(probability, Math.sqrt(relVariance), stageLevels, stageP, runs);
+    }
+
+    private int[] stageLevels() {
+        int[] mid = levels;
+        if (mid == null) {
+            mid = IntStream.rangeClosed(3, 7).map(e -> (int) Math.round(threshold * e / 8.0))
+                .filter(l -> l >= 1 && l < threshold).distinct().toArray();
+        }
+        int[] all = Arrays.copyOf(mid, mid.length + 1);
+        all[mid.length] = threshold;
+        return all;
+    }
+
+    /**
+     * Fork {@code from} onto {@code seed}'s streams and simulate until its score
+     * reaches {@code level} (for the last stage: until a flight closes that many
+     * short); the state there, or null if the day ended first.
+     */
+    private SimulationEngine advance(SimulationEngine from, long seed, int level, boolean last) {
+        SimulationEngine engine = from.fork(
+            new StochasticArrivals(scenario.getArrivalSpanMinutes(), seed, false),
+            new StochasticService(seed, false));
+        if (reached(engine, level, last)) return engine;
+        while (engine.getCurrentInterval() < engine.getTotalIntervals()) {
+            engine.computeNextInterval();
+            if (Thread.currentThread().isInterrupted()) return null;
+            if (reached(engine, level, last)) return engine;
+        }
+        return null;
+    }
+
+    /** Score at {@code level} or above; for the last stage, a flight closed that many short. */
+    private boolean reached(SimulationEngine engine, int level, boolean last) {
+        return score(engine) >= level && (!last || missedAtClose(engine) >= level);
+    }
+
+    /**
+     * Largest count over flights of passengers that won't make it at the lanes'
+     * rates; for a flight whose boarding just closed, its missed count.
+     */
+    private int score(SimulationEngine engine) {
+        int minute = engine.getCurrentInterval() - 1;   // the interval just simulated
+        int[] doomed = new int[flightIndex.size()];
+
+        // a queued passenger clears the lane after those ahead, then walks on
+        List<LinkedList<Passenger>> ticket = engine.getTicketLines();
+        for (int c = 0; c < ticket.size(); c++) {
+            double rate = engine.getCounterConfigs().get(c).getRate();
+            int walk = engine.getTransitDelayMinutes() + engine.getHoldDelayMinutes();
+            countDoomed(ticket.get(c), rate, minute + walk, engine, doomed);
+        }
+        for (LinkedList<Passenger> line : engine.getCheckpointLines()) {
+            countDoomed(line, engine.getCheckpointRate(), minute + engine.getHoldDelayMinutes(), engine, doomed);
+        }
+
+        int best = missedAtClose(engine);
+        for (int d : doomed) best = Math.max(best, d);
+        return best;
+    }
+
+    private void countDoomed(List<Passenger> line, double rate, int from, SimulationEngine engine, int[] doomed) {
+        int k = 0;
+        for (Passenger p : line) {
+            k++;
+            double reaches = rate > 0 ? from + k / rate : Double.POSITIVE_INFINITY;
+            if (reaches > engine.getBoardingCloseInterval(p.getFlight())) {
+                doomed[flightIndex.get(p.getFlight())]++;
+            }
+        }
+    }
+
+    /** Largest missed count among the flights whose boarding just closed. */
+    private int missedAtClose(SimulationEngine engine) {
+        int worst = 0;
+        for (Flight f : engine.getFlightsJustClosed()) {
+            worst = (int) Math.max(worst, engine.getPassengerStats().getMissed(flightIndex.get(f)));
+        }
+        return worst;
+    }
+}
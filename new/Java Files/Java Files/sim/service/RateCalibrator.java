@@ -0,0 +1,391 @@
+package sim.service;
+
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.CMAESOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
+import org.apache.commons.math3.random.MersenneTwister;
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fits counter rates and the checkpoint rate to {@link QueueObservations}.
+ *
+ * The error of a set of rates is the root mean square difference between the
+ * observed queue lengths and a headless {@link SimulationEngine}'s queue counts at
+ * the same minutes (per lane, or as totals if only totals were counted). Counters
+ * get one rate each when lanes were counted separately, else one shared rate.
+ *
+ * The simulation's queues move in whole passengers, so the error is a step function
+ * of the rates and a single local search easily stalls on a plateau. The fit runs
+ * several commons-math3 searches (Nelder-Mead or CMA-ES) at once from spread-out
+ * starting points, one per thread, and keeps the best. The searches share one
+ * cache of errors keyed by the rates rounded to {@link #setResolution resolution},
+ * so a point any search has tried is never simulated again.
+ */
+public final class RateCalibrator {
+    public enum Method { NELDER_MEAD, CMA_ES }
+
+    /** Fitted rates and how well they match. */
+    public static final class Result {
+        private final double[] counterRates;
+        private final double checkpointRate;
+        private final double error;
+        private final int runs;
+        private final int cacheHits;
+
+        Result(double[] counterRates, double checkpointRate, double error, int runs, int cacheHits) {
+            this.counterRates = counterRates;
+            this.checkpointRate = checkpointRate;
+            this.error = error;
+            this.runs = runs;
+            this.cacheHits = cacheHits;
+        }
+
+        /** Fitted rate per counter, in counter order. */
+        public double[] getCounterRates() { return counterRates.clone(); }
+
+        public double getCheckpointRate() { return checkpointRate; }
+
+        /** RMS error in passengers per observed lane and minute. */
+        public double getError() { return error; }
+
+        /** Simulations actually run. */
+        public int getRuns() { return runs; }
+
+        /** Evaluations answered from the cache. */
+        public int getCacheHits() { return cacheHits; }
+    }
+
+    // base configuration
+    private final double percentInPerson;
+    private final List<TicketCounterConfig> counters;
+    private final int numCheckpoints;
+    private final double checkpointRate;
+    private final int arrivalSpanMinutes;
+    private final int intervalMinutes;
+    private final int transitDelayMinutes;
+    private final int holdDelayMinutes;
+    private final List<Flight> flights;
+
+    // observations by step: row index or -1
+    private final QueueObservations observed;
+    private final int[] rowAt;
+    private final boolean sharedCounterRate;
+
+    // search settings
+    private Method method = Method.NELDER_MEAD;
+    private double minRate = 0.05;
+    private double maxRate = 20;
+    private double resolution = 0.005;
+    private int maxRuns = 400;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+
+    // per fit() call
+    private final Map<Key, CompletableFuture<Double>> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+
+    /**
+     * The run to calibrate, as it would be passed to {@link SimulationEngine}; the
+     * given rates are the first starting point.
+     *
+     * @throws IllegalArgumentException if no observation falls inside the run
+     */
+    public RateCalibrator(double percentInPerson,
+                          List<TicketCounterConfig> counters,
+                          int numCheckpoints,
+                          double checkpointRate,
+                          int arrivalSpanMinutes,
+                          int intervalMinutes,
+                          int transitDelayMinutes,
+                          int holdDelayMinutes,
+                          List<Flight> flights,
+                          QueueObservations observed) {
+        if (counters.isEmpty()) throw new IllegalArgumentException("At least one counter is needed");
+        this.percentInPerson = percentInPerson;
+        this.counters = new ArrayList<>(counters);
+        this.numCheckpoints = numCheckpoints;
+        this.checkpointRate = checkpointRate;
+        this.arrivalSpanMinutes = arrivalSpanMinutes;
+        this.intervalMinutes = intervalMinutes;
+        this.transitDelayMinutes = transitDelayMinutes;
+        this.holdDelayMinutes = holdDelayMinutes;
+        this.flights = new ArrayList<>(flights);
+        this.observed = observed;
+        this.sharedCounterRate = observed.isTotals() || counters.size() == 1;
+
+        // observed minute of day -> step of the run (the first day, if it spans several)
+        SimulationEngine probe = engine(counters, checkpointRate);
+        int start = Math.floorMod(probe.getStartMinute(), 1440);
+        int[] at = new int[Math.min(probe.getTotalIntervals(), 1440)];
+        Arrays.fill(at, -1);
+        int used = 0;
+        for (int row = 0; row < observed.size(); row++) {
+            int step = Math.floorMod(observed.getMinuteOfDay(row) - start, 1440);
+            if (step < at.length) {
+                at[step] = row;
+                used++;
+            }
+        }
+        if (used == 0) throw new IllegalArgumentException("No observation falls within the simulated hours");
+        int last = at.length - 1;
+        while (at[last] < 0) last--;
+        this.rowAt = Arrays.copyOf(at, last + 1);
+    }
+
+    public void setMethod(Method method) { this.method = method; }
+
+    /** Bounds on every fitted rate, passengers per minute. Default 0.05 to 20. */
+    public void setRateBounds(double min, double max) {
+        if (!(min > 0 && max > min)) throw new IllegalArgumentException("Need 0 < min < max");
+        minRate = min;
+        maxRate = max;
+    }
+
+    /** Rates closer than this count as the same point. Default 0.005. */
+    public void setResolution(double r) { resolution = Math.max(1e-6, r); }
+
+    /** Simulation budget over all searches. Default 400. */
+    public void setMaxRuns(int n) { maxRuns = Math.max(1, n); }
+
+    /** Concurrent searches. Default one per processor. */
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    /** Seed for the spread of starting points and CMA-ES sampling. */
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /** The number of fitted rates: counters (or one shared), then the checkpoint rate. */
+    public int dimension() {
+        return (sharedCounterRate ? 1 : counters.size()) + 1;
+    }
+
+    // ============================
+    // Fitting
+    // ============================
+
+    /** Run the searches; blocks until done. */
+    public Result fit() {
+        cache.clear();
+        runs.set(0);
+        cacheHits.set(0);
+
+        double[] first = new double[dimension()];
+        if (sharedCounterRate) {
+            first[0] = counters.stream().mapToDouble(TicketCounterConfig::getRate).average().orElse(1);
+        } else {
+            for (int i = 0; i < counters.size(); i++) first[i] = counters.get(i).getRate();
+        }
+        first[first.length - 1] = checkpointRate;
+        for (int i = 0; i < first.length; i++) first[i] = clamp(first[i]);
+
+        Random spread = new Random(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "rate-calibrator");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> searches = new ArrayList<>(threads);
+            for (int s = 0; s < threads; s++) {
+                double[] x0 = first.clone();
+                if (s > 0) {
+                    // log-uniform between a third and three times the configured rates
+                    for (int i = 0; i < x0.length; i++) {
+                        x0[i] = clamp(x0[i] * Math.exp((spread.nextDouble() * 2 - 1) * Math.log(3)));
+                    }
+                }
+                long searchSeed = seed + s;
+                searches.add(pool.submit(() -> search(x0, searchSeed)));
+            }
+            for (Future<?> f : searches) f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot calibrate: interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot calibrate: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // best point any search reached
+        Key best = null;
+        double bestError = Double.MAX_VALUE;
+        for (Map.Entry<Key, CompletableFuture<Double>> e : cache.entrySet()) {
+            double v = e.getValue().getNow(Double.MAX_VALUE);
+            if (v < bestError) {
+                bestError = v;
+                best = e.getKey();
+            }
+        }
+        double[] x = best.rates(resolution);
+        double[] counterRates = new double[counters.size()];
+        for (int i = 0; i < counterRates.length; i++) counterRates[i] = x[sharedCounterRate ? 0 : i];
+        return new Result(counterRates, x[x.length - 1], bestError, runs.get(), cacheHits.get());
+    }
+
+    private void search(double[] x0, long searchSeed) {
+        ObjectiveFunction f = new ObjectiveFunction(this::error);
+        int budget = Math.max(2 * x0.length + 2, maxRuns / threads);
+        try {
+            if (method == Method.CMA_ES) {
+                double[] lo = new double[x0.length];
+                double[] hi = new double[x0.length];
+                double[] sigma = new double[x0.length];
+                Arrays.fill(lo, minRate);
+                Arrays.fill(hi, maxRate);
+                for (int i = 0; i < x0.length; i++) sigma[i] = Math.max(resolution, x0[i] / 3);
+                new CMAESOptimizer(budget, 0, true, 0, 0, new MersenneTwister(searchSeed), false,
+                    new SimpleValueChecker(1e-6, resolution))
+                    .optimize(new MaxEval(budget), new MaxIter(budget), f, GoalType.MINIMIZE,
+                        new InitialGuess(x0), new SimpleBounds(lo, hi),
+                        new CMAESOptimizer.Sigma(sigma),
+                        new CMAESOptimizer.PopulationSize(4 + (int) (3 * Math.log(x0.length))));
+            } else {
+                double[] step = new double[x0.length];
+                for (int i = 0; i < x0.length; i++) step[i] = Math.max(4 * resolution, x0[i] / 4);
+                new SimplexOptimizer(1e-6, resolution)
+                    .optimize(new MaxEval(budget), f, GoalType.MINIMIZE,
+                        new InitialGuess(x0), new NelderMeadSimplex(step));
+            }
+        } catch (TooManyEvaluationsException ex) {
+            // budget spent: the cache holds the best point reached
+        }
+    }
+
+    /** Objective: cached, or simulated on the calling search's thread. */
+    private double error(double[] x) {
+        Key key = new Key(x, resolution, minRate, maxRate);
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> known = cache.putIfAbsent(key, mine);
+        if (known != null) {
+            cacheHits.incrementAndGet();
+            return known.join();
+        }
+        try {
+            mine.complete(simulate(key.rates(resolution)));
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+        return mine.join();
+    }
+
+    private double simulate(double[] x) {
+        runs.incrementAndGet();
+        List<TicketCounterConfig> cs = new ArrayList<>(counters.size());
+        for (int i = 0; i < counters.size(); i++) {
+            TicketCounterConfig t = counters.get(i);
+            cs.add(new TicketCounterConfig(t.getId(), x[sharedCounterRate ? 0 : i], t.getAllowedFlights()));
+        }
+        SimulationEngine engine = engine(cs, x[x.length - 1]);
+
+        LaneCounts ticketQueues = engine.getTicketQueueCounts();
+        LaneCounts checkpointQueues = engine.getCheckpointQueueCounts();
+        double sum = 0;
+        int n = 0;
+        // nothing after the last observation matters
+        while (engine.getCurrentInterval() < Math.min(rowAt.length, engine.getTotalIntervals())) {
+            engine.computeNextInterval();
+            int step = engine.getCurrentInterval() - 1;
+            int row = rowAt[step];
+            if (row < 0) continue;
+            double[] t = observed.getTicket(row);
+            double[] c = observed.getCheckpoint(row);
+            if (observed.isTotals()) {
+                sum += squared(t[0], total(ticketQueues, step));
+                sum += squared(c[0], total(checkpointQueues, step));
+                n += (Double.isNaN(t[0]) ? 0 : 1) + (Double.isNaN(c[0]) ? 0 : 1);
+            } else {
+                for (int lane = 0; lane < t.length; lane++) {
+                    sum += squared(t[lane], ticketQueues.get(step, lane));
+                    if (!Double.isNaN(t[lane])) n++;
+                }
+                for (int lane = 0; lane < c.length; lane++) {
+                    sum += squared(c[lane], checkpointQueues.get(step, lane));
+                    if (!Double.isNaN(c[lane])) n++;
+                }
+            }
+        }
+        return n == 0 ? 0 : Math.sqrt(sum / n);
+    }
+
+    private SimulationEngine engine(List<TicketCounterConfig> cs, double cpRate) {
+        return SimulationEngine.headless(
+            percentInPerson,
+            cs,
+            numCheckpoints,
+            cpRate,
+            arrivalSpanMinutes,
+            intervalMinutes,
+            transitDelayMinutes,
+            holdDelayMinutes,
+            flights
+        );
+    }
+
+    private static double squared(double observed, int simulated) {
+        if (Double.isNaN(observed)) return 0;
+        double d = observed - simulated;
+        return d * d;
+    }
+
+    private static int total(LaneCounts counts, int step) {
+        int sum = 0;
+        for (int lane = 0; lane < counts.lanes(); lane++) sum += counts.get(step, lane);
+        return sum;
+    }
+
+    private double clamp(double rate) {
+        return Math.max(minRate, Math.min(maxRate, rate));
+    }
+
+    /** Rates clamped to bounds and rounded to the resolution grid. */
+    private static final class Key {
+        private final long[] grid;
+
+        Key(double[] x, double resolution, double min, double max) {
+            grid = new long[x.length];
+            for (int i = 0; i < x.length; i++) {
+                grid[i] = Math.max(1, Math.round(Math.max(min, Math.min(max, x[i])) / resolution));
+            }
+        }
+
+        double[] rates(double resolution) {
+            double[] x = new double[grid.length];
+            for (int i = 0; i < x.length; i++) x[i] = Math.round(grid[i] * resolution * 1e6) / 1e6;
+            return x;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(grid, ((Key) o).grid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(grid);
+        }
+    }
+}
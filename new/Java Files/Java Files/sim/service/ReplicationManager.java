@@ -0,0 +1,244 @@
+package sim.service;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compares two plans by replicated stochastic runs.
+ *
+ * Replication r runs both plans with {@link StochasticArrivals} and
+ * {@link StochasticService} on seed r. Draws are addressed per flight and lane and
+ * minute (see {@link RandomStreams}), so both plans meet the same arrivals and the
+ * same service luck lane by lane (common random numbers) and the noise largely
+ * cancels in their difference. With antithetics on, each replication also runs the
+ * mirror image of seed r and uses the average of the two.
+ *
+ * The result is a t confidence interval on the paired difference, plus how many runs
+ * independent sampling would have needed for the same precision.
+ */
+public final class ReplicationManager {
+    /** Passengers that didn't reach their hold room before boarding closed. */
+    public static final ToDoubleFunction<SimulationEngine> MISSED_PASSENGERS = ReplicationManager::missedPassengers;
+
+    /** One plan: what would be passed to {@link SimulationEngine}. */
+    public static final class Scenario {
+        private final double percentInPerson;
+        private final List<TicketCounterConfig> counters;
+        private final int numCheckpoints;
+        private final double checkpointRate;
+        private final int arrivalSpanMinutes;
+        private final int intervalMinutes;
+        private final int transitDelayMinutes;
+        private final int holdDelayMinutes;
+        private final List<Flight> flights;
+
+        public Scenario(double percentInPerson,
+                        List<TicketCounterConfig> counters,
+                        int numCheckpoints,
+                        double checkpointRate,
+                        int arrivalSpanMinutes,
+                        int intervalMinutes,
+                        int transitDelayMinutes,
+                        int holdDelayMinutes,
+                        List<Flight> flights) {
+            this.percentInPerson = percentInPerson;
+            this.counters = new ArrayList<>(counters);
+            this.numCheckpoints = numCheckpoints;
+            this.checkpointRate = checkpointRate;
+            this.arrivalSpanMinutes = arrivalSpanMinutes;
+            this.intervalMinutes = intervalMinutes;
+            this.transitDelayMinutes = transitDelayMinutes;
+            this.holdDelayMinutes = holdDelayMinutes;
+            this.flights = new ArrayList<>(flights);
+        }
+
+        List<Flight> getFlights() { return flights; }
+
+        int getArrivalSpanMinutes() { return arrivalSpanMinutes; }
+
+        /** One stochastic run on {@code seed}, simulated to the end. */
+        SimulationEngine run(long seed, boolean antithetic) {
+            SimulationEngine engine = start(seed, antithetic);
+            while (engine.getCurrentInterval() < engine.getTotalIntervals()) {
+                engine.computeNextInterval();
+            }
+            return engine;
+        }
+
+        /** The same run, set up but not yet simulated. */
+        SimulationEngine start(long seed, boolean antithetic) {
+            SimulationEngine engine = SimulationEngine.headless(
+                percentInPerson,
+                counters,
+                numCheckpoints,
+                checkpointRate,
+                arrivalSpanMinutes,
+                intervalMinutes,
+                transitDelayMinutes,
+                holdDelayMinutes,
+                flights
+            );
+            engine.setArrivalSource(new StochasticArrivals(arrivalSpanMinutes, seed, antithetic));
+            engine.setServiceSource(new StochasticService(seed, antithetic));
+            return engine;
+        }
+    }
+
+    /** The paired comparison: B minus A. */
+    public static final class Result {
+        private final double meanA, meanB;
+        private final double difference, low, high;
+        private final int replications;
+        private final int runs;
+        private final double independentRuns;
+
+        Result(double meanA, double meanB, double difference, double low, double high,
+               int replications, int runs, double independentRuns) {
+            this.meanA = meanA;
+            this.meanB = meanB;
+            this.difference = difference;
+            this.low = low;
+            this.high = high;
+            this.replications = replications;
+            this.runs = runs;
+            this.independentRuns = independentRuns;
+        }
+
+        public double getMeanA() { return meanA; }
+        public double getMeanB() { return meanB; }
+
+        /** Mean of B - A. */
+        public double getDifference() { return difference; }
+
+        /** Confidence bounds on B - A. */
+        public double getLow() { return low; }
+        public double getHigh() { return high; }
+
+        public double getHalfWidth() { return (high - low) / 2; }
+
+        /** Paired observations (a replication and its antithetic twin count once). */
+        public int getReplications() { return replications; }
+
+        /** Simulations run, both plans together. */
+        public int getRuns() { return runs; }
+
+        /**
+         * Runs (both plans together) that independent, unpaired single runs would need
+         * for the same half-width; compare with {@link #getRuns()}.
+         */
+        public double getIndependentRuns() { return independentRuns; }
+    }
+
+    private final Scenario a;
+    private final Scenario b;
+    private ToDoubleFunction<SimulationEngine> metric = MISSED_PASSENGERS;
+    private int replications = 30;
+    private boolean antithetic;
+    private double confidence = 0.95;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public ReplicationManager(Scenario a, Scenario b) {
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * What to compare, read from each finished engine. The engines are
+     * {@link SimulationEngine#headless}: stats, lane counts and the final state only.
+     * Default missed passengers.
+     */
+    public void setMetric(ToDoubleFunction<SimulationEngine> metric) { this.metric = metric; }
+
+    /** Paired replications. Default 30. */
+    public void setReplications(int n) { replications = Math.max(2, n); }
+
+    /** Also run each seed's mirror image and average the pair. Default off. */
+    public void setAntithetic(boolean on) { antithetic = on; }
+
+    public void setConfidence(double c) { confidence = c; }
+
+    /** Seed of the first replication; replication r uses seed + r. */
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    // ============================
+    // Replications
+    // ============================
+
+    /** Run the replications; blocks until done. */
+    public Result compare() {
+        int perRep = antithetic ? 2 : 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "replications");
+            t.setDaemon(true);
+            return t;
+        });
+        // by replication, then plan A before B, then original before mirror
+        List<Future<Double>> futures = new ArrayList<>(replications * 2 * perRep);
+        try {
+            for (int r = 0; r < replications; r++) {
+                long s = seed + r;
+                for (Scenario plan : new Scenario[] { a, b }) {
+                    for (int k = 0; k < perRep; k++) {
+                        boolean mirror = k == 1;
+                        futures.add(pool.submit(() -> metric.applyAsDouble(plan.run(s, mirror))));
+                    }
+                }
+            }
+
+            RunningMoments singleA = new RunningMoments(), singleB = new RunningMoments();
+            RunningMoments pairA = new RunningMoments(), pairB = new RunningMoments();
+            RunningMoments diff = new RunningMoments();
+            int i = 0;
+            for (int r = 0; r < replications; r++) {
+                double ya = 0, yb = 0;
+                for (int k = 0; k < perRep; k++) {
+                    double v = futures.get(i++).get();
+                    singleA.add(v);
+                    ya += v / perRep;
+                }
+                for (int k = 0; k < perRep; k++) {
+                    double v = futures.get(i++).get();
+                    singleB.add(v);
+                    yb += v / perRep;
+                }
+                pairA.add(ya);
+                pairB.add(yb);
+                diff.add(yb - ya);
+            }
+
+            int n = replications;
+            double t = new TDistribution(n - 1).inverseCumulativeProbability(1 - (1 - confidence) / 2);
+            double half = t * Math.sqrt(diff.variance() / n);
+            // unpaired single runs: Var(mean B - mean A) = (varA + varB) / m with m per plan
+            double independent = diff.variance() > 0
+                ? 2 * n * (singleA.variance() + singleB.variance()) / diff.variance()
+                : Double.POSITIVE_INFINITY;
+            return new Result(pairA.mean(), pairB.mean(), diff.mean(),
+                diff.mean() - half, diff.mean() + half, n, futures.size(), independent);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot finish replications: interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot finish replications: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Passengers of a finished run that never entered their hold room. */
+    public static int missedPassengers(SimulationEngine engine) {
+        return (int) engine.getPassengerStats().getTotalMissed();
+    }
+}
@@ -0,0 +1,49 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recorded results of a run, as read by the tables, summaries and exports.
+ *
+ * A live {@link SimulationEngine} is one (read it on the thread that drives it, or
+ * under its lock); a {@link RunFile} reopened from disk is the other.
+ */
+public interface RunData {
+    List<Flight> getFlights();
+    List<TicketCounterConfig> getCounterConfigs();
+    LocalTime getGlobalStart();
+
+    /**
+     * Interval 0 on the schedule's clock: minutes from midnight of its first day,
+     * negative when the run starts the evening before.
+     */
+    int getStartMinute();
+
+    int getArrivalSpan();
+    int getInterval();
+    int getTotalIntervals();
+
+    /** Arrivals per minute of each flight's arrival window. */
+    Map<Flight, int[]> getMinuteArrivalsMap();
+
+    LaneCounts getTicketQueueCounts();
+    LaneCounts getTicketServedCounts();
+    LaneCounts getCheckpointQueueCounts();
+    LaneCounts getCheckpointServedCounts();
+
+    /** Hold-room occupancy per flight (one lane per flight, in flight order). */
+    LaneCounts getHoldRoomCounts();
+
+    /** Held-up passengers per interval, x = interval. */
+    SeriesBuffer getHeldUpsSeries();
+
+    /** Interval at which {@code f}'s boarding closes (20 minutes before departure). */
+    default int getBoardingCloseInterval(Flight f) {
+        return f.getDepartureMinute() - 20 - getStartMinute();
+    }
+}
@@ -0,0 +1,598 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+import sim.ui.TicketCounterConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary, column-oriented archive of a finished run, read through memory mappings.
+ *
+ * Layout (little-endian, every section 8-byte aligned):
+ * <pre>
+ *   int magic "ASRF", int version
+ *   int sectionCount, then per section: int id, long offset, long length
+ *   CONFIG      engine settings, flights, ticket counters, then int n and each
+ *               flight's departure day (absent in files written before multi-day runs)
+ *   LANES       5 matrices (ticket queue/served, checkpoint queue/served, hold rooms):
+ *               int lanes, int steps, then steps * lanes ints, step-major
+ *   ARRIVALS    per flight: int minutes, then the per-minute arrival counts
+ *   HELD_UPS    int n, n interval numbers, n counts
+ *   PASSENGERS  int n, then one n-int column each for flight index, arrival,
+ *               ticket done, checkpoint entry, checkpoint done, hold-room entry and
+ *               hold-room sequence minutes, then n flag bytes (1 = in person, 2 = missed)
+ *   HISTORY     (sessions only) per-step passengers of the five lane kinds
+ *   SNAPSHOTS   (sessions only) every rewind snapshot
+ * </pre>
+ * The last two are laid out by {@link SessionFile}; a plain run file stops after
+ * PASSENGERS.
+ *
+ * Opening a file reads only the small CONFIG section; every other column is its
+ * own read-only mapping, created the first time it is asked for, so the OS pages
+ * in just what a window actually shows. A RunFile is a {@link RunData}, so the data
+ * tables, flight summary and review timeline open it exactly like a live engine.
+ */
+public final class RunFile implements RunData, Closeable {
+    /** Suggested file name extension. */
+    public static final String EXTENSION = ".simrun";
+
+    private static final int MAGIC = 0x41535246; // "ASRF"
+    private static final int VERSION = 1;
+
+    private static final int CONFIG = 1;
+    private static final int LANES = 2;
+    private static final int ARRIVALS = 3;
+    private static final int HELD_UPS = 4;
+    private static final int PASSENGERS = 5;
+    static final int HISTORY = 6;
+    static final int SNAPSHOTS = 7;
+    private static final int SECTIONS = 7;
+
+    /** Passenger columns, in file order. */
+    public enum Column {
+        FLIGHT, ARRIVAL, TICKET_DONE, CHECKPOINT_ENTRY, CHECKPOINT_DONE, HOLD_ENTRY, HOLD_SEQUENCE
+    }
+
+    public static final int FLAG_IN_PERSON = 1;
+    public static final int FLAG_MISSED = 2;
+
+    private final FileChannel channel;
+    private final long[] sectionOffset = new long[SECTIONS + 1];
+
+    // CONFIG, read eagerly
+    private final double percentInPerson;
+    private final int numCheckpoints;
+    private final double checkpointRate;
+    private final int arrivalSpan;
+    private final int interval;
+    private final int transitDelay;
+    private final int holdDelay;
+    private final int totalIntervals;
+    private final LocalTime globalStart;
+    private final int startMinute;
+    private final List<Flight> flights;
+    private final List<TicketCounterConfig> counters;
+
+    private final MappedLaneCounts[] lanes = new MappedLaneCounts[5];
+    private final int passengerCount;
+    private final long passengerColumns;
+
+    private Map<Flight, int[]> minuteArrivals;
+    private final IntBuffer[] columns = new IntBuffer[Column.values().length];
+    private ByteBuffer flags;
+
+    private RunFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer head = read(0, 12);
+        if (head.getInt() != MAGIC) throw new IOException("Not a run file");
+        int version = head.getInt();
+        if (version != VERSION) throw new IOException("Unsupported run file version " + version);
+        int count = head.getInt();
+        head = read(12, count * 20);
+        for (int i = 0; i < count; i++) {
+            int id = head.getInt();
+            long offset = head.getLong();
+            head.getLong(); // length
+            if (id >= 1 && id <= SECTIONS) sectionOffset[id] = offset;
+        }
+
+        ByteBuffer cfg = read(sectionOffset[CONFIG], (int) (sectionOffset[LANES] - sectionOffset[CONFIG]));
+        percentInPerson = cfg.getDouble();
+        numCheckpoints = cfg.getInt();
+        checkpointRate = cfg.getDouble();
+        arrivalSpan = cfg.getInt();
+        interval = cfg.getInt();
+        transitDelay = cfg.getInt();
+        holdDelay = cfg.getInt();
+        totalIntervals = cfg.getInt();
+        globalStart = LocalTime.ofSecondOfDay(cfg.getInt());
+
+        int nFlights = cfg.getInt();
+        List<Flight> fl = new ArrayList<>(nFlights);
+        for (int i = 0; i < nFlights; i++) {
+            String number = getString(cfg);
+            LocalTime dep = LocalTime.ofSecondOfDay(cfg.getInt());
+            int seats = cfg.getInt();
+            double fill = cfg.getDouble();
+            Flight.ShapeType shape = Flight.ShapeType.values()[cfg.getInt()];
+            fl.add(new Flight(number, dep, seats, fill, shape));
+        }
+        flights = Collections.unmodifiableList(fl);
+
+        int nCounters = cfg.getInt();
+        List<TicketCounterConfig> cc = new ArrayList<>(nCounters);
+        for (int i = 0; i < nCounters; i++) {
+            int id = cfg.getInt();
+            double rate = cfg.getDouble();
+            int nAllowed = cfg.getInt();
+            Set<Flight> allowed = new HashSet<>();
+            for (int k = 0; k < nAllowed; k++) {
+                allowed.add(fl.get(cfg.getInt()));
+            }
+            cc.add(new TicketCounterConfig(id, rate, allowed));
+        }
+        counters = Collections.unmodifiableList(cc);
+
+        if (cfg.remaining() >= 4) {
+            int nDays = cfg.getInt();
+            if (nDays == nFlights && cfg.remaining() >= 4 * nDays) {
+                for (Flight f : fl) f.setDepartureDay(cfg.getInt());
+            }
+        }
+        startMinute = SimulationEngine.startMinute(flights, arrivalSpan);
+
+        // lane matrix headers: 8 bytes each, data follows
+        long pos = sectionOffset[LANES];
+        for (int m = 0; m < lanes.length; m++) {
+            ByteBuffer h = read(pos, 8);
+            int l = h.getInt(), s = h.getInt();
+            lanes[m] = new MappedLaneCounts(pos + 8, l, s);
+            pos = align(pos + 8 + 4L * l * s);
+        }
+
+        passengerCount = read(sectionOffset[PASSENGERS], 4).getInt();
+        passengerColumns = sectionOffset[PASSENGERS] + 8;
+    }
+
+    /** Open a run file; only the header and configuration are read now. */
+    public static RunFile open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new RunFile(ch);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** True if this file was saved as a session and can be resumed, not just reviewed. */
+    public boolean hasSession() {
+        return sectionOffset[HISTORY] != 0 && sectionOffset[SNAPSHOTS] != 0;
+    }
+
+    long sectionOffset(int section) {
+        return sectionOffset[section];
+    }
+
+    // ---- RunData ----
+
+    @Override public List<Flight> getFlights() { return flights; }
+    @Override public List<TicketCounterConfig> getCounterConfigs() { return counters; }
+    @Override public LocalTime getGlobalStart() { return globalStart; }
+    @Override public int getStartMinute() { return startMinute; }
+    @Override public int getArrivalSpan() { return arrivalSpan; }
+    @Override public int getInterval() { return interval; }
+    @Override public int getTotalIntervals() { return totalIntervals; }
+
+    public double getPercentInPerson() { return percentInPerson; }
+    public int getNumCheckpoints() { return numCheckpoints; }
+    public double getCheckpointRate() { return checkpointRate; }
+    public int getTransitDelayMinutes() { return transitDelay; }
+    public int getHoldDelayMinutes() { return holdDelay; }
+
+    @Override public LaneCounts getTicketQueueCounts() { return lanes[0]; }
+    @Override public LaneCounts getTicketServedCounts() { return lanes[1]; }
+    @Override public LaneCounts getCheckpointQueueCounts() { return lanes[2]; }
+    @Override public LaneCounts getCheckpointServedCounts() { return lanes[3]; }
+    @Override public LaneCounts getHoldRoomCounts() { return lanes[4]; }
+
+    @Override
+    public synchronized Map<Flight, int[]> getMinuteArrivalsMap() {
+        if (minuteArrivals == null) {
+            Map<Flight, int[]> m = new LinkedHashMap<>();
+            try {
+                long pos = sectionOffset[ARRIVALS];
+                for (Flight f : flights) {
+                    int n = read(pos, 4).getInt();
+                    int[] a = new int[n];
+                    read(pos + 4, 4 * n).asIntBuffer().get(a);
+                    m.put(f, a);
+                    pos += 4 + 4L * n;
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot read arrivals: " + ex.getMessage(), ex);
+            }
+            minuteArrivals = Collections.unmodifiableMap(m);
+        }
+        return minuteArrivals;
+    }
+
+    @Override
+    public SeriesBuffer getHeldUpsSeries() {
+        try {
+            long pos = sectionOffset[HELD_UPS];
+            int n = read(pos, 4).getInt();
+            IntBuffer xs = map(pos + 4, 4L * n);
+            IntBuffer ys = map(pos + 4 + 4L * n, 4L * n);
+            SeriesBuffer out = new SeriesBuffer(n);
+            for (int i = 0; i < n; i++) {
+                out.add(xs.get(i), ys.get(i));
+            }
+            return out;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read held-ups: " + ex.getMessage(), ex);
+        }
+    }
+
+    // ---- passengers ----
+
+    public int getPassengerCount() { return passengerCount; }
+
+    /** One passenger's value from a column (flight index, or a minute). */
+    public int getPassenger(Column column, int passenger) {
+        return column(column).get(passenger);
+    }
+
+    public boolean isInPerson(int passenger) {
+        return (flags().get(passenger) & FLAG_IN_PERSON) != 0;
+    }
+
+    public boolean isMissed(int passenger) {
+        return (flags().get(passenger) & FLAG_MISSED) != 0;
+    }
+
+    /** The whole column as a read-only mapped buffer (no copy). */
+    public synchronized IntBuffer column(Column column) {
+        IntBuffer b = columns[column.ordinal()];
+        if (b == null) {
+            try {
+                b = map(passengerColumns + 4L * passengerCount * column.ordinal(), 4L * passengerCount);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot map " + column + ": " + ex.getMessage(), ex);
+            }
+            columns[column.ordinal()] = b;
+        }
+        return b.duplicate();
+    }
+
+    private synchronized ByteBuffer flags() {
+        if (flags == null) {
+            try {
+                long at = passengerColumns + 4L * passengerCount * Column.values().length;
+                flags = channel.map(FileChannel.MapMode.READ_ONLY, at, passengerCount);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot map passenger flags: " + ex.getMessage(), ex);
+            }
+        }
+        return flags;
+    }
+
+    // ---- reading helpers ----
+
+    ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (channel.read(b, pos + b.position()) < 0) throw new IOException("Truncated run file");
+        }
+        b.flip();
+        return b;
+    }
+
+    private IntBuffer map(long pos, long len) throws IOException {
+        return mapBytes(pos, len).asIntBuffer();
+    }
+
+    ByteBuffer mapBytes(long pos, long len) throws IOException {
+        if (len > Integer.MAX_VALUE) throw new IOException("Column too large to map: " + len + " bytes");
+        MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        return m.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    /** One lane matrix, mapped on first access. */
+    private final class MappedLaneCounts implements LaneCounts {
+        private final long offset;
+        private final int lanes;
+        private final int steps;
+        private IntBuffer data;
+
+        MappedLaneCounts(long offset, int lanes, int steps) {
+            this.offset = offset;
+            this.lanes = lanes;
+            this.steps = steps;
+        }
+
+        private synchronized IntBuffer data() {
+            if (data == null) {
+                try {
+                    data = map(offset, 4L * lanes * steps);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Cannot map lane counts: " + ex.getMessage(), ex);
+                }
+            }
+            return data;
+        }
+
+        @Override public int lanes() { return lanes; }
+        @Override public int steps() { return steps; }
+        @Override public int generation() { return 0; }
+
+        @Override public int get(int step, int lane) {
+            if (step < 0 || step >= steps) throw new IndexOutOfBoundsException("step " + step);
+            return data().get(step * lanes + lane);
+        }
+
+        @Override public void copyRows(int fromStep, int toStep, int[] dst) {
+            IntBuffer d = data().duplicate();
+            d.position(fromStep * lanes);
+            d.get(dst, fromStep * lanes, (toStep - fromStep) * lanes);
+        }
+    }
+
+    // ============================
+    // Writing
+    // ============================
+
+    /**
+     * Write a finished (or partly run) engine to {@code file}. Read the engine on the
+     * thread that drives it, or hold its lock while this runs.
+     */
+    public static void write(SimulationEngine engine, Path file) throws IOException {
+        write(engine, file, false);
+    }
+
+    /** As {@link #write(SimulationEngine, Path)}, adding the session sections if asked. */
+    static void write(SimulationEngine engine, Path file, boolean session) throws IOException {
+        int sections = session ? SECTIONS : PASSENGERS;
+        int headerBytes = 12 + sections * 20;
+        try (FileChannel ch = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch, headerBytes);
+            long[] offsets = new long[SECTIONS + 1];
+            long[] lengths = new long[SECTIONS + 1];
+            List<Flight> flights = engine.getFlights();
+
+            // CONFIG
+            offsets[CONFIG] = out.position();
+            out.putDouble(engine.getPercentInPerson());
+            out.putInt(engine.getNumCheckpoints());
+            out.putDouble(engine.getCheckpointRate());
+            out.putInt(engine.getArrivalSpan());
+            out.putInt(engine.getInterval());
+            out.putInt(engine.getTransitDelayMinutes());
+            out.putInt(engine.getHoldDelayMinutes());
+            out.putInt(engine.getTotalIntervals());
+            out.putInt(engine.getGlobalStart().toSecondOfDay());
+            out.putInt(flights.size());
+            for (Flight f : flights) {
+                out.putString(f.getFlightNumber());
+                out.putInt(f.getDepartureTime().toSecondOfDay());
+                out.putInt(f.getSeats());
+                out.putDouble(f.getFillPercent());
+                out.putInt(f.getShape().ordinal());
+            }
+            List<TicketCounterConfig> counters = engine.getCounterConfigs();
+            out.putInt(counters.size());
+            for (TicketCounterConfig c : counters) {
+                out.putInt(c.getId());
+                out.putDouble(c.getRate());
+                List<Integer> allowed = new ArrayList<>();
+                for (int i = 0; i < flights.size(); i++) {
+                    if (c.getAllowedFlights().contains(flights.get(i))) allowed.add(i);
+                }
+                out.putInt(allowed.size());
+                for (int i : allowed) out.putInt(i);
+            }
+            out.putInt(flights.size());
+            for (Flight f : flights) out.putInt(f.getDepartureDay());
+            lengths[CONFIG] = out.align() - offsets[CONFIG];
+
+            // LANES
+            offsets[LANES] = out.position();
+            LaneCounts[] matrices = {
+                engine.getTicketQueueCounts(), engine.getTicketServedCounts(),
+                engine.getCheckpointQueueCounts(), engine.getCheckpointServedCounts(),
+                engine.getHoldRoomCounts()
+            };
+            for (LaneCounts m : matrices) {
+                int steps = m.steps();
+                out.putInt(m.lanes());
+                out.putInt(steps);
+                int[] rows = new int[steps * m.lanes()];
+                m.copyRows(0, steps, rows);
+                out.putInts(rows, rows.length);
+                out.align();
+            }
+            lengths[LANES] = out.position() - offsets[LANES];
+
+            // ARRIVALS
+            offsets[ARRIVALS] = out.position();
+            Map<Flight, int[]> perMin = engine.getMinuteArrivalsMap();
+            for (Flight f : flights) {
+                int[] a = perMin.getOrDefault(f, new int[0]);
+                out.putInt(a.length);
+                out.putInts(a, a.length);
+            }
+            lengths[ARRIVALS] = out.align() - offsets[ARRIVALS];
+
+            // HELD_UPS
+            offsets[HELD_UPS] = out.position();
+            SeriesBuffer held = engine.getHeldUpsSeries();
+            int n = held.size();
+            out.putInt(n);
+            for (int i = 0; i < n; i++) out.putInt((int) held.getX(i));
+            for (int i = 0; i < n; i++) out.putInt((int) held.getY(i));
+            lengths[HELD_UPS] = out.align() - offsets[HELD_UPS];
+
+            // PASSENGERS, one column at a time
+            offsets[PASSENGERS] = out.position();
+            List<Passenger> ps = engine.getPassengers();
+            int np = ps.size();
+            out.putInt(np);
+            out.putInt(0); // pad so the columns start 8-aligned
+            Map<Flight, Integer> flightIdx = new IdentityHashMap<>();
+            for (int i = 0; i < flights.size(); i++) flightIdx.put(flights.get(i), i);
+            for (Column col : Column.values()) {
+                for (Passenger p : ps) {
+                    switch (col) {
+                        case FLIGHT:           out.putInt(flightIdx.getOrDefault(p.getFlight(), -1)); break;
+                        case ARRIVAL:          out.putInt(p.getArrivalMinute()); break;
+                        case TICKET_DONE:      out.putInt(p.getTicketCompletionMinute()); break;
+                        case CHECKPOINT_ENTRY: out.putInt(p.getCheckpointEntryMinute()); break;
+                        case CHECKPOINT_DONE:  out.putInt(p.getCheckpointCompletionMinute()); break;
+                        case HOLD_ENTRY:       out.putInt(p.getHoldRoomEntryMinute()); break;
+                        case HOLD_SEQUENCE:    out.putInt(p.getHoldRoomSequence()); break;
+                    }
+                }
+            }
+            for (Passenger p : ps) {
+                out.putByte((p.isInPerson() ? FLAG_IN_PERSON : 0) | (p.isMissed() ? FLAG_MISSED : 0));
+            }
+            lengths[PASSENGERS] = out.align() - offsets[PASSENGERS];
+
+            if (session) {
+                offsets[HISTORY] = out.position();
+                SessionFile.writeHistory(engine, out);
+                lengths[HISTORY] = out.align() - offsets[HISTORY];
+
+                offsets[SNAPSHOTS] = out.position();
+                SessionFile.writeSnapshots(engine, out);
+                lengths[SNAPSHOTS] = out.align() - offsets[SNAPSHOTS];
+            }
+            out.flush();
+
+            // header last, now that the offsets are known
+            ByteBuffer head = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(VERSION).putInt(sections);
+            for (int id = 1; id <= sections; id++) {
+                head.putInt(id).putLong(offsets[id]).putLong(lengths[id]);
+            }
+            head.flip();
+            while (head.hasRemaining()) {
+                ch.write(head, head.position());
+            }
+        }
+    }
+
+    /** Sequential little-endian writer over a channel, through one direct buffer. */
+    static final class Out {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Out(FileChannel ch, long start) {
+            this.ch = ch;
+            this.flushed = start;
+        }
+
+        long position() { return flushed + buf.position(); }
+
+        private void room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                flushed += ch.write(buf, flushed);
+            }
+            buf.clear();
+        }
+
+        void putByte(int v) throws IOException { room(1); buf.put((byte) v); }
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { room(8); buf.putLong(v); }
+        void putDouble(double v) throws IOException { room(8); buf.putDouble(v); }
+
+        /** Overwrite a long written earlier (a length known only afterwards). */
+        void putLongAt(long at, long v) throws IOException {
+            if (at >= flushed) {
+                buf.putLong((int) (at - flushed), v);
+                return;
+            }
+            ByteBuffer b = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, v);
+            while (b.hasRemaining()) {
+                ch.write(b, at + b.position());
+            }
+        }
+
+        void putBytes(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                room(1);
+                int k = Math.min(src.remaining(), buf.remaining());
+                ByteBuffer slice = src.duplicate();
+                slice.limit(slice.position() + k);
+                buf.put(slice);
+                src.position(src.position() + k);
+            }
+        }
+
+        void putInts(int[] a, int n) throws IOException {
+            int i = 0;
+            while (i < n) {
+                room(4);
+                int k = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().put(a, i, k);
+                buf.position(buf.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void putString(String s) throws IOException {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putInt(b.length);
+            for (byte x : b) putByte(x);
+        }
+
+        /** Pad to 8 bytes; returns the new position. */
+        long align() throws IOException {
+            while ((position() & 7) != 0) putByte(0);
+            return position();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package sim.service;
+
+/** Running mean and variance of a stream of values (Welford). */
+final class RunningMoments {
+    private int n;
+    private double mean, m2;
+
+    void add(double x) {
+        n++;
+        double d = x - mean;
+        mean += d / n;
+        m2 += d * (x - mean);
+    }
+
+    int count() { return n; }
+
+    double mean() { return mean; }
+
+    /** Sample variance; 0 until there are two values. */
+    double variance() { return n > 1 ? m2 / (n - 1) : 0; }
+}
@@ -0,0 +1,397 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a flight schedule file into {@link Flight}s, one flight per line:
+ * <pre>
+ *   flight number, departure, seats, fill[, shape]
+ * </pre>
+ * Fields are separated by commas, semicolons or tabs (whichever the first line
+ * uses), or else by runs of spaces, which covers fixed-width layouts. Departure is
+ * H:MM, H.MM (as the flight table shows it), HH:MM:SS or HHMM; fill is a fraction
+ * (0.85) or a percentage (85 or 85%); shape is a {@link Flight.ShapeType} name and
+ * defaults to CIRCLE. Blank lines and lines starting with '#' are skipped, as is a
+ * header line.
+ *
+ * A departure may be dated, yyyy-MM-dd then 'T' or a space ('T' in space-separated
+ * files) then the time. Dated flights get a {@link Flight#getDepartureDay departure
+ * day} counted from the earliest date in the file, so a week's schedule loads as one
+ * multi-day run; undated lines fall on that first day.
+ *
+ * The file is memory-mapped and fields are read straight from the bytes; only the
+ * flight number becomes a String. Lines are split up front and then parsed and
+ * validated in parallel chunks, so tens of thousands of rows load in well under a
+ * second. Bad lines are reported, not fatal.
+ */
+public final class ScheduleImporter {
+    private static final int FIELDS = 5;
+    private static final int CHUNK_LINES = 4096;
+    /** Problem messages kept; later ones are only counted. */
+    private static final int MAX_MESSAGES = 200;
+
+    /** The flights read, in file order, and what was wrong with the rejected lines. */
+    public static final class Result {
+        private final List<Flight> flights;
+        private final List<String> problems;
+        private final int rejected;
+
+        Result(List<Flight> flights, List<String> problems, int rejected) {
+            this.flights = Collections.unmodifiableList(flights);
+            this.problems = Collections.unmodifiableList(problems);
+            this.rejected = rejected;
+        }
+
+        public List<Flight> getFlights() { return flights; }
+
+        /** "line N: ..." messages for the first rejected lines. */
+        public List<String> getProblems() { return problems; }
+
+        /** Number of lines rejected (may exceed the messages kept). */
+        public int getRejected() { return rejected; }
+    }
+
+    private ScheduleImporter() { }
+
+    public static Result importFile(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Schedule file too large: " + size + " bytes");
+            ByteBuffer data = size == 0
+                ? ByteBuffer.allocate(0)
+                : ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(data);
+        }
+    }
+
+    /**
+     * Parse one departure time as typed into the flight table.
+     *
+     * @return the time, or null if {@code s} is not a valid time
+     */
+    public static LocalTime parseDepartureTime(String s) {
+        byte[] b = s.trim().getBytes(StandardCharsets.US_ASCII);
+        int secs = time(ByteBuffer.wrap(b), 0, b.length);
+        return secs < 0 ? null : LocalTime.ofSecondOfDay(secs);
+    }
+
+    // ============================
+    // Parsing
+    // ============================
+
+    static Result parse(ByteBuffer data) {
+        int[] starts = lineStarts(data);
+        int lines = starts.length - 1;
+
+        // delimiter and header come from the first line with content
+        int first = 0;
+        while (first < lines && skip(data, starts[first], lineEnd(data, starts, first))) first++;
+        byte delim = first < lines ? delimiter(data, starts[first], lineEnd(data, starts, first)) : 0;
+        int from = first < lines && isHeader(data, starts[first], lineEnd(data, starts, first), delim)
+            ? first + 1 : first;
+
+        Flight[] flights = new Flight[lines];
+        String[] problems = new String[lines];
+        int chunks = (lines - from + CHUNK_LINES - 1) / CHUNK_LINES;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            ByteBuffer local = data.duplicate();
+            int[] spans = new int[2 * FIELDS];
+            byte[] scratch = new byte[64];
+            int end = Math.min(lines, from + (c + 1) * CHUNK_LINES);
+            for (int i = from + c * CHUNK_LINES; i < end; i++) {
+                int s = starts[i], e = lineEnd(local, starts, i);
+                if (skip(local, s, e)) continue;
+                try {
+                    flights[i] = line(local, s, e, delim, spans, scratch);
+                } catch (IllegalArgumentException ex) {
+                    problems[i] = "line " + (i + 1) + ": " + ex.getMessage();
+                }
+            }
+        });
+
+        List<Flight> out = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < lines; i++) {
+            if (flights[i] != null) {
+                out.add(flights[i]);
+            } else if (problems[i] != null) {
+                if (rejected++ < MAX_MESSAGES) messages.add(problems[i]);
+            }
+        }
+        // dated departures (held as epoch days until now) count from the earliest date
+        int firstDay = out.stream().mapToInt(Flight::getDepartureDay).filter(d -> d >= 0).min().orElse(0);
+        for (Flight f : out) {
+            f.setDepartureDay(f.getDepartureDay() < 0 ? 0 : f.getDepartureDay() - firstDay);
+        }
+        return new Result(out, messages, rejected);
+    }
+
+    /** Start offset of every line, plus one past the end as a sentinel. */
+    private static int[] lineStarts(ByteBuffer b) {
+        int n = b.limit();
+        int[] starts = new int[1024];
+        int count = 0;
+        starts[count++] = 0;
+        for (int i = 0; i < n; i++) {
+            if (b.get(i) == '\n') {
+                if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i + 1;
+            }
+        }
+        if (starts[count - 1] != n) {
+            if (count == starts.length) starts = Arrays.copyOf(starts, count + 1);
+            starts[count++] = n + 1;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    /** End of line {@code i}, excluding the line break. */
+    private static int lineEnd(ByteBuffer b, int[] starts, int i) {
+        int e = starts[i + 1] - 1;
+        if (e > starts[i] && b.get(e - 1) == '\r') e--;
+        return e;
+    }
+
+    private static boolean skip(ByteBuffer b, int s, int e) {
+        s = trimStart(b, s, e);
+        return s == e || b.get(s) == '#';
+    }
+
+    private static byte delimiter(ByteBuffer b, int s, int e) {
+        for (byte d : new byte[] { ',', ';', '\t' }) {
+            for (int i = s; i < e; i++) {
+                if (b.get(i) == d) return d;
+            }
+        }
+        return 0;
+    }
+
+    /** A first line whose departure and seats are both unreadable is taken as a header. */
+    private static boolean isHeader(ByteBuffer b, int s, int e, byte delim) {
+        int[] spans = new int[2 * FIELDS];
+        int n = split(b, s, e, delim, spans);
+        int ts = datePrefix(b, spans[2], spans[3]) >= 0 ? spans[2] + 11 : spans[2];
+        return n >= 3
+            && time(b, ts, spans[3]) < 0
+            && wholeNumber(b, spans[4], spans[5]) < 0;
+    }
+
+    private static Flight line(ByteBuffer b, int s, int e, byte delim, int[] spans, byte[] scratch) {
+        int n = split(b, s, e, delim, spans);
+        if (n < 4) {
+            throw new IllegalArgumentException("expected flight, departure, seats, fill[, shape]");
+        }
+        String number = text(b, spans[0], spans[1], scratch);
+        if (number.isEmpty()) throw new IllegalArgumentException("missing flight number");
+        int day = datePrefix(b, spans[2], spans[3]);
+        int dep = time(b, day >= 0 ? spans[2] + 11 : spans[2], spans[3]);
+        if (dep < 0) throw new IllegalArgumentException("bad departure time '" + raw(b, spans[2], spans[3]) + "'");
+        int seats = wholeNumber(b, spans[4], spans[5]);
+        if (seats <= 0) throw new IllegalArgumentException("seats must be a positive whole number");
+        double fill = fill(b, spans[6], spans[7]);
+        if (!(fill >= 0 && fill <= 1)) throw new IllegalArgumentException("fill must be 0-1 or 0-100%");
+        Flight.ShapeType shape = Flight.ShapeType.CIRCLE;
+        if (n > 4 && spans[9] > spans[8]) {
+            shape = shape(b, spans[8], spans[9]);
+            if (shape == null) throw new IllegalArgumentException("unknown shape '" + raw(b, spans[8], spans[9]) + "'");
+        }
+        Flight f = new Flight(number, LocalTime.ofSecondOfDay(dep), seats, fill, shape);
+        f.setDepartureDay(day);   // epoch day or -1; made relative once all lines are read
+        return f;
+    }
+
+    /**
+     * Find up to {@link #FIELDS} fields in [s, e); spans gets trimmed start/end pairs.
+     * A delimited field may be double-quoted (quotes are kept in the span).
+     */
+    private static int split(ByteBuffer b, int s, int e, byte delim, int[] spans) {
+        int n = 0;
+        int i = s;
+        if (delim == 0) {
+            while (n < FIELDS) {
+                while (i < e && isSpace(b.get(i))) i++;
+                if (i >= e) break;
+                int start = i;
+                while (i < e && !isSpace(b.get(i))) i++;
+                spans[2 * n] = start;
+                spans[2 * n + 1] = i;
+                n++;
+            }
+            return n;
+        }
+        while (n < FIELDS) {
+            int start = trimStart(b, i, e);
+            i = start;
+            if (i < e && b.get(i) == '"') {
+                i++;
+                while (i < e) {
+                    if (b.get(i) == '"') {
+                        if (i + 1 < e && b.get(i + 1) == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+            }
+            while (i < e && b.get(i) != delim) i++;
+            spans[2 * n] = start;
+            spans[2 * n + 1] = trimEnd(b, start, i);
+            n++;
+            if (i >= e) break;
+            i++;
+        }
+        return n;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t';
+    }
+
+    // spaces only: a tab may be the delimiter
+    private static int trimStart(ByteBuffer b, int s, int e) {
+        while (s < e && b.get(s) == ' ') s++;
+        return s;
+    }
+
+    private static int trimEnd(ByteBuffer b, int s, int e) {
+        while (e > s && b.get(e - 1) == ' ') e--;
+        return e;
+    }
+
+    /** Field text, unquoted; the only field that becomes a String. */
+    private static String text(ByteBuffer b, int s, int e, byte[] scratch) {
+        boolean quoted = e - s >= 2 && b.get(s) == '"' && b.get(e - 1) == '"';
+        if (quoted) {
+            s++;
+            e--;
+        }
+        int len = e - s;
+        if (scratch.length < len) scratch = new byte[len];
+        int k = 0;
+        for (int i = s; i < e; i++) {
+            byte c = b.get(i);
+            if (quoted && c == '"' && i + 1 < e && b.get(i + 1) == '"') i++;
+            scratch[k++] = c;
+        }
+        return new String(scratch, 0, k, StandardCharsets.UTF_8);
+    }
+
+    /** Field text for an error message. */
+    private static String raw(ByteBuffer b, int s, int e) {
+        byte[] bytes = new byte[Math.min(e - s, 40)];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = b.get(s + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Non-negative integer, or -1. */
+    private static int wholeNumber(ByteBuffer b, int s, int e) {
+        if (s >= e || e - s > 9) return -1;
+        int v = 0;
+        for (int i = s; i < e; i++) {
+            int d = b.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    /** Second of day, or -1. */
+    private static int time(ByteBuffer b, int s, int e) {
+        int sep = -1;
+        for (int i = s; i < e; i++) {
+            byte c = b.get(i);
+            if (c == ':' || c == '.') {
+                sep = i;
+                break;
+            }
+        }
+        int h, m, sec = 0;
+        if (sep < 0) {
+            if (e - s < 3 || e - s > 4) return -1;   // HMM or HHMM
+            int v = wholeNumber(b, s, e);
+            if (v < 0) return -1;
+            h = v / 100;
+            m = v % 100;
+        } else {
+            h = sep - s <= 2 ? wholeNumber(b, s, sep) : -1;
+            int mEnd = sep + 1;
+            while (mEnd < e && b.get(mEnd) != ':') mEnd++;
+            m = mEnd - sep - 1 <= 2 ? wholeNumber(b, sep + 1, mEnd) : -1;
+            if (mEnd < e) {
+                sec = e - mEnd - 1 == 2 ? wholeNumber(b, mEnd + 1, e) : -1;
+            }
+        }
+        if (h < 0 || h > 23 || m < 0 || m > 59 || sec < 0 || sec > 59) return -1;
+        return h * 3600 + m * 60 + sec;
+    }
+
+    /** Epoch day of a leading "yyyy-MM-dd" followed by 'T' or a space, or -1. */
+    private static int datePrefix(ByteBuffer b, int s, int e) {
+        if (e - s < 12 || b.get(s + 4) != '-' || b.get(s + 7) != '-') return -1;
+        byte t = b.get(s + 10);
+        if (t != 'T' && t != ' ') return -1;
+        int y = wholeNumber(b, s, s + 4);
+        int mo = wholeNumber(b, s + 5, s + 7);
+        int d = wholeNumber(b, s + 8, s + 10);
+        if (y < 1970 || mo < 1 || mo > 12 || d < 1 || d > 31) return -1;
+        try {
+            return (int) LocalDate.of(y, mo, d).toEpochDay();
+        } catch (DateTimeException ex) {
+            return -1;   // e.g. February 30
+        }
+    }
+
+    /** Fill as a fraction: "0.85", "85" or "85%"; NaN if unreadable. */
+    private static double fill(ByteBuffer b, int s, int e) {
+        boolean percent = e > s && b.get(e - 1) == '%';
+        if (percent) e = trimEnd(b, s, e - 1);
+        if (s >= e || e - s > 15) return Double.NaN;
+        long mantissa = 0;
+        int decimals = -1;
+        for (int i = s; i < e; i++) {
+            byte c = b.get(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) return Double.NaN;
+            mantissa = mantissa * 10 + d;
+            if (decimals >= 0) decimals++;
+        }
+        double v = mantissa;
+        for (int k = 0; k < decimals; k++) v /= 10;
+        return percent || v > 1 ? v / 100 : v;
+    }
+
+    /** Shape by name, ignoring case, or null. */
+    private static Flight.ShapeType shape(ByteBuffer b, int s, int e) {
+        for (Flight.ShapeType t : Flight.ShapeType.values()) {
+            String name = t.name();
+            if (name.length() != e - s) continue;
+            int i = 0;
+            while (i < name.length() && Character.toUpperCase((char) b.get(s + i)) == name.charAt(i)) i++;
+            if (i == name.length()) return t;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,392 @@
+package sim.service;
+
+import org.apache.commons.math3.random.SobolSequenceGenerator;
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Which inputs drive missed passengers: Sobol sensitivity indices over a
+ * quasi-random design.
+ *
+ * Each factor varies uniformly over a range. A Sobol sequence of twice as many
+ * dimensions as factors gives, per base sample, two points A and B; the runner
+ * simulates A, B and, for every factor i, A with factor i taken from B. From those
+ * runs come each factor's first-order index (the share of the output variance it
+ * explains alone, Saltelli's estimator) and total-effect index (including its
+ * interactions, Jansen's estimator). The output is the number of passengers that
+ * didn't reach their hold room before boarding closed.
+ *
+ * Runs go to a thread pool in batches of base samples and only their outputs are
+ * kept, folded into running sums in sample order, so the result doesn't depend on
+ * thread timing and memory doesn't grow with the study. Confidence intervals come
+ * from a Poisson bootstrap: every replicate weighs each sample by a Poisson(1) draw
+ * as it streams past, which needs no stored samples either.
+ */
+public final class SensitivityAnalysis {
+    /** The inputs that can be varied. */
+    public enum Factor {
+        PERCENT_IN_PERSON("Percent in person"),
+        TRANSIT_DELAY("Transit delay (min)"),
+        HOLD_DELAY("Hold-room delay (min)"),
+        COUNTER_RATE("Counter rate (x configured)"),
+        CHECKPOINT_RATE("Checkpoint rate (per min)"),
+        FILL("Fill (x each flight)");
+
+        private final String label;
+
+        Factor(String label) { this.label = label; }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    /** One factor's indices with bootstrap bounds. */
+    public static final class Index {
+        private final Factor factor;
+        private final double first, firstLow, firstHigh;
+        private final double total, totalLow, totalHigh;
+
+        Index(Factor factor, double first, double firstLow, double firstHigh,
+              double total, double totalLow, double totalHigh) {
+            this.factor = factor;
+            this.first = first;
+            this.firstLow = firstLow;
+            this.firstHigh = firstHigh;
+            this.total = total;
+            this.totalLow = totalLow;
+            this.totalHigh = totalHigh;
+        }
+
+        public Factor getFactor() { return factor; }
+
+        /** First-order index; NaN if the output never varied. */
+        public double getFirst() { return first; }
+        public double getFirstLow() { return firstLow; }
+        public double getFirstHigh() { return firstHigh; }
+
+        /** Total-effect index; NaN if the output never varied. */
+        public double getTotal() { return total; }
+        public double getTotalLow() { return totalLow; }
+        public double getTotalHigh() { return totalHigh; }
+    }
+
+    public static final class Result {
+        private final List<Index> indices;
+        private final double mean;
+        private final double variance;
+        private final int runs;
+
+        Result(List<Index> indices, double mean, double variance, int runs) {
+            this.indices = Collections.unmodifiableList(indices);
+            this.mean = mean;
+            this.variance = variance;
+            this.runs = runs;
+        }
+
+        /** One entry per factor studied, in {@link Factor} declaration order. */
+        public List<Index> getIndices() { return indices; }
+
+        /** Mean missed passengers over the A and B samples. */
+        public double getMean() { return mean; }
+
+        public double getVariance() { return variance; }
+
+        public int getRuns() { return runs; }
+    }
+
+    // base configuration
+    private final double percentInPerson;
+    private final List<TicketCounterConfig> counters;
+    private final int numCheckpoints;
+    private final double checkpointRate;
+    private final int arrivalSpanMinutes;
+    private final int intervalMinutes;
+    private final int transitDelayMinutes;
+    private final int holdDelayMinutes;
+    private final List<Flight> flights;
+
+    // study settings
+    private final Map<Factor, double[]> ranges = new EnumMap<>(Factor.class);
+    private int baseSamples = 256;
+    private int replicates = 200;
+    private double confidence = 0.95;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private IntConsumer progress = runs -> { };
+
+    public SensitivityAnalysis(double percentInPerson,
+                               List<TicketCounterConfig> counters,
+                               int numCheckpoints,
+                               double checkpointRate,
+                               int arrivalSpanMinutes,
+                               int intervalMinutes,
+                               int transitDelayMinutes,
+                               int holdDelayMinutes,
+                               List<Flight> flights) {
+        this.percentInPerson = percentInPerson;
+        this.counters = new ArrayList<>(counters);
+        this.numCheckpoints = numCheckpoints;
+        this.checkpointRate = checkpointRate;
+        this.arrivalSpanMinutes = arrivalSpanMinutes;
+        this.intervalMinutes = intervalMinutes;
+        this.transitDelayMinutes = transitDelayMinutes;
+        this.holdDelayMinutes = holdDelayMinutes;
+        this.flights = new ArrayList<>(flights);
+    }
+
+    /**
+     * Vary {@code factor} uniformly over [low, high]; delays are rounded to whole
+     * minutes. Factors not added keep their configured value.
+     */
+    public void vary(Factor factor, double low, double high) {
+        if (!(high >= low)) throw new IllegalArgumentException("Empty range for " + factor);
+        ranges.put(factor, new double[] { low, high });
+    }
+
+    /** Base samples; the study runs samples x (factors + 2) simulations. Default 256. */
+    public void setBaseSamples(int n) { baseSamples = Math.max(2, n); }
+
+    /** Bootstrap replicates. Default 200. */
+    public void setReplicates(int n) { replicates = Math.max(10, n); }
+
+    /** Confidence level of the bootstrap bounds. Default 0.95. */
+    public void setConfidence(double c) { confidence = c; }
+
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    /** Seed for the bootstrap weights. */
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /** Called from the calling thread with the runs done so far, once per batch. */
+    public void setProgressListener(IntConsumer listener) { progress = listener; }
+
+    /** Simulations a study with the current settings will run. */
+    public int totalRuns() {
+        return baseSamples * (ranges.size() + 2);
+    }
+
+    // ============================
+    // Study
+    // ============================
+
+    /** Run the study; blocks until done. */
+    public Result run() {
+        int d = ranges.size();
+        if (d == 0) throw new IllegalStateException("No factors to vary");
+        Factor[] factors = ranges.keySet().toArray(new Factor[0]);
+
+        SobolSequenceGenerator sobol = new SobolSequenceGenerator(2 * d);
+        sobol.nextVector();                                   // skip the all-zero point
+        Sums all = new Sums(d);
+        Sums[] boot = new Sums[replicates];
+        for (int r = 0; r < replicates; r++) boot[r] = new Sums(d);
+        Random weights = new Random(seed);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "sensitivity");
+            t.setDaemon(true);
+            return t;
+        });
+        int batch = Math.max(1, 4 * threads / (d + 2));
+        int done = 0;
+        try {
+            for (int from = 0; from < baseSamples; from += batch) {
+                int n = Math.min(batch, baseSamples - from);
+                List<List<Future<Integer>>> runs = new ArrayList<>(n);
+                for (int s = 0; s < n; s++) {
+                    double[] u = sobol.nextVector();
+                    double[] a = Arrays.copyOfRange(u, 0, d);
+                    double[] b = Arrays.copyOfRange(u, d, 2 * d);
+                    List<Future<Integer>> row = new ArrayList<>(d + 2);
+                    row.add(pool.submit(() -> missed(factors, a)));
+                    row.add(pool.submit(() -> missed(factors, b)));
+                    for (int i = 0; i < d; i++) {
+                        double[] ab = a.clone();
+                        ab[i] = b[i];
+                        row.add(pool.submit(() -> missed(factors, ab)));
+                    }
+                    runs.add(row);
+                }
+                for (List<Future<Integer>> row : runs) {
+                    double[] y = new double[d + 2];
+                    for (int k = 0; k < y.length; k++) y[k] = row.get(k).get();
+                    all.add(y, 1);
+                    for (Sums r : boot) {
+                        int w = poisson(weights);
+                        if (w > 0) r.add(y, w);
+                    }
+                }
+                done += n * (d + 2);
+                progress.accept(done);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot finish sensitivity study: interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot finish sensitivity study: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double alpha = (1 - confidence) / 2;
+        List<Index> out = new ArrayList<>(d);
+        double[] s1 = new double[replicates];
+        double[] st = new double[replicates];
+        for (int i = 0; i < d; i++) {
+            for (int r = 0; r < replicates; r++) {
+                s1[r] = boot[r].first(i);
+                st[r] = boot[r].total(i);
+            }
+            out.add(new Index(factors[i],
+                all.first(i), quantile(s1, alpha), quantile(s1, 1 - alpha),
+                all.total(i), quantile(st, alpha), quantile(st, 1 - alpha)));
+        }
+        return new Result(out, all.mean(), all.variance(), done);
+    }
+
+    /** Weighted running sums behind the estimators. */
+    private static final class Sums {
+        double n;           // weight of base samples
+        double sum, sumSq;  // over the A and B outputs
+        final double[] first;
+        final double[] total;
+
+        Sums(int d) {
+            first = new double[d];
+            total = new double[d];
+        }
+
+        /** y = f(A), f(B), f(AB_1) ... f(AB_d). */
+        void add(double[] y, double w) {
+            double fa = y[0], fb = y[1];
+            n += w;
+            sum += w * (fa + fb);
+            sumSq += w * (fa * fa + fb * fb);
+            for (int i = 0; i < first.length; i++) {
+                double fab = y[i + 2];
+                first[i] += w * fb * (fab - fa);
+                total[i] += w * (fa - fab) * (fa - fab);
+            }
+        }
+
+        double mean() {
+            return n == 0 ? Double.NaN : sum / (2 * n);
+        }
+
+        double variance() {
+            if (n == 0) return Double.NaN;
+            double m = mean();
+            return sumSq / (2 * n) - m * m;
+        }
+
+        double first(int i) {
+            double v = variance();
+            return v > 0 ? first[i] / n / v : Double.NaN;
+        }
+
+        double total(int i) {
+            double v = variance();
+            return v > 0 ? total[i] / (2 * n) / v : Double.NaN;
+        }
+    }
+
+    private static int poisson(Random rnd) {
+        double limit = Math.exp(-1);
+        double p = rnd.nextDouble();
+        int k = 0;
+        while (p > limit) {
+            p *= rnd.nextDouble();
+            k++;
+        }
+        return k;
+    }
+
+    /** Empirical quantile, ignoring NaN replicates. */
+    private static double quantile(double[] values, double q) {
+        double[] v = Arrays.stream(values).filter(x -> !Double.isNaN(x)).sorted().toArray();
+        if (v.length == 0) return Double.NaN;
+        int i = (int) Math.floor(q * (v.length - 1));
+        return v[Math.max(0, Math.min(v.length - 1, i))];
+    }
+
+    // ============================
+    // One headless run
+    // ============================
+
+    /** Missed passengers with the factors set from {@code u} in [0, 1). */
+    private int missed(Factor[] factors, double[] u) {
+        double inPerson = percentInPerson;
+        double counterScale = 1;
+        double cpRate = checkpointRate;
+        int transit = transitDelayMinutes;
+        int hold = holdDelayMinutes;
+        double fillScale = 1;
+        for (int i = 0; i < factors.length; i++) {
+            double[] range = ranges.get(factors[i]);
+            double x = range[0] + u[i] * (range[1] - range[0]);
+            switch (factors[i]) {
+                case PERCENT_IN_PERSON: inPerson = x; break;
+                case TRANSIT_DELAY:     transit = (int) Math.round(x); break;
+                case HOLD_DELAY:        hold = (int) Math.round(x); break;
+                case COUNTER_RATE:      counterScale = x; break;
+                case CHECKPOINT_RATE:   cpRate = x; break;
+                case FILL:              fillScale = x; break;
+            }
+        }
+
+        // refilled flights are new objects, so counters' flight restrictions are remapped
+        List<Flight> fl = flights;
+        Map<Flight, Flight> refilled = new IdentityHashMap<>();
+        if (fillScale != 1) {
+            fl = new ArrayList<>(flights.size());
+            for (Flight f : flights) {
+                Flight g = new Flight(f.getFlightNumber(), f.getDepartureTime(), f.getSeats(),
+                    Math.min(1, f.getFillPercent() * fillScale), f.getShape());
+                g.setDepartureDay(f.getDepartureDay());
+                fl.add(g);
+                refilled.put(f, g);
+            }
+        }
+        List<TicketCounterConfig> cs = new ArrayList<>(counters.size());
+        for (TicketCounterConfig t : counters) {
+            Set<Flight> allowed = t.getAllowedFlights();
+            if (!refilled.isEmpty()) {
+                allowed = new HashSet<>();
+                for (Flight f : t.getAllowedFlights()) allowed.add(refilled.getOrDefault(f, f));
+            }
+            cs.add(new TicketCounterConfig(t.getId(), t.getRate() * counterScale, allowed));
+        }
+
+        SimulationEngine engine = SimulationEngine.headless(
+            Math.max(0, Math.min(1, inPerson)),
+            cs,
+            numCheckpoints,
+            cpRate,
+            arrivalSpanMinutes,
+            intervalMinutes,
+            Math.max(0, transit),
+            Math.max(0, hold),
+            fl
+        );
+        while (engine.getCurrentInterval() < engine.getTotalIntervals()) {
+            engine.computeNextInterval();
+        }
+        return ReplicationManager.missedPassengers(engine);
+    }
+}
@@ -0,0 +1,264 @@
+package sim.service;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import sim.model.Flight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replicates stochastic scenarios until every KPI is known to a target precision.
+ *
+ * The KPIs of a replication are the missed passengers of each flight and the peak
+ * ticket and checkpoint queues (totals over lanes). Each keeps a running mean and
+ * variance; after every batch of replications a scenario stops once each KPI's t
+ * confidence half-width is within the target (an absolute half-width, or a fraction
+ * of the KPI's mean if that is larger), or when it reaches the maximum.
+ *
+ * All scenarios share one pool. A free thread always takes a replication of the
+ * unfinished scenario with the fewest launched so far, so threads released by a
+ * scenario that has converged go to the ones still sampling. Results are folded in
+ * seed order and the stopping rule only looks at whole batches, so which replications
+ * count doesn't depend on thread timing; replications launched past the stopping
+ * point are dropped.
+ */
+public final class SequentialSampler {
+    /** What one scenario's replications showed. */
+    public static final class Result {
+        private final List<String> names;
+        private final double[] means;
+        private final double[] halfWidths;
+        private final int replications;
+        private final boolean converged;
+
+        Result(List<String> names, double[] means, double[] halfWidths, int replications, boolean converged) {
+            this.names = Collections.unmodifiableList(names);
+            this.means = means;
+            this.halfWidths = halfWidths;
+            this.replications = replications;
+            this.converged = converged;
+        }
+
+        /** KPI names: "Missed <flight>" for each flight, then the two peak queues. */
+        public List<String> getNames() { return names; }
+
+        public double getMean(int kpi) { return means[kpi]; }
+
+        public double getHalfWidth(int kpi) { return halfWidths[kpi]; }
+
+        public int getReplications() { return replications; }
+
+        /** False if the maximum was reached before every KPI met the target. */
+        public boolean isConverged() { return converged; }
+    }
+
+    private double targetHalfWidth = 1;
+    private double relativeTarget;
+    private double confidence = 0.95;
+    private int minReplications = 10;
+    private int maxReplications = 1000;
+    private int batch;
+    private boolean antithetic;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** Largest acceptable half-width, in each KPI's units (passengers). Default 1. */
+    public void setTargetHalfWidth(double h) {
+        if (!(h > 0)) throw new IllegalArgumentException("Target half-width must be positive");
+        targetHalfWidth = h;
+    }
+
+    /** Also accept a half-width up to this fraction of the KPI's mean. Default 0. */
+    public void setRelativeTarget(double fraction) { relativeTarget = Math.max(0, fraction); }
+
+    public void setConfidence(double c) { confidence = c; }
+
+    /** Replications before the stopping rule is first checked. Default 10. */
+    public void setMinReplications(int n) { minReplications = Math.max(2, n); }
+
+    /** Replications after which a scenario stops regardless. Default 1000. */
+    public void setMaxReplications(int n) { maxReplications = Math.max(2, n); }
+
+    /** Replications between checks of the stopping rule. Default: the thread count. */
+    public void setBatch(int n) { batch = Math.max(1, n); }
+
+    /** Replicate each seed with its antithetic twin and use the pair's average. */
+    public void setAntithetic(boolean on) { antithetic = on; }
+
+    /** Seed of the first replication; replication r uses seed + r. */
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    // ============================
+    // Sampling
+    // ============================
+
+    /** One scenario's progress; guarded by the sampler's lock. */
+    private final class Slot {
+        final ReplicationManager.Scenario scenario;
+        final List<Flight> flights;
+        final List<String> names = new ArrayList<>();
+        final RunningMoments[] kpis;
+        final Map<Integer, double[]> pending = new HashMap<>();  // finished out of order
+        int launched;
+        int folded;
+        boolean done;
+        boolean converged;
+
+        Slot(ReplicationManager.Scenario scenario) {
+            this.scenario = scenario;
+            this.flights = scenario.getFlights();
+            for (Flight f : flights) names.add("Missed " + f.getFlightNumber());
+            names.add("Peak ticket queue");
+            names.add("Peak checkpoint queue");
+            kpis = new RunningMoments[names.size()];
+            for (int i = 0; i < kpis.length; i++) kpis[i] = new RunningMoments();
+        }
+
+        /** Fold in what can be folded in seed order; check the rule at batch ends. */
+        void offer(int r, double[] y) {
+            if (done) return;
+            pending.put(r, y);
+            double[] next;
+            while (!done && (next = pending.remove(folded)) != null) {
+                for (int i = 0; i < kpis.length; i++) kpis[i].add(next[i]);
+                folded++;
+                if (folded >= maxReplications) {
+                    done = true;
+                    converged = precise();
+                } else if (folded >= minReplications && folded % batch() == 0 && precise()) {
+                    done = true;
+                    converged = true;
+                }
+            }
+            if (done) pending.clear();
+        }
+
+        boolean precise() {
+            for (RunningMoments m : kpis) {
+                if (halfWidth(m) > Math.max(targetHalfWidth, relativeTarget * Math.abs(m.mean()))) return false;
+            }
+            return true;
+        }
+
+        Result result() {
+            double[] means = new double[kpis.length];
+            double[] half = new double[kpis.length];
+            for (int i = 0; i < kpis.length; i++) {
+                means[i] = kpis[i].mean();
+                half[i] = halfWidth(kpis[i]);
+            }
+            return new Result(names, means, half, folded, converged);
+        }
+    }
+
+    private int batch() {
+        return batch > 0 ? batch : threads;
+    }
+
+    private double halfWidth(RunningMoments m) {
+        int n = m.count();
+        if (n < 2) return Double.POSITIVE_INFINITY;
+        double t = new TDistribution(n - 1).inverseCumulativeProbability(1 - (1 - confidence) / 2);
+        return t * Math.sqrt(m.variance() / n);
+    }
+
+    /** Sample every scenario to the target; blocks until all have stopped. */
+    public List<Result> run(List<ReplicationManager.Scenario> scenarios) {
+        List<Slot> slots = new ArrayList<>(scenarios.size());
+        for (ReplicationManager.Scenario s : scenarios) slots.add(new Slot(s));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "sequential-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int w = 0; w < threads; w++) {
+                workers.add(pool.submit(() -> work(slots)));
+            }
+            for (Future<?> f : workers) f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cannot finish sampling: interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot finish sampling: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Result> out = new ArrayList<>(slots.size());
+        for (Slot s : slots) out.add(s.result());
+        return out;
+    }
+
+    private void work(List<Slot> slots) {
+        while (true) {
+            Slot slot = null;
+            int r;
+            synchronized (this) {
+                for (Slot s : slots) {
+                    if (s.done || s.launched >= maxReplications) continue;
+                    if (slot == null || s.launched < slot.launched) slot = s;
+                }
+                if (slot == null) return;
+                r = slot.launched++;
+            }
+
+            double[] y;
+            try {
+                y = replicate(slot, seed + r);
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    for (Slot s : slots) s.done = true;   // the others stop too
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                slot.offer(r, y);
+            }
+        }
+    }
+
+    /** KPIs of replication {@code s}, averaged with its twin if antithetic. */
+    private double[] replicate(Slot slot, long s) {
+        double[] y = kpis(slot, slot.scenario.run(s, false));
+        if (antithetic) {
+            double[] z = kpis(slot, slot.scenario.run(s, true));
+            for (int i = 0; i < y.length; i++) y[i] = (y[i] + z[i]) / 2;
+        }
+        return y;
+    }
+
+    private static double[] kpis(Slot slot, SimulationEngine engine) {
+        double[] y = new double[slot.kpis.length];
+        PassengerStats stats = engine.getPassengerStats();
+        for (int i = 0; i < slot.flights.size(); i++) y[i] = stats.getMissed(i);
+        y[y.length - 2] = peakTotal(engine.getTicketQueueCounts());
+        y[y.length - 1] = peakTotal(engine.getCheckpointQueueCounts());
+        return y;
+    }
+
+    private static int peakTotal(LaneCounts counts) {
+        int steps = counts.steps();
+        int lanes = counts.lanes();
+        int[] rows = new int[steps * lanes];
+        counts.copyRows(0, steps, rows);
+        int peak = 0;
+        for (int s = 0; s < steps; s++) {
+            int sum = 0;
+            for (int l = 0; l < lanes; l++) sum += rows[s * lanes + l];
+            peak = Math.max(peak, sum);
+        }
+        return peak;
+    }
+}
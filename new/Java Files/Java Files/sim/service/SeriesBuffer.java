@@ -0,0 +1,73 @@
+package sim.service;
+
+import java.util.Arrays;
+
+/**
+ * Growable (x, y) series kept in two primitive arrays.
+ *
+ * Points are appended in non-decreasing x order (the timeline only moves forward),
+ * which lets readers binary-search an x range instead of scanning. Holds the full
+ * resolution; charts decimate from it rather than storing their own copy.
+ *
+ * Not thread-safe: fill it on one thread, or hand a finished buffer over.
+ */
+public final class SeriesBuffer {
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    public SeriesBuffer() {
+        this(256);
+    }
+
+    public SeriesBuffer(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        xs = new double[cap];
+        ys = new double[cap];
+    }
+
+    /** Append a point; x must not be smaller than the last x. */
+    public void add(double x, double y) {
+        if (size > 0 && x < xs[size - 1]) {
+            throw new IllegalArgumentException("x must be non-decreasing: " + x + " < " + xs[size - 1]);
+        }
+        if (size == xs.length) {
+            int cap = xs.length * 2;
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public int size() { return size; }
+
+    public double getX(int i) { return xs[i]; }
+
+    public double getY(int i) { return ys[i]; }
+
+    public void clear() { size = 0; }
+
+    /** First index whose x is &gt;= {@code x} (size() if none). */
+    public int lowerBound(double x) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First index whose x is &gt; {@code x} (size() if none). */
+    public int upperBound(double x) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] <= x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,20 @@
+package sim.service;
+
+/**
+ * How much work each lane gets done, minute by minute.
+ *
+ * By default a lane serves exactly its configured rate every minute (fractions carry
+ * over); {@link SimulationEngine#setServiceSource} swaps in another source, such as
+ * {@link StochasticService} drawing random service. Like an {@link ArrivalSource} it
+ * is asked once per lane per simulated minute.
+ */
+public interface ServiceSource {
+    /**
+     * Passengers ticket counter {@code counter} can finish during {@code minute}
+     * (minutes since start), given its configured {@code rate} per minute.
+     */
+    double ticketCapacity(int counter, int minute, double rate);
+
+    /** The same for checkpoint lane {@code lane}. */
+    double checkpointCapacity(int lane, int minute, double rate);
+}
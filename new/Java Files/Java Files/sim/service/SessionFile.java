@@ -0,0 +1,217 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Saving a live simulation so it can be resumed later without re-simulating.
+ *
+ * A session is a {@link RunFile} with two more sections:
+ * <pre>
+ *   HISTORY     per lane kind (ticket queue/served, checkpoint queue/served, hold rooms):
+ *               int steps, int keyEvery, long dataLength, the step records, then
+ *               (8-aligned) one int offset per step into the records
+ *   SNAPSHOTS   int count, int currentInterval, long dataLength, the snapshot records,
+ *               (8-aligned) one int offset per snapshot, then int n and the n ints
+ *               of the held-ups log: (interval, count) pairs for intervals 1..count - 1
+ * </pre>
+ * History steps are {@link SnapshotCodec} lane records: in full every keyEvery steps,
+ * otherwise relative to the previous step. Snapshot t &gt; 0 is written relative to
+ * history step t - 1, which it differs from only by the passengers purged at the end
+ * of that interval, so most snapshots cost a few ints per lane.
+ *
+ * {@link #reopen} reads just the configuration, the passenger columns and the lane
+ * counts up front; history steps and snapshots stay mapped and are decoded when the
+ * timeline first shows them.
+ */
+public final class SessionFile {
+    private static final int LANE_KINDS = 5;
+
+    private SessionFile() { }
+
+    /** Save {@code engine} (configuration, results and rewind state) to {@code file}. */
+    public static void save(SimulationEngine engine, Path file) throws IOException {
+        synchronized (engine) {
+            RunFile.write(engine, file, true);
+        }
+    }
+
+    /**
+     * Rebuild the engine a session was saved from, sitting on the interval it was
+     * saved at, with every computed interval available for rewind. The run file may
+     * be closed once this returns.
+     */
+    public static SimulationEngine reopen(RunFile run) throws IOException {
+        if (!run.hasSession()) throw new IOException("Run file holds no session");
+
+        SimulationEngine engine = new SimulationEngine(
+            run.getPercentInPerson(),
+            new ArrayList<>(run.getCounterConfigs()),
+            run.getNumCheckpoints(),
+            run.getCheckpointRate(),
+            run.getArrivalSpan(),
+            run.getInterval(),
+            run.getTransitDelayMinutes(),
+            run.getHoldDelayMinutes(),
+            new ArrayList<>(run.getFlights())
+        );
+        // the saved profile, which may hold replayed rather than generated arrivals
+        engine.adoptArrivals(run.getMinuteArrivalsMap());
+        List<Passenger> roster = readRoster(run, engine.getFlights());
+        SnapshotCodec codec = new SnapshotCodec(engine.getFlights(), engine.getPassengers());
+
+        // HISTORY
+        PassengerHistory[] histories = engine.laneHistories();
+        long pos = run.sectionOffset(RunFile.HISTORY);
+        for (PassengerHistory h : histories) {
+            ByteBuffer head = run.read(pos, 16);
+            int steps = head.getInt();
+            int keyEvery = head.getInt();
+            long len = head.getLong();
+            ByteBuffer data = run.mapBytes(pos + 16, len);
+            long offsetsAt = RunFile.align(pos + 16 + len);
+            h.load(data, readInts(run, offsetsAt, steps), keyEvery, codec);
+            pos = RunFile.align(offsetsAt + 4L * steps);
+        }
+
+        // SNAPSHOTS
+        pos = run.sectionOffset(RunFile.SNAPSHOTS);
+        ByteBuffer head = run.read(pos, 16);
+        int count = head.getInt();
+        int current = head.getInt();
+        long len = head.getLong();
+        ByteBuffer data = run.mapBytes(pos + 16, len);
+        long offsetsAt = RunFile.align(pos + 16 + len);
+        int[] offsets = readInts(run, offsetsAt, count);
+        long logAt = RunFile.align(offsetsAt + 4L * count);
+        int[] log = readInts(run, logAt + 8, run.read(logAt, 4).getInt());
+        int[] heldUps = new int[log.length / 2];
+        for (int i = 0; i < heldUps.length; i++) heldUps[i] = log[2 * i + 1];
+
+        IntFunction<SimulationEngine.EngineSnapshot> loader = t -> {
+            ByteBuffer b = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            b.position(offsets[t]);
+            return codec.decode(b, t == 0 ? null : historyStep(histories, t - 1));
+        };
+
+        LaneCounts[] counts = {
+            run.getTicketQueueCounts(), run.getTicketServedCounts(),
+            run.getCheckpointQueueCounts(), run.getCheckpointServedCounts(),
+            run.getHoldRoomCounts()
+        };
+        engine.adoptSession(roster, counts, heldUps, count, loader, current);
+        return engine;
+    }
+
+    private static List<Passenger> readRoster(RunFile run, List<Flight> flights) {
+        int n = run.getPassengerCount();
+        IntBuffer flight = run.column(RunFile.Column.FLIGHT);
+        IntBuffer arrival = run.column(RunFile.Column.ARRIVAL);
+        IntBuffer ticketDone = run.column(RunFile.Column.TICKET_DONE);
+        IntBuffer cpEntry = run.column(RunFile.Column.CHECKPOINT_ENTRY);
+        IntBuffer cpDone = run.column(RunFile.Column.CHECKPOINT_DONE);
+        IntBuffer holdEntry = run.column(RunFile.Column.HOLD_ENTRY);
+        IntBuffer holdSeq = run.column(RunFile.Column.HOLD_SEQUENCE);
+
+        List<Passenger> roster = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int f = flight.get(i);
+            Passenger p = new Passenger(f < 0 ? null : flights.get(f), arrival.get(i), run.isInPerson(i));
+            p.setTicketCompletionMinute(ticketDone.get(i));
+            p.setCheckpointEntryMinute(cpEntry.get(i));
+            p.setCheckpointCompletionMinute(cpDone.get(i));
+            p.setHoldRoomEntryMinute(holdEntry.get(i));
+            p.setHoldRoomSequence(holdSeq.get(i));
+            p.setMissed(run.isMissed(i));
+            p.setId(i);
+            roster.add(p);
+        }
+        return roster;
+    }
+
+    private static int[] readInts(RunFile run, long pos, int n) throws IOException {
+        int[] a = new int[n];
+        run.read(pos, 4 * n).asIntBuffer().get(a);
+        return a;
+    }
+
+    private static List<List<List<Passenger>>> historyStep(List<List<List<Passenger>>>[] histories, int step) {
+        List<List<List<Passenger>>> lanes = new ArrayList<>(LANE_KINDS);
+        for (int k = 0; k < LANE_KINDS; k++) {
+            lanes.add(histories[k].get(step));
+        }
+        return lanes;
+    }
+
+    // ============================
+    // Writing (called by RunFile.write with the engine lock held)
+    // ============================
+
+    static void writeHistory(SimulationEngine engine, RunFile.Out out) throws IOException {
+        SnapshotCodec codec = new SnapshotCodec(engine.getFlights(), engine.getPassengers());
+        for (PassengerHistory h : engine.laneHistories()) {
+            int steps = h.size();
+            int keyEvery = PassengerHistory.KEY_EVERY;
+            out.putInt(steps);
+            out.putInt(keyEvery);
+            long lenAt = out.position();
+            out.putLong(0);
+            long start = out.position();
+            int[] offsets = new int[steps];
+            List<List<Passenger>> prev = null;
+            for (int s = 0; s < steps; s++) {
+                List<List<Passenger>> lanes = h.get(s);
+                offsets[s] = offset(out.position() - start);
+                out.putBytes(codec.encodeLanes(lanes, s % keyEvery == 0 ? null : prev));
+                prev = lanes;
+            }
+            out.putLongAt(lenAt, out.position() - start);
+            out.align();
+            out.putInts(offsets, steps);
+            out.align();
+        }
+    }
+
+    static void writeSnapshots(SimulationEngine engine, RunFile.Out out) throws IOException {
+        SnapshotCodec codec = new SnapshotCodec(engine.getFlights(), engine.getPassengers());
+        PassengerHistory[] histories = engine.laneHistories();
+        int count = engine.getMaxComputedInterval() + 1;
+        out.putInt(count);
+        out.putInt(engine.getCurrentInterval());
+        long lenAt = out.position();
+        out.putLong(0);
+        long start = out.position();
+        int[] offsets = new int[count];
+        for (int t = 0; t < count; t++) {
+            offsets[t] = offset(out.position() - start);
+            out.putBytes(codec.encode(engine.snapshotAt(t), t == 0 ? null : historyStep(histories, t - 1)));
+        }
+        out.putLongAt(lenAt, out.position() - start);
+        out.align();
+        out.putInts(offsets, count);
+        out.align();
+        int[] heldUps = engine.heldUpCounts(count - 1);
+        int[] log = new int[2 * heldUps.length];
+        for (int i = 0; i < heldUps.length; i++) {
+            log[2 * i] = i + 1;
+            log[2 * i + 1] = heldUps[i];
+        }
+        out.putInt(log.length);
+        out.putInt(0); // pad so the log starts 8-aligned
+        out.putInts(log, log.length);
+    }
+
+    private static int offset(long relative) throws IOException {
+        if (relative > Integer.MAX_VALUE) throw new IOException("Session too large to save");
+        return (int) relative;
+    }
+}
@@ -0,0 +1,309 @@
+package sim.service;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for long batch jobs: what every engine in the process has simulated,
+ * where the time inside {@link SimulationEngine#simulateInterval()} goes, and how deep
+ * the queues are.
+ *
+ * Counters and phase times are {@link LongAdder}s, so engines on many threads add to
+ * them without contending; a gauge holds the value last reported by any engine.
+ * Nothing is recorded unless someone is watching: engines check {@link #active()}
+ * once per interval and skip the clock reads and updates while it is null. Watch
+ * through platform JMX (bean {@code sim:type=Metrics}, e.g. in JConsole) or a CSV
+ * file that gets a row every period:
+ * <pre>
+ *     SimMetrics.registerMBean();
+ *     try (SimMetrics.Subscription dump = SimMetrics.dumpTo(path, 10)) {
+ *         ... run the batch ...
+ *     }
+ * </pre>
+ */
+public final class SimMetrics {
+    public enum Counter {
+        INTERVALS, PASSENGERS_CREATED, TICKET_SERVED, CHECKPOINT_SERVED,
+        HOLD_ROOM_ENTERED, MISSED, SNAPSHOT_BYTES
+    }
+
+    public enum Gauge { TICKET_QUEUE, CHECKPOINT_QUEUE }
+
+    /** Steps of {@link SimulationEngine#simulateInterval()}, timed in nanoseconds. */
+    public enum Phase {
+        ARRIVALS, TICKET_SERVICE, CHECKPOINT_ENTRY, CHECKPOINT_SERVICE,
+        HOLD_ROOM_ENTRY, HISTORY, SNAPSHOT
+    }
+
+    /** Stops watching when closed. */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final SimMetrics INSTANCE = new SimMetrics();
+    private static final String MBEAN_NAME = "sim:type=Metrics";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // guarded by SimMetrics.class
+    private static int subscribers;
+    private static Subscription mbeanSubscription;
+
+    private static volatile SimMetrics active;
+
+    private final LongAdder[] counters = adders(Counter.values().length);
+    private final LongAdder[] phases = adders(Phase.values().length);
+    private final AtomicLong[] gauges = new AtomicLong[Gauge.values().length];
+
+    private SimMetrics() {
+        for (int i = 0; i < gauges.length; i++) gauges[i] = new AtomicLong();
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+
+    /** The registry while anyone is subscribed, else null; engines record only then. */
+    static SimMetrics active() {
+        return active;
+    }
+
+    /** The registry, to read; values stand still while nobody is subscribed. */
+    public static SimMetrics get() {
+        return INSTANCE;
+    }
+
+    // ============================
+    // Recording (engines)
+    // ============================
+
+    void add(Counter c, long n) {
+        if (n != 0) counters[c.ordinal()].add(n);
+    }
+
+    void set(Gauge g, long value) {
+        gauges[g.ordinal()].lazySet(value);
+    }
+
+    /** Charge the time since {@code since} to {@code p}; returns now, for the next phase. */
+    long phase(Phase p, long since) {
+        long now = System.nanoTime();
+        phases[p.ordinal()].add(now - since);
+        return now;
+    }
+
+    // ============================
+    // Reading
+    // ============================
+
+    public long get(Counter c) { return counters[c.ordinal()].sum(); }
+
+    public long get(Gauge g) { return gauges[g.ordinal()].get(); }
+
+    /** Total nanoseconds spent in {@code p}. */
+    public long getNanos(Phase p) { return phases[p.ordinal()].sum(); }
+
+    /** Zero the counters and phase times (gauges keep their last value). */
+    public void reset() {
+        for (LongAdder a : counters) a.reset();
+        for (LongAdder a : phases) a.reset();
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (Counter c : Counter.values()) names.add(c.name());
+        for (Gauge g : Gauge.values()) names.add(g.name());
+        for (Phase p : Phase.values()) names.add(p.name() + "_NANOS");
+        return names;
+    }
+
+    private long[] values() {
+        long[] v = new long[counters.length + gauges.length + phases.length];
+        int i = 0;
+        for (Counter c : Counter.values()) v[i++] = get(c);
+        for (Gauge g : Gauge.values()) v[i++] = get(g);
+        for (Phase p : Phase.values()) v[i++] = getNanos(p);
+        return v;
+    }
+
+    // ============================
+    // Subscriptions
+    // ============================
+
+    /** Turn recording on until the returned subscription (and every other) is closed. */
+    public static synchronized Subscription subscribe() {
+        if (subscribers++ == 0) active = INSTANCE;
+        boolean[] open = { true };
+        return () -> unsubscribe(open);
+    }
+
+    private static synchronized void unsubscribe(boolean[] open) {
+        if (!open[0]) return;
+        open[0] = false;
+        if (--subscribers == 0) active = null;
+    }
+
+    /**
+     * Expose the registry as platform MBean {@code sim:type=Metrics} (one attribute
+     * per value, and a reset operation); recording stays on while it is registered.
+     */
+    public static synchronized void registerMBean() {
+        if (mbeanSubscription != null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Bean(), new ObjectName(MBEAN_NAME));
+        } catch (JMException ex) {
+            throw new IllegalStateException("Cannot register metrics MBean: " + ex.getMessage(), ex);
+        }
+        mbeanSubscription = subscribe();
+    }
+
+    public static synchronized void unregisterMBean() {
+        if (mbeanSubscription == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (JMException ex) {
+            throw new IllegalStateException("Cannot unregister metrics MBean: " + ex.getMessage(), ex);
+        } finally {
+            mbeanSubscription.close();
+            mbeanSubscription = null;
+        }
+    }
+
+    /**
+     * Append a CSV row of every value to {@code file} each {@code periodSeconds}
+     * (a header first if the file is new), and a last row on close. Recording stays
+     * on until then. A failed write stops the dump.
+     */
+    public static Subscription dumpTo(Path file, long periodSeconds) {
+        if (periodSeconds < 1) throw new IllegalArgumentException("Dump period must be at least 1 second");
+        Subscription watching = subscribe();
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        Runnable write = () -> {
+            try {
+                INSTANCE.appendRow(file);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot write metrics: " + ex.getMessage(), ex);
+            }
+        };
+        timer.scheduleAtFixedRate(write, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+
+        AtomicInteger open = new AtomicInteger(1);
+        return () -> {
+            if (open.getAndSet(0) == 0) return;
+            timer.shutdownNow();
+            try {
+                timer.awaitTermination(periodSeconds, TimeUnit.SECONDS);
+                write.run();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                watching.close();
+            }
+        };
+    }
+
+    private synchronized void appendRow(Path file) throws IOException {
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            StringBuilder row = new StringBuilder();
+            if (fresh) {
+                row.append("time");
+                for (String n : names()) row.append(',').append(n);
+                row.append('\n');
+            }
+            row.append(LocalDateTime.now().format(TIME));
+            for (long v : values()) row.append(',').append(v);
+            out.append(row).append('\n');
+        }
+    }
+
+    // ============================
+    // JMX
+    // ============================
+
+    /** Every value as a read-only long attribute, plus reset(). */
+    private static final class Bean implements DynamicMBean {
+        private final List<String> names = names();
+
+        @Override
+        public Object getAttribute(String name) throws AttributeNotFoundException {
+            int i = names.indexOf(name);
+            if (i < 0) throw new AttributeNotFoundException(name);
+            return INSTANCE.values()[i];
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] wanted) {
+            long[] v = INSTANCE.values();
+            AttributeList list = new AttributeList();
+            for (String name : wanted) {
+                int i = names.indexOf(name);
+                if (i >= 0) list.add(new Attribute(name, v[i]));
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) {
+            if (!"reset".equals(action)) throw new UnsupportedOperationException(action);
+            INSTANCE.reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[names.size()];
+            for (int i = 0; i < attrs.length; i++) {
+                attrs[i] = new MBeanAttributeInfo(names.get(i), "long", names.get(i), true, false, false);
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Zero counters and phase times",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(SimMetrics.class.getName(), "Simulation metrics", attrs, null,
+                new MBeanOperationInfo[] { reset }, null);
+        }
+    }
+}
@@ -5,18 +5,32 @@ import sim.model.Passenger;
 import sim.ui.GridRenderer;
 import sim.ui.TicketCounterConfig;
 
-import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 
 
-public class SimulationEngine {
+public class SimulationEngine implements RunData {
+    /** Intervals of lane counts a long {@link #headless} run keeps on the heap. */
+    private static final int HEADLESS_WINDOW = 1440;
+
     private final List<Flight> flights;
-    private final Map<Integer, Integer> heldUpsByInterval = new LinkedHashMap<>();
     private final ArrivalGenerator arrivalGenerator;
     private final ArrivalGenerator minuteGenerator;
     private final Map<Flight, int[]> minuteArrivalsMap = new HashMap<>();
+
+    // arrivals per interval (index 0 = nothing simulated yet), appended as intervals
+    // are simulated; slots below maxComputedInterval never change, so frames share it
+    private int[] arrivalsByInterval = new int[256];
+    // replayed arrivals instead of the generated profile (null = profile)
+    private ArrivalSource arrivalSource;
+    private int[] sourceCounts;
+    // lane capacities instead of the configured rates (null = rates)
+    private ServiceSource serviceSource;
     private final Map<Flight, Integer> holdRoomCellSize;
+    private final Map<Flight, Integer> flightIndex = new IdentityHashMap<>();
 
     private final int arrivalSpanMinutes;
     private final int intervalMinutes;
@@ -24,6 +38,13 @@ public class SimulationEngine {
     private final int holdDelayMinutes;       // checkpoint→hold-room delay
     private final int totalIntervals;
 
+    // schedule minute of interval 0 (minutes from midnight of the first day; negative
+    // when the run starts the evening before), and per flight the interval its
+    // arrival window opens and its boarding closes
+    private final int startMinute;
+    private final int[] windowOpen;
+    private final int[] closeAt;
+
     // simulation clock (minutes since globalStart)
     private int currentInterval;
 
@@ -56,11 +77,37 @@ public class SimulationEngine {
     private final List<LinkedList<Passenger>> holdRoomLines;
 
     // histories for the UI panels
-    private final List<List<List<Passenger>>> historyServedTicket = new ArrayList<>();
-    private final List<List<List<Passenger>>> historyQueuedTicket = new ArrayList<>();
-    private final List<List<List<Passenger>>> historyServedCheckpoint = new ArrayList<>();
-    private final List<List<List<Passenger>>> historyQueuedCheckpoint = new ArrayList<>();
-    private final List<List<List<Passenger>>> historyHoldRooms = new ArrayList<>();
+    private final PassengerHistory historyServedTicket = new PassengerHistory();
+    private final PassengerHistory historyQueuedTicket = new PassengerHistory();
+    private final PassengerHistory historyServedCheckpoint = new PassengerHistory();
+    private final PassengerHistory historyQueuedCheckpoint = new PassengerHistory();
+    private final PassengerHistory historyHoldRooms = new PassengerHistory();
+
+    // lane sizes per step, kept as primitives for heat maps and tables
+    private final LaneCountHistory ticketQueueCounts;
+    private final LaneCountHistory ticketServedCounts;
+    private final LaneCountHistory checkpointQueueCounts;
+    private final LaneCountHistory checkpointServedCounts;
+    private final LaneCountHistory holdRoomCounts;
+
+    // passengers still queued after each interval (row = interval - 1), for the
+    // held-ups chart; retired with the lane counts on a rolling run
+    private final LaneCountHistory heldUps = new LaneCountHistory(1);
+    private final int[] heldUpsRow = new int[1];
+
+    // every passenger created this run, indexed by Passenger.getId()
+    private final PassengerRoster passengers;
+
+    // wait-time KPIs, updated as passengers finish each stage
+    private final PassengerStats stats;
+
+    // rolling runs: intervals kept on the heap (0 = all), flights in boarding-close
+    // order and how many of them have been retired
+    private int trailingWindow;
+    private final int[] byClose;
+    private final boolean[] retiredFlights;
+    private int retiredCount;
+    private final SnapshotCodec historyCodec;
 
     private final Random rand = new Random();
 
@@ -78,8 +125,9 @@ public class SimulationEngine {
     /**
      * One snapshot per interval index, where snapshot index == currentInterval value.
      * Index 0 is the initial state before any simulateInterval() has run.
+     * Spilled off-heap; only recently used snapshots stay decoded. Null when not recording.
      */
-    private final List<EngineSnapshot> stateSnapshots = new ArrayList<>();
+    private final SnapshotStore stateSnapshots;
 
     /**
      * The furthest interval index for which we have a snapshot.
@@ -87,11 +135,20 @@ public class SimulationEngine {
      */
     private int maxComputedInterval = 0;
 
+    /**
+     * False for {@link #headless} engines and forks: no lane histories, rewind
+     * snapshots or held-up counts are kept.
+     */
+    private final boolean recording;
+
+    /** False for a {@link #fork}: lane counts aren't kept either. */
+    private final boolean counting;
+
     /**
      * Immutable state snapshot (deep copies of mutable containers).
      * Passenger objects are referenced (not cloned) intentionally.
      */
-    private static final class EngineSnapshot {
+    static final class EngineSnapshot {
         final int currentInterval;
 
         final List<LinkedList<Passenger>> ticketLines;
@@ -112,7 +169,8 @@ public class SimulationEngine {
         final Set<Passenger> ticketCompletedVisible;
         final List<Flight> justClosedFlights;
 
-        final LinkedHashMap<Integer, Integer> heldUpsByInterval;
+        // held-up passengers after this interval; earlier ones live in the engine's column
+        final int heldUps;
 
         EngineSnapshot(
                 int currentInterval,
@@ -129,7 +187,7 @@ public class SimulationEngine {
                 Passenger[] checkpointServing,
                 Set<Passenger> ticketCompletedVisible,
                 List<Flight> justClosedFlights,
-                LinkedHashMap<Integer, Integer> heldUpsByInterval
+                int heldUps
         ) {
             this.currentInterval = currentInterval;
             this.ticketLines = ticketLines;
@@ -150,7 +208,7 @@ public class SimulationEngine {
             this.ticketCompletedVisible = ticketCompletedVisible;
             this.justClosedFlights = justClosedFlights;
 
-            this.heldUpsByInterval = heldUpsByInterval;
+            this.heldUps = heldUps;
         }
     }
 
@@ -163,10 +221,60 @@ public class SimulationEngine {
                             int transitDelayMinutes,
                             int holdDelayMinutes,
                             List<Flight> flights) {
+        this(percentInPerson, counterConfigs, numCheckpoints, checkpointRate, arrivalSpanMinutes,
+             intervalMinutes, transitDelayMinutes, holdDelayMinutes, flights, true, true);
+    }
+
+    /**
+     * An engine for batch jobs that read only results: the passenger stats, the lane
+     * counts and the state as it stands. It keeps no lane histories or rewind
+     * snapshots, so it can't rewind, give frames or be saved, and a run longer than a
+     * day gets a one-day trailing window ({@link #setTrailingWindow}).
+     */
+    static SimulationEngine headless(double percentInPerson,
+                                     List<TicketCounterConfig> counterConfigs,
+                                     int numCheckpoints,
+                                     double checkpointRate,
+                                     int arrivalSpanMinutes,
+                                     int intervalMinutes,
+                                     int transitDelayMinutes,
+                                     int holdDelayMinutes,
+                                     List<Flight> flights) {
+        SimulationEngine engine = new SimulationEngine(percentInPerson, counterConfigs, numCheckpoints,
+                checkpointRate, arrivalSpanMinutes, intervalMinutes, transitDelayMinutes,
+                holdDelayMinutes, flights, false, true);
+        if (engine.getTotalIntervals() > HEADLESS_WINDOW) {
+            engine.setTrailingWindow(HEADLESS_WINDOW);
+        }
+        return engine;
+    }
+
+    /**
+     * With {@code recording} false the engine gets no snapshot store or codec, no
+     * initial snapshot and no hold-room cell sizes (those are for the UI).
+     */
+    private SimulationEngine(double percentInPerson,
+                             List<TicketCounterConfig> counterConfigs,
+                             int numCheckpoints,
+                             double checkpointRate,
+                             int arrivalSpanMinutes,
+                             int intervalMinutes,
+                             int transitDelayMinutes,
+                             int holdDelayMinutes,
+                             List<Flight> flights,
+                             boolean recording,
+                             boolean counting) {
         // assign restored fields
+        this.recording = recording;
+        this.counting = counting;
         this.percentInPerson = percentInPerson;
         this.counterConfigs = counterConfigs;
         this.numCheckpoints = numCheckpoints;
+        this.ticketQueueCounts = new LaneCountHistory(counterConfigs.size());
+        this.ticketServedCounts = new LaneCountHistory(counterConfigs.size());
+        this.checkpointQueueCounts = new LaneCountHistory(numCheckpoints);
+        this.checkpointServedCounts = new LaneCountHistory(numCheckpoints);
+        this.holdRoomCounts = new LaneCountHistory(flights.size());
         this.checkpointRate = checkpointRate;
         this.arrivalSpanMinutes = arrivalSpanMinutes;
         this.intervalMinutes = intervalMinutes;
@@ -174,42 +282,55 @@ public class SimulationEngine {
         this.holdDelayMinutes = holdDelayMinutes;
         this.flights = flights;
 
-        // compute global start time based on earliest departure
-        LocalTime firstDep = flights.stream()
-                .map(Flight::getDepartureTime)
-                .min(LocalTime::compareTo)
-                .orElse(LocalTime.MIDNIGHT);
-        this.globalStart = firstDep.minusMinutes(arrivalSpanMinutes);
+        // compute global start time based on earliest departure; minutes run on the
+        // schedule's clock, so a run may cross midnight and span several days
+        this.startMinute = startMinute(flights, arrivalSpanMinutes);
+        this.globalStart = LocalTime.ofSecondOfDay(Math.floorMod(startMinute, 1440) * 60L);
 
         // compute total intervals up to the latest boarding-close (depTime - 20)
-        long maxClose = flights.stream()
-                .mapToLong(f -> Duration.between(
-                        globalStart,
-                        f.getDepartureTime().minusMinutes(20)
-                ).toMinutes())
-                .max().orElse(0);
-        this.totalIntervals = (int) maxClose + 1;
+        windowOpen = new int[flights.size()];
+        closeAt = new int[flights.size()];
+        int maxClose = 0;
+        for (int i = 0; i < flights.size(); i++) {
+            int dep = flights.get(i).getDepartureMinute() - startMinute;
+            windowOpen[i] = dep - arrivalSpanMinutes;
+            closeAt[i] = dep - 20;
+            maxClose = Math.max(maxClose, closeAt[i]);
+        }
+        this.totalIntervals = maxClose + 1;
+        byClose = IntStream.range(0, flights.size()).boxed()
+                .sorted(Comparator.comparingInt(i -> closeAt[i]))
+                .mapToInt(Integer::intValue).toArray();
+        retiredFlights = new boolean[flights.size()];
 
+        // per-minute profiles are generated as each flight's window opens
         this.arrivalGenerator = new ArrivalGenerator(arrivalSpanMinutes, intervalMinutes);
         this.minuteGenerator = new ArrivalGenerator(arrivalSpanMinutes, 1);
-        for (Flight f : flights) {
-            minuteArrivalsMap.put(f, minuteGenerator.generateArrivals(f));
+
+        for (int i = 0; i < flights.size(); i++) {
+            flightIndex.put(flights.get(i), i);
         }
+        passengers = new PassengerRoster(flights);
+        stats = new PassengerStats(flights.size(), counterConfigs.size(), numCheckpoints);
+        stateSnapshots = recording ? new SnapshotStore(flights, passengers) : null;
+        historyCodec = recording ? new SnapshotCodec(flights, passengers) : null;
 
         holdRoomCellSize = new HashMap<>();
-        for (Flight f : flights) {
-            int total = (int) Math.round(f.getSeats() * f.getFillPercent());
-            int bestCell = GridRenderer.MIN_CELL_SIZE;
-
-            // try every possible row-count from 1 up to total:
-            for (int rows = 1; rows <= total; rows++) {
-                int cols = (total + rows - 1) / rows;           // ceil division
-                int cellByRows = GridRenderer.HOLD_BOX_SIZE / rows;
-                int cellByCols = GridRenderer.HOLD_BOX_SIZE / cols;
-                int cell = Math.min(cellByRows, cellByCols);
-                bestCell = Math.max(bestCell, cell);
+        if (recording) {
+            for (Flight f : flights) {
+                int total = (int) Math.round(f.getSeats() * f.getFillPercent());
+                int bestCell = GridRenderer.MIN_CELL_SIZE;
+
+                // try every possible row-count from 1 up to total:
+                for (int rows = 1; rows <= total; rows++) {
+                    int cols = (total + rows - 1) / rows;           // ceil division
+                    int cellByRows = GridRenderer.HOLD_BOX_SIZE / rows;
+                    int cellByCols = GridRenderer.HOLD_BOX_SIZE / cols;
+                    int cell = Math.min(cellByRows, cellByCols);
+                    bestCell = Math.max(bestCell, cell);
+                }
+                holdRoomCellSize.put(f, bestCell);
             }
-            holdRoomCellSize.put(f, bestCell);
         }
 
         this.currentInterval = 0;
@@ -252,17 +373,18 @@ public class SimulationEngine {
     // ============================
 
     private void captureSnapshot0() {
-        stateSnapshots.clear();
-        heldUpsByInterval.clear();
+        heldUps.clear();
         justClosedFlights.clear();
         ticketCompletedVisible.clear();
-
-        EngineSnapshot s0 = makeSnapshot();
-        stateSnapshots.add(s0);
         maxComputedInterval = 0;
+        if (!recording) return;
+
+        stateSnapshots.clear();
+        EngineSnapshot s0 = makeSnapshot(0);
+        stateSnapshots.put(0, s0);
     }
 
-    private EngineSnapshot makeSnapshot() {
+    private EngineSnapshot makeSnapshot(int heldUpsNow) {
         return new EngineSnapshot(
                 currentInterval,
                 deepCopyLinkedLists(ticketLines),
@@ -278,21 +400,19 @@ public class SimulationEngine {
                 Arrays.copyOf(checkpointServing, checkpointServing.length),
                 new HashSet<>(ticketCompletedVisible),
                 new ArrayList<>(justClosedFlights),
-                new LinkedHashMap<>(heldUpsByInterval)
+                heldUpsNow
         );
     }
 
-    private void appendSnapshotAfterInterval() {
+    /** Returns the bytes the snapshot took on disk. */
+    private int appendSnapshotAfterInterval(int heldUpsNow) {
         // currentInterval has already been incremented at the end of simulateInterval()
-        EngineSnapshot snap = makeSnapshot();
+        EngineSnapshot snap = makeSnapshot(heldUpsNow);
 
-        if (currentInterval < stateSnapshots.size()) {
-            stateSnapshots.set(currentInterval, snap);
-        } else {
-            stateSnapshots.add(snap);
-        }
+        int bytes = stateSnapshots.put(currentInterval, snap);
         // Keep the invariant: maxComputedInterval == highest snapshot index we have
         maxComputedInterval = Math.max(maxComputedInterval, currentInterval);
+        return bytes;
     }
 
     // ============================
@@ -300,6 +420,9 @@ public class SimulationEngine {
     // ============================
 
     private void restoreSnapshot(int targetInterval) {
+        if (!recording) {
+            throw new IllegalStateException("Cannot rewind a forked run");
+        }
         int t = clamp(targetInterval, 0, maxComputedInterval);
         EngineSnapshot s = stateSnapshots.get(t);
 
@@ -352,10 +475,8 @@ public class SimulationEngine {
 
         this.justClosedFlights.clear();
         this.justClosedFlights.addAll(s.justClosedFlights);
-
-        // restore held-ups chart data
-        this.heldUpsByInterval.clear();
-        this.heldUpsByInterval.putAll(s.heldUpsByInterval);
+        // held-ups need no restoring: the column keeps every computed interval and
+        // is read up to currentInterval
     }
 
     private static int clamp(int v, int lo, int hi) {
@@ -368,7 +489,7 @@ public class SimulationEngine {
 
     /** True if we can rewind at least one interval. */
     public boolean canRewind() {
-        return currentInterval > 0;
+        return recording && currentInterval > 0;
     }
 
     /** True if we can fast-forward using already-computed snapshots (no simulation needed). */
@@ -427,7 +548,7 @@ public class SimulationEngine {
 
         // Clear prior histories + runtime state
         clearHistory();
-        heldUpsByInterval.clear();
+        heldUps.clear();
         justClosedFlights.clear();
         ticketCompletedVisible.clear();
         ticketLines.forEach(LinkedList::clear);
@@ -457,15 +578,37 @@ public class SimulationEngine {
 
         int minute = currentInterval; // minutes since globalStart
 
-        // 1) arrivals & boarding-close (unchanged)
-        for (Flight f : flights) {
-            int[] perMin = minuteArrivalsMap.get(f);
-            long offset = Duration.between(globalStart,
-                            f.getDepartureTime().minusMinutes(arrivalSpanMinutes))
-                    .toMinutes();
-            int idx = minute - (int) offset;
-            if (idx >= 0 && idx < perMin.length) {
-                int totalHere = perMin[idx];
+        // null unless someone is watching; then count and time each step
+        SimMetrics metrics = SimMetrics.active();
+        long clock = metrics != null ? System.nanoTime() : 0;
+        int created = passengers.size();
+        int ticketServed = 0;
+        int checkpointServed = 0;
+        int holdEntered = 0;
+        int arrivedNow = 0;
+
+        if (arrivalSource != null) {
+            arrivalSource.arrivalsAt(minute, sourceCounts);
+        }
+
+        // 1) arrivals & boarding-close; flights outside their window are skipped
+        for (int fi = 0; fi < flights.size(); fi++) {
+            if (minute > closeAt[fi] || (arrivalSource == null && minute < windowOpen[fi])) continue;
+            Flight f = flights.get(fi);
+            int idx = minute - windowOpen[fi];
+            boolean inWindow = idx >= 0 && minute < closeAt[fi];
+            int[] perMin = inWindow ? profileOf(f) : null;
+            int totalHere = 0;
+            if (arrivalSource != null) {
+                // replayed: whatever was recorded before boarding close; keep the
+                // profile view in step
+                if (minute < closeAt[fi]) totalHere = sourceCounts[fi];
+                if (inWindow) perMin[idx] = totalHere;
+            } else if (inWindow) {
+                totalHere = perMin[idx];
+            }
+            arrivedNow += totalHere;
+            if (totalHere > 0) {
                 int inPerson = (int) Math.round(totalHere * percentInPerson);
                 int online = totalHere - inPerson;
 
@@ -484,7 +627,7 @@ public class SimulationEngine {
 
                 // enqueue in-person
                 for (int i = 0; i < inPerson; i++) {
-                    Passenger p = new Passenger(f, minute, true);
+                    Passenger p = register(new Passenger(f, minute, true));
                     int best = allowed.get(0);
                     for (int ci : allowed) {
                         if (ticketLines.get(ci).size() < ticketLines.get(best).size()) {
@@ -496,7 +639,7 @@ public class SimulationEngine {
 
                 // online → checkpoint
                 for (int i = 0; i < online; i++) {
-                    Passenger p = new Passenger(f, minute, false);
+                    Passenger p = register(new Passenger(f, minute, false));
                     p.setCheckpointEntryMinute(minute);
                     int bestC = 0;
                     for (int j = 1; j < numCheckpoints; j++) {
@@ -510,10 +653,7 @@ public class SimulationEngine {
             }
 
             // boarding-close detection
-            int closeIdx = (int) Duration.between(globalStart,
-                            f.getDepartureTime().minusMinutes(20))
-                    .toMinutes();
-            if (minute == closeIdx) {
+            if (minute == closeAt[fi]) {
                 justClosedFlights.add(f);
                 ticketLines.forEach(line ->
                         line.stream()
@@ -538,10 +678,12 @@ public class SimulationEngine {
             }
         }
 
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.ARRIVALS, clock);
+
         // 2) ticket-counter service
         for (int c = 0; c < counterConfigs.size(); c++) {
             double rate = counterConfigs.get(c).getRate();
-            counterProgress[c] += rate;
+            counterProgress[c] += serviceSource == null ? rate : serviceSource.ticketCapacity(c, minute, rate);
             int toComplete = (int) Math.floor(counterProgress[c]);
             counterProgress[c] -= toComplete;
 
@@ -553,14 +695,18 @@ public class SimulationEngine {
 
                 Passenger done = counterServing[c];
                 done.setTicketCompletionMinute(minute);
+                stats.ticketServed(flightIndex.get(done.getFlight()), c, minute - done.getArrivalMinute());
                 completedTicketLines.get(c).add(done);
                 ticketCompletedVisible.add(done);
                 pendingToCP.computeIfAbsent(minute + transitDelayMinutes, x -> new ArrayList<>())
                         .add(done);
                 counterServing[c] = null;
+                ticketServed++;
             }
         }
 
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.TICKET_SERVICE, clock);
+
         // 3) move from ticket → checkpoint
         List<Passenger> toMove = pendingToCP.remove(minute);
         if (toMove != null) {
@@ -578,9 +724,13 @@ public class SimulationEngine {
             }
         }
 
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.CHECKPOINT_ENTRY, clock);
+
         // 4) checkpoint service & schedule hold-room
         for (int c = 0; c < numCheckpoints; c++) {
-            checkpointProgress[c] += checkpointRate;
+            checkpointProgress[c] += serviceSource == null
+                    ? checkpointRate
+                    : serviceSource.checkpointCapacity(c, minute, checkpointRate);
             int toComplete = (int) Math.floor(checkpointProgress[c]);
             checkpointProgress[c] -= toComplete;
 
@@ -592,31 +742,33 @@ public class SimulationEngine {
 
                 Passenger done = checkpointServing[c];
                 done.setCheckpointCompletionMinute(minute);
+                stats.checkpointServed(flightIndex.get(done.getFlight()), c, minute - done.getCheckpointEntryMinute());
                 completedCheckpointLines.get(c).add(done);
                 // schedule into hold-room
                 pendingToHold.computeIfAbsent(minute + holdDelayMinutes, x -> new ArrayList<>())
                         .add(done);
                 checkpointServing[c] = null;
+                checkpointServed++;
             }
         }
 
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.CHECKPOINT_SERVICE, clock);
+
         // 5) move from checkpoint → hold-room
         List<Passenger> toHold = pendingToHold.remove(minute);
         if (toHold != null) {
             for (Passenger p : toHold) {
-                // compute this flight's boarding-close interval
-                int closeIdx = (int) Duration.between(
-                        globalStart,
-                        p.getFlight().getDepartureTime().minusMinutes(20)
-                ).toMinutes();
+                // this flight's boarding-close interval
+                int idx = flightIndex.get(p.getFlight());
 
-                if (minute <= closeIdx) {
+                if (minute <= closeAt[idx]) {
                     // still open: enqueue as before
                     p.setHoldRoomEntryMinute(minute);
-                    int idx = flights.indexOf(p.getFlight());
                     int seq = holdRoomLines.get(idx).size() + 1;
                     p.setHoldRoomSequence(seq);
                     holdRoomLines.get(idx).add(p);
+                    stats.enteredHoldRoom(idx, minute - p.getArrivalMinute(), closeAt[idx] - minute);
+                    holdEntered++;
                 } else {
                     // boarding closed → mark missed so removeMissedPassengers will purge
                     p.setMissed(true);
@@ -624,24 +776,81 @@ public class SimulationEngine {
             }
         }
 
+        // nobody reaches a hold room after its close
+        long missed = 0;
+        for (Flight f : justClosedFlights) {
+            stats.closed(flightIndex.get(f));
+            missed += stats.getMissed(flightIndex.get(f));
+        }
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.HOLD_ROOM_ENTRY, clock);
+
         // 6) record history for UI
-        historyServedTicket.add(deepCopyPassengerLists(completedTicketLines));
-        historyQueuedTicket.add(deepCopyPassengerLists(ticketLines));
-        historyServedCheckpoint.add(deepCopyPassengerLists(completedCheckpointLines));
-        historyQueuedCheckpoint.add(deepCopyPassengerLists(checkpointLines));
-        historyHoldRooms.add(deepCopyPassengerLists(holdRoomLines));  // hold-rooms history
+        if (recording) recordInterval();
+        if (counting) recordLaneCounts();
+        if (metrics != null) clock = metrics.phase(SimMetrics.Phase.HISTORY, clock);
 
         // 7) purge missed passengers
         removeMissedPassengers();
 
         currentInterval++;
 
-        int stillInTicketQueue = ticketLines.stream().mapToInt(java.util.List::size).sum();
-        int stillInCheckpointQueue = checkpointLines.stream().mapToInt(java.util.List::size).sum();
-        heldUpsByInterval.put(currentInterval, stillInTicketQueue + stillInCheckpointQueue);
+        // queue totals feed only the held-ups chart and the metrics gauges
+        int stillInTicketQueue = 0;
+        int stillInCheckpointQueue = 0;
+        if (recording || metrics != null) {
+            stillInTicketQueue = ticketLines.stream().mapToInt(java.util.List::size).sum();
+            stillInCheckpointQueue = checkpointLines.stream().mapToInt(java.util.List::size).sum();
+        }
+        int snapshotBytes = 0;
+        if (recording) {
+            recordArrivals(currentInterval, arrivedNow);
+            heldUpsRow[0] = stillInTicketQueue + stillInCheckpointQueue;
+            heldUps.append(heldUpsRow);
+
+            // snapshot after this interval completes (currentInterval already incremented)
+            snapshotBytes = appendSnapshotAfterInterval(heldUpsRow[0]);
+        }
+        if (trailingWindow > 0) {
+            retireBefore(currentInterval - trailingWindow);
+        }
+
+        if (metrics != null) {
+            metrics.phase(SimMetrics.Phase.SNAPSHOT, clock);
+            metrics.add(SimMetrics.Counter.INTERVALS, 1);
+            metrics.add(SimMetrics.Counter.PASSENGERS_CREATED, passengers.size() - created);
+            metrics.add(SimMetrics.Counter.TICKET_SERVED, ticketServed);
+            metrics.add(SimMetrics.Counter.CHECKPOINT_SERVED, checkpointServed);
+            metrics.add(SimMetrics.Counter.HOLD_ROOM_ENTERED, holdEntered);
+            metrics.add(SimMetrics.Counter.MISSED, missed);
+            metrics.add(SimMetrics.Counter.SNAPSHOT_BYTES, snapshotBytes);
+            metrics.set(SimMetrics.Gauge.TICKET_QUEUE, stillInTicketQueue);
+            metrics.set(SimMetrics.Gauge.CHECKPOINT_QUEUE, stillInCheckpointQueue);
+        }
+    }
+
+    private void recordArrivals(int interval, int arrived) {
+        if (interval >= arrivalsByInterval.length) {
+            // a new array, so frames already handed out keep reading the old one
+            arrivalsByInterval = Arrays.copyOf(arrivalsByInterval,
+                    Math.max(interval + 1, arrivalsByInterval.length * 2));
+        }
+        arrivalsByInterval[interval] = arrived;
+    }
 
-        // snapshot after this interval completes (currentInterval already incremented)
-        appendSnapshotAfterInterval();
+    private void recordInterval() {
+        historyServedTicket.add(deepCopyPassengerLists(completedTicketLines));
+        historyQueuedTicket.add(deepCopyPassengerLists(ticketLines));
+        historyServedCheckpoint.add(deepCopyPassengerLists(completedCheckpointLines));
+        historyQueuedCheckpoint.add(deepCopyPassengerLists(checkpointLines));
+        historyHoldRooms.add(deepCopyPassengerLists(holdRoomLines));  // hold-rooms history
+    }
+
+    private void recordLaneCounts() {
+        ticketQueueCounts.append(laneSizes(ticketLines));
+        ticketServedCounts.append(laneSizes(completedTicketLines));
+        checkpointQueueCounts.append(laneSizes(checkpointLines));
+        checkpointServedCounts.append(laneSizes(completedCheckpointLines));
+        holdRoomCounts.append(laneSizes(holdRoomLines));
     }
 
     // === ACCESSORS & UTILITY ===
@@ -658,15 +867,285 @@ public class SimulationEngine {
         completedCheckpointLines.forEach(line -> line.removeIf(Passenger::isMissed));
     }
 
-    // deep-copy helper for UI history (unchanged behavior)
+    // deep-copy helper for UI history; empty lanes (most hold rooms) share one list
     private List<List<Passenger>> deepCopyPassengerLists(List<LinkedList<Passenger>> original) {
-        List<List<Passenger>> copy = new ArrayList<>();
+        List<List<Passenger>> copy = new ArrayList<>(original.size());
         for (LinkedList<Passenger> line : original) {
-            copy.add(new ArrayList<>(line));
+            copy.add(line.isEmpty() ? Collections.emptyList() : new ArrayList<>(line));
+        }
+        return copy;
+    }
+
+    // ============================
+    // Arrival and service sources
+    // ============================
+
+    /**
+     * Take arrivals from {@code source} instead of the generated profile (null goes
+     * back to the profile). Only before anything has been simulated. The per-minute
+     * arrivals map then shows what the source delivered for the minutes simulated.
+     */
+    public void setArrivalSource(ArrivalSource source) {
+        if (maxComputedInterval > 0) {
+            throw new IllegalStateException("Arrival source must be set before simulating");
+        }
+        arrivalSource = source;
+        // profiles are made again on demand: empty for a source, else generated
+        minuteArrivalsMap.clear();
+        if (source != null) {
+            source.bind(globalStart, flights);
+            sourceCounts = new int[flights.size()];
+        } else {
+            sourceCounts = null;
+        }
+    }
+
+    public ArrivalSource getArrivalSource() { return arrivalSource; }
+
+    /**
+     * Take each lane's per-minute capacity from {@code source} instead of its rate
+     * (null goes back to the rates). Only before anything has been simulated.
+     */
+    public void setServiceSource(ServiceSource source) {
+        if (maxComputedInterval > 0) {
+            throw new IllegalStateException("Service source must be set before simulating");
+        }
+        serviceSource = source;
+    }
+
+    public ServiceSource getServiceSource() { return serviceSource; }
+
+    /** The per-minute arrivals of {@code f}'s window, made when first needed. */
+    private int[] profileOf(Flight f) {
+        int[] perMin = minuteArrivalsMap.get(f);
+        if (perMin == null) {
+            perMin = arrivalSource != null
+                    ? new int[minuteGenerator.getTotalMinutes()]
+                    : minuteGenerator.generateArrivals(f);
+            minuteArrivalsMap.put(f, perMin);
+        }
+        return perMin;
+    }
+
+    /** Replace the per-minute arrivals (a reopened session's saved profile). */
+    void adoptArrivals(Map<Flight, int[]> perMinute) {
+        for (Flight f : flights) {
+            int[] saved = perMinute.get(f);
+            if (saved != null) minuteArrivalsMap.put(f, Arrays.copyOf(saved, saved.length));
+        }
+    }
+
+    // ============================
+    // Rolling runs
+    // ============================
+
+    /**
+     * Keep only the last {@code intervals} intervals of lane history, lane counts and
+     * passengers on the heap, so a multi-day schedule runs in flat memory. Older steps
+     * are retired to temporary files as the run advances and read back when asked
+     * for; rewind snapshots are kept off-heap anyway. A flight whose boarding closed
+     * before the window is retired too: its hold room is emptied and its generated
+     * arrival profile dropped. 0 (the default) keeps everything.
+     * Only before anything has been simulated.
+     */
+    public void setTrailingWindow(int intervals) {
+        if (maxComputedInterval > 0 || currentInterval > 0) {
+            throw new IllegalStateException("Trailing window must be set before simulating");
+        }
+        if (intervals < 0) {
+            throw new IllegalArgumentException("Trailing window must not be negative");
+        }
+        trailingWindow = intervals;
+    }
+
+    public int getTrailingWindow() { return trailingWindow; }
+
+    /** Retire what lies before {@code interval}; see {@link #setTrailingWindow}. */
+    private void retireBefore(int interval) {
+        if (interval <= 0) return;
+        if (recording) {
+            for (PassengerHistory h : laneHistories()) {
+                h.retire(interval, historyCodec);
+            }
+            heldUps.retire(interval);
+        }
+        if (counting) {
+            ticketQueueCounts.retire(interval);
+            ticketServedCounts.retire(interval);
+            checkpointQueueCounts.retire(interval);
+            checkpointServedCounts.retire(interval);
+            holdRoomCounts.retire(interval);
+        }
+
+        int before = retiredCount;
+        while (retiredCount < byClose.length && closeAt[byClose[retiredCount]] < interval) {
+            int i = byClose[retiredCount++];
+            retiredFlights[i] = true;
+            holdRoomLines.get(i).clear();
+        }
+        if (retiredCount == before) return;
+
+        if (arrivalSource == null) {
+            minuteArrivalsMap.keySet().removeIf(f -> retiredFlights[flightIndex.get(f)]);
+        }
+        // a straggler still queued or walking waits for a later pass
+        Set<Passenger> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+        ticketLines.forEach(inUse::addAll);
+        completedTicketLines.forEach(inUse::addAll);
+        checkpointLines.forEach(inUse::addAll);
+        completedCheckpointLines.forEach(inUse::addAll);
+        pendingToCP.values().forEach(inUse::addAll);
+        pendingToHold.values().forEach(inUse::addAll);
+        inUse.addAll(Arrays.asList(counterServing));
+        inUse.addAll(Arrays.asList(checkpointServing));
+        for (int id = passengers.firstLive(); id < passengers.size(); id++) {
+            Passenger p = passengers.live(id);
+            if (p != null && retiredFlights[flightIndex.get(p.getFlight())] && !inUse.contains(p)) {
+                passengers.retire(p);
+            }
+        }
+    }
+
+    // ============================
+    // Forking
+    // ============================
+
+    /**
+     * A copy of this run at the current interval that goes on by itself, taking
+     * arrivals and service from the given sources from here on (null for the
+     * profile and rates); for splitting searches, which clone promising states and
+     * resimulate them. The copy starts from the same state a rewind snapshot holds,
+     * with its own copies of the passengers still in play, so the two runs can't
+     * disturb each other. It keeps no history, lane counts or snapshots and can't
+     * rewind, which keeps forking and stepping cheap.
+     * Not for a rolling run that has started retiring flights.
+     */
+    SimulationEngine fork(ArrivalSource arrivals, ServiceSource service) {
+        if (retiredCount > 0) {
+            throw new IllegalStateException("Cannot fork a rolling run after it has retired flights");
+        }
+        SimulationEngine copy = new SimulationEngine(percentInPerson, counterConfigs, numCheckpoints,
+                checkpointRate, arrivalSpanMinutes, intervalMinutes, transitDelayMinutes,
+                holdDelayMinutes, flights, false, false);
+        copy.setArrivalSource(arrivals);
+        copy.setServiceSource(service);
+        if (arrivals == null) copy.adoptArrivals(minuteArrivalsMap);
+        copy.currentInterval = currentInterval;
+        copy.maxComputedInterval = currentInterval;
+
+        Map<Passenger, Passenger> clones = new IdentityHashMap<>();
+        Function<Passenger, Passenger> clone = p -> p == null ? null : clones.computeIfAbsent(p, Passenger::new);
+        copyLines(ticketLines, copy.ticketLines, clone);
+        copyLines(completedTicketLines, copy.completedTicketLines, clone);
+        copyLines(checkpointLines, copy.checkpointLines, clone);
+        copyLines(completedCheckpointLines, copy.completedCheckpointLines, clone);
+        copyLines(holdRoomLines, copy.holdRoomLines, clone);
+        System.arraycopy(counterProgress, 0, copy.counterProgress, 0, counterProgress.length);
+        System.arraycopy(checkpointProgress, 0, copy.checkpointProgress, 0, checkpointProgress.length);
+        copyPending(pendingToCP, copy.pendingToCP, clone);
+        copyPending(pendingToHold, copy.pendingToHold, clone);
+        for (int c = 0; c < counterServing.length; c++) copy.counterServing[c] = clone.apply(counterServing[c]);
+        for (int c = 0; c < checkpointServing.length; c++) copy.checkpointServing[c] = clone.apply(checkpointServing[c]);
+        for (Passenger p : ticketCompletedVisible) copy.ticketCompletedVisible.add(clone.apply(p));
+        copy.justClosedFlights.addAll(justClosedFlights);
+        copy.stats.merge(stats);
+
+        // passengers out of play are never touched again and can be shared
+        for (int id = 0; id < passengers.size(); id++) {
+            Passenger p = passengers.live(id);
+            Passenger c = clones.get(p);
+            copy.passengers.add(c != null ? c : p);
         }
         return copy;
     }
 
+    private static void copyLines(List<LinkedList<Passenger>> from, List<LinkedList<Passenger>> to,
+                                  Function<Passenger, Passenger> clone) {
+        for (int i = 0; i < from.size(); i++) {
+            LinkedList<Passenger> line = to.get(i);
+            for (Passenger p : from.get(i)) line.add(clone.apply(p));
+        }
+    }
+
+    private static void copyPending(Map<Integer, List<Passenger>> from, Map<Integer, List<Passenger>> to,
+                                    Function<Passenger, Passenger> clone) {
+        for (Map.Entry<Integer, List<Passenger>> e : from.entrySet()) {
+            List<Passenger> list = new ArrayList<>(e.getValue().size());
+            for (Passenger p : e.getValue()) list.add(clone.apply(p));
+            to.put(e.getKey(), list);
+        }
+    }
+
+    // ============================
+    // Saved sessions
+    // ============================
+
+    /** Passenger histories in lane-count order (ticket queue/served, checkpoint queue/served, hold rooms). */
+    PassengerHistory[] laneHistories() {
+        return new PassengerHistory[] {
+            historyQueuedTicket, historyServedTicket,
+            historyQueuedCheckpoint, historyServedCheckpoint,
+            historyHoldRooms
+        };
+    }
+
+    /** Rewind snapshot {@code interval}, 0..maxComputedInterval. */
+    EngineSnapshot snapshotAt(int interval) {
+        return stateSnapshots.get(interval);
+    }
+
+    /**
+     * Take over a saved session's results: its passenger roster, lane counts,
+     * held-up counts (intervals 1..snapshots - 1) and snapshots (decoded through {@code loader} on demand), then restore
+     * {@code interval}. The lane histories are loaded by the caller beforehand.
+     * Only valid on a freshly constructed engine with the session's configuration.
+     */
+    void adoptSession(List<Passenger> roster,
+                      LaneCounts[] counts,
+                      int[] heldUpCounts,
+                      int snapshots,
+                      IntFunction<EngineSnapshot> loader,
+                      int interval) {
+        passengers.clear();
+        passengers.addAll(roster);
+        ticketQueueCounts.load(counts[0]);
+        ticketServedCounts.load(counts[1]);
+        checkpointQueueCounts.load(counts[2]);
+        checkpointServedCounts.load(counts[3]);
+        holdRoomCounts.load(counts[4]);
+        for (int n : heldUpCounts) {
+            heldUpsRow[0] = n;
+            heldUps.append(heldUpsRow);
+        }
+        stateSnapshots.preload(snapshots, loader);
+        maxComputedInterval = snapshots - 1;
+        for (int i = 1; i <= maxComputedInterval; i++) {
+            recordArrivals(i, profileArrivalsAtMinute(i - 1));
+        }
+        restoreSnapshot(interval);
+    }
+
+    /** Schedule minute of interval 0: the first departure less the arrival span. */
+    static int startMinute(List<Flight> flights, int arrivalSpanMinutes) {
+        return flights.stream().mapToInt(Flight::getDepartureMinute).min().orElse(0)
+                - arrivalSpanMinutes;
+    }
+
+    private Passenger register(Passenger p) {
+        p.setId(passengers.size());
+        passengers.add(p);
+        stats.arrived(flightIndex.get(p.getFlight()));
+        return p;
+    }
+
+    private static int[] laneSizes(List<LinkedList<Passenger>> lines) {
+        int[] sizes = new int[lines.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = lines.get(i).size();
+        }
+        return sizes;
+    }
+
     // === CLEAR HISTORY ===
     private void clearHistory() {
         historyArrivals.clear();
@@ -683,6 +1162,15 @@ public class SimulationEngine {
         historyServedCheckpoint.clear();
         historyQueuedCheckpoint.clear();
         historyHoldRooms.clear();
+        ticketQueueCounts.clear();
+        ticketServedCounts.clear();
+        checkpointQueueCounts.clear();
+        checkpointServedCounts.clear();
+        holdRoomCounts.clear();
+        passengers.clear();
+        stats.clear();
+        Arrays.fill(retiredFlights, false);
+        retiredCount = 0;
 
         Arrays.fill(counterProgress, 0);
         Arrays.fill(checkpointProgress, 0);
@@ -742,9 +1230,32 @@ public class SimulationEngine {
     public List<List<List<Passenger>>> getHistoryQueuedCheckpoint() { return historyQueuedCheckpoint; }
     public List<List<List<Passenger>>> getHistoryHoldRooms() { return historyHoldRooms; }
 
+    /** Hold-room occupancy per flight per step; readable from any thread. */
+    public LaneCountHistory getHoldRoomCounts() { return holdRoomCounts; }
+
+    /** Every passenger created so far, indexed by {@link Passenger#getId()}. */
+    public List<Passenger> getPassengers() { return Collections.unmodifiableList(passengers); }
+
+    /** Wait-time KPIs of the intervals simulated so far, kept up to date as the run goes. */
+    public PassengerStats getPassengerStats() { return stats; }
+
+    /** Ticket queue length per counter per step; readable from any thread. */
+    public LaneCountHistory getTicketQueueCounts() { return ticketQueueCounts; }
+
+    /** Passengers served so far per counter per step; readable from any thread. */
+    public LaneCountHistory getTicketServedCounts() { return ticketServedCounts; }
+
+    /** Checkpoint queue length per lane per step; readable from any thread. */
+    public LaneCountHistory getCheckpointQueueCounts() { return checkpointQueueCounts; }
+
+    /** Passengers through each checkpoint so far per step; readable from any thread. */
+    public LaneCountHistory getCheckpointServedCounts() { return checkpointServedCounts; }
+
     // === PUBLIC GETTERS ===
     public List<Flight> getFlights() { return flights; }
     public int getArrivalSpan() { return arrivalSpanMinutes; }
+    public LocalTime getGlobalStart() { return globalStart; }
+    public int getStartMinute() { return startMinute; }
     public int getInterval() { return intervalMinutes; }
     public int getTotalIntervals() { return totalIntervals; }
     public int getCurrentInterval() { return currentInterval; }
@@ -753,9 +1264,15 @@ public class SimulationEngine {
     public List<LinkedList<Passenger>> getCompletedTicketLines() { return completedTicketLines; }
     public List<LinkedList<Passenger>> getCompletedCheckpointLines() { return completedCheckpointLines; }
     public List<LinkedList<Passenger>> getHoldRoomLines() { return holdRoomLines; }
-    public Map<Flight, int[]> getMinuteArrivalsMap() { return Collections.unmodifiableMap(minuteArrivalsMap); }
+    public Map<Flight, int[]> getMinuteArrivalsMap() {
+        for (Flight f : flights) profileOf(f);
+        return Collections.unmodifiableMap(minuteArrivalsMap);
+    }
     public int getTransitDelayMinutes() { return transitDelayMinutes; }
     public int getHoldDelayMinutes() { return holdDelayMinutes; }
+    public double getPercentInPerson() { return percentInPerson; }
+    public int getNumCheckpoints() { return numCheckpoints; }
+    public double getCheckpointRate() { return checkpointRate; }
 
     public int getHoldRoomCellSize(Flight f) {
         return holdRoomCellSize.getOrDefault(f, GridRenderer.MIN_CELL_SIZE);
@@ -784,33 +1301,127 @@ public class SimulationEngine {
     }
 
     public Map<Integer, Integer> getHoldUpsByInterval() {
-        return new LinkedHashMap<>(heldUpsByInterval); // protect original
+        int[] counts = heldUpCounts();
+        Map<Integer, Integer> out = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            out.put(i + 1, counts[i]);
+        }
+        return out;
     }
 
-    // === ARRIVALS METRICS (for live graph) ===
-
     /**
-    * Total passenger arrivals at a specific minute since globalStart.
-    * This matches the same indexing logic used in simulateInterval().
-    */
-    public int getTotalArrivalsAtMinute(int minuteSinceGlobalStart) {
-        int sum = 0;
+     * Held-up passengers per interval as a primitive series (x = interval, in order),
+     * for charts; avoids boxing a copy of the whole map.
+     */
+    public SeriesBuffer getHeldUpsSeries() {
+        int[] counts = heldUpCounts();
+        SeriesBuffer out = new SeriesBuffer(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            out.add(i + 1, counts[i]);
+        }
+        return out;
+    }
 
-        for (Flight f : flights) {
-            int[] perMin = minuteArrivalsMap.get(f);
-            if (perMin == null) continue;
+    /** Held-up passengers after intervals 1..currentInterval. */
+    private int[] heldUpCounts() {
+        return heldUpCounts(currentInterval);
+    }
+
+    /** Held-up passengers after intervals 1..n (fewer if not computed yet). */
+    int[] heldUpCounts(int n) {
+        n = Math.min(n, heldUps.steps());
+        int[] counts = new int[n];
+        heldUps.copyRows(0, n, counts);
+        return counts;
+    }
 
-            long offset = Duration.between(
-                    globalStart,
-                    f.getDepartureTime().minusMinutes(arrivalSpanMinutes)
-            ).toMinutes();
+    // === RENDER FRAMES ===
 
-            int idx = minuteSinceGlobalStart - (int) offset;
-            if (idx >= 0 && idx < perMin.length) {
-                sum += perMin[idx];
+    /**
+     * Build an immutable render frame for an already-computed interval.
+     * Reads history, so call it on the thread driving the engine (or while
+     * holding the engine's monitor, as PlaybackDriver does).
+     */
+    public IntervalFrame frameAt(int interval) {
+        int t = clamp(interval, 0, maxComputedInterval);
+        int step = t - 1;
+        if (step < 0 || step >= historyQueuedTicket.size()) {
+            return IntervalFrame.empty(maxComputedInterval, totalIntervals,
+                    ticketLines.size(), checkpointLines.size(), holdRoomLines.size(),
+                    arrivalsByInterval);
+        }
+
+        List<List<Passenger>> served = historyServedTicket.get(step);
+        List<LaneCells> visible = new ArrayList<>(served.size());
+        int[] servedCounts = new int[served.size()];
+        List<Passenger> walking = new ArrayList<>();
+        for (int i = 0; i < served.size(); i++) {
+            walking.clear();
+            for (Passenger p : served.get(i)) {
+                if (p.getTicketCompletionMinute() + transitDelayMinutes > step) {
+                    walking.add(p);
+                }
             }
+            visible.add(LaneCells.pack(walking, flightIndex, false));
+            servedCounts[i] = served.get(i).size();
         }
-        return sum;
+
+        List<Flight> closed = new ArrayList<>();
+        for (int i = 0; i < flights.size(); i++) {
+            if (closeAt[i] == step) {
+                closed.add(flights.get(i));
+            }
+        }
+
+        return new IntervalFrame(
+                t,
+                maxComputedInterval,
+                totalIntervals,
+                packLanes(historyQueuedTicket.get(step), false),
+                visible,
+                servedCounts,
+                packLanes(historyQueuedCheckpoint.get(step), false),
+                packLanes(historyServedCheckpoint.get(step), false),
+                packLanes(historyHoldRooms.get(step), true),
+                closed,
+                arrivalsByInterval
+        );
+    }
+
+    private List<LaneCells> packLanes(List<List<Passenger>> lanes, boolean holdRooms) {
+        List<LaneCells> packed = new ArrayList<>(lanes.size());
+        for (List<Passenger> lane : lanes) {
+            packed.add(LaneCells.pack(lane, flightIndex, holdRooms));
+        }
+        return packed;
+    }
+
+    /** Frame for the interval the engine currently sits on. */
+    public IntervalFrame currentFrame() {
+        return frameAt(currentInterval);
+    }
+
+    /**
+     * Read-only view pinned to {@code interval} (clamped to what has been computed).
+     * Safe to call from any thread; the view never moves this engine's clock.
+     */
+    public synchronized EngineView viewAt(int interval) {
+        return new EngineView(this, clamp(interval, 0, maxComputedInterval));
+    }
+
+    /** Interval at which {@code f}'s boarding closes. */
+    public int getBoardingCloseInterval(Flight f) {
+        return closeAt[flightIndex.get(f)];
+    }
+
+    // === ARRIVALS METRICS (for live graph) ===
+
+    /**
+     * Total passenger arrivals at a specific minute since globalStart, as simulated;
+     * 0 for minutes not simulated yet.
+     */
+    public int getTotalArrivalsAtMinute(int minuteSinceGlobalStart) {
+        return getTotalArrivalsAtInterval(minuteSinceGlobalStart + 1);
     }
 
     /**
@@ -819,8 +1430,23 @@ public class SimulationEngine {
     * interval i (>=1) corresponds to arrivals that happened during minute (i-1).
     */
     public int getTotalArrivalsAtInterval(int intervalIndex) {
-        if (intervalIndex <= 0) return 0;
-        return getTotalArrivalsAtMinute(intervalIndex - 1);
+        if (intervalIndex <= 0 || intervalIndex > maxComputedInterval) return 0;
+        return arrivalsByInterval[intervalIndex];
+    }
+
+    /** Arrivals the per-minute profiles give for a minute (a reopened session's totals). */
+    private int profileArrivalsAtMinute(int minute) {
+        int sum = 0;
+        for (int i = 0; i < flights.size(); i++) {
+            int idx = minute - windowOpen[i];
+            if (idx < 0 || minute >= closeAt[i]) continue;
+
+            int[] perMin = profileOf(flights.get(i));
+            if (idx < perMin.length) {
+                sum += perMin[idx];
+            }
+        }
+        return sum;
     }
 
 }
@@ -0,0 +1,302 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary encoding of engine snapshots and lane lists, shared by the off-heap
+ * {@link SnapshotStore} and saved sessions.
+ *
+ * Passengers are written as roster ids ({@link Passenger#getId()}), flights as
+ * indices. A lane can be written relative to a base lane (the same lane one step
+ * earlier, or the recorded history of the same step): it becomes a short list of
+ * "copy base[start, start + len)" runs and literal ids, so a queue that shifted by a
+ * few passengers costs a few ints instead of its full length.
+ *
+ * Lane op format: int opCount, then per op either {@code start >= 0, len} (copy from
+ * base) or {@code -n} followed by n ids.
+ *
+ * Encoding uses internal scratch space (one thread at a time); decoding only reads
+ * and may run on any thread.
+ */
+final class SnapshotCodec {
+    private final List<Flight> flights;
+    private final Map<Flight, Integer> flightIndex = new IdentityHashMap<>();
+    private final List<Passenger> roster;
+
+    // position of each passenger in the current base lane by id - baseLo, -1 when absent
+    private int[] basePos = new int[0];
+    private int baseLo;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotCodec(List<Flight> flights, List<Passenger> roster) {
+        this.flights = flights;
+        this.roster = roster;
+        for (int i = 0; i < flights.size(); i++) {
+            flightIndex.put(flights.get(i), i);
+        }
+    }
+
+    // ============================
+    // Snapshots
+    // ============================
+
+    /**
+     * Encode a snapshot. {@code base} holds, in snapshot order, a base for each of the
+     * five lane groups (ticket, completed ticket, checkpoint, completed checkpoint,
+     * hold rooms), or is null to write every lane in full.
+     *
+     * @return the record, valid until the next encode call
+     */
+    ByteBuffer encode(SimulationEngine.EngineSnapshot s, List<? extends List<? extends List<Passenger>>> base) {
+        scratch.clear();
+        putInt(s.currentInterval);
+        putLanes(s.ticketLines, base == null ? null : base.get(0));
+        putLanes(s.completedTicketLines, base == null ? null : base.get(1));
+        putLanes(s.checkpointLines, base == null ? null : base.get(2));
+        putLanes(s.completedCheckpointLines, base == null ? null : base.get(3));
+        putLanes(s.holdRoomLines, base == null ? null : base.get(4));
+        putDoubles(s.counterProgress);
+        putDoubles(s.checkpointProgress);
+        putPending(s.pendingToCP);
+        putPending(s.pendingToHold);
+        putServing(s.counterServing);
+        putServing(s.checkpointServing);
+        putInt(s.ticketCompletedVisible.size());
+        for (Passenger p : s.ticketCompletedVisible) putInt(p.getId());
+        putInt(s.justClosedFlights.size());
+        for (Flight f : s.justClosedFlights) putInt(flightIndex.get(f));
+        putInt(s.heldUps);
+        scratch.flip();
+        return scratch;
+    }
+
+    SimulationEngine.EngineSnapshot decode(ByteBuffer b, List<? extends List<? extends List<Passenger>>> base) {
+        int currentInterval = b.getInt();
+        List<LinkedList<Passenger>> ticketLines = linked(getLanes(b, base == null ? null : base.get(0)));
+        List<LinkedList<Passenger>> completedTicketLines = linked(getLanes(b, base == null ? null : base.get(1)));
+        List<LinkedList<Passenger>> checkpointLines = linked(getLanes(b, base == null ? null : base.get(2)));
+        List<LinkedList<Passenger>> completedCheckpointLines = linked(getLanes(b, base == null ? null : base.get(3)));
+        List<LinkedList<Passenger>> holdRoomLines = linked(getLanes(b, base == null ? null : base.get(4)));
+        double[] counterProgress = getDoubles(b);
+        double[] checkpointProgress = getDoubles(b);
+        Map<Integer, List<Passenger>> pendingToCP = getPending(b);
+        Map<Integer, List<Passenger>> pendingToHold = getPending(b);
+        Passenger[] counterServing = getServing(b);
+        Passenger[] checkpointServing = getServing(b);
+        int nVisible = b.getInt();
+        Set<Passenger> visible = new HashSet<>();
+        for (int i = 0; i < nVisible; i++) visible.add(roster.get(b.getInt()));
+        int nClosed = b.getInt();
+        List<Flight> closed = new ArrayList<>(nClosed);
+        for (int i = 0; i < nClosed; i++) closed.add(flights.get(b.getInt()));
+        int heldUps = b.getInt();
+
+        return new SimulationEngine.EngineSnapshot(
+            currentInterval,
+            ticketLines, completedTicketLines, checkpointLines, completedCheckpointLines, holdRoomLines,
+            counterProgress, checkpointProgress,
+            pendingToCP, pendingToHold,
+            counterServing, checkpointServing,
+            visible, closed, heldUps);
+    }
+
+    // ============================
+    // Lanes
+    // ============================
+
+    /** Encode one group of lanes on its own (e.g. a history step). */
+    ByteBuffer encodeLanes(List<? extends List<Passenger>> lanes, List<? extends List<Passenger>> base) {
+        scratch.clear();
+        putLanes(lanes, base);
+        scratch.flip();
+        return scratch;
+    }
+
+    private void putLanes(List<? extends List<Passenger>> lanes, List<? extends List<Passenger>> base) {
+        putInt(lanes.size());
+        for (int i = 0; i < lanes.size(); i++) {
+            putLane(lanes.get(i), base == null || i >= base.size() ? null : base.get(i));
+        }
+    }
+
+    private void putLane(List<Passenger> lane, List<Passenger> base) {
+        int span = 0;
+        if (base != null) {
+            // sized by the ids in the base, not the whole roster, so long runs stay small
+            int lo = Integer.MAX_VALUE, hi = -1;
+            for (Passenger p : base) {
+                lo = Math.min(lo, p.getId());
+                hi = Math.max(hi, p.getId());
+            }
+            baseLo = hi < 0 ? 0 : lo;
+            span = hi < 0 ? 0 : hi - lo + 1;
+            if (basePos.length < span) {
+                int old = basePos.length;
+                basePos = Arrays.copyOf(basePos, Math.max(span, old * 2));
+                Arrays.fill(basePos, old, basePos.length, -1);
+            }
+            int j = 0;
+            for (Passenger p : base) basePos[p.getId() - lo] = j++;
+        }
+
+        int countAt = scratch.position();
+        putInt(0);
+        int ops = 0;
+        int headerAt = -1;   // where the open op's first int sits
+        int runEnd = -1;     // next base index that would extend the open run
+        int literals = 0;    // ids in the open literal op (0 = open op is a run)
+        for (Passenger p : lane) {
+            int k = p.getId() - baseLo;
+            int at = k < 0 || k >= span ? -1 : basePos[k];
+            if (at >= 0) {
+                if (headerAt >= 0 && literals == 0 && at == runEnd) {
+                    runEnd++;
+                    continue;
+                }
+                closeOp(headerAt, literals, runEnd);
+                headerAt = scratch.position();
+                putInt(at);
+                putInt(0);
+                runEnd = at + 1;
+                literals = 0;
+                ops++;
+            } else {
+                if (headerAt < 0 || literals == 0) {
+                    closeOp(headerAt, literals, runEnd);
+                    headerAt = scratch.position();
+                    putInt(0);
+                    literals = 0;
+                    ops++;
+                }
+                putInt(p.getId());
+                literals++;
+            }
+        }
+        closeOp(headerAt, literals, runEnd);
+        scratch.putInt(countAt, ops);
+
+        if (base != null) {
+            for (Passenger p : base) basePos[p.getId() - baseLo] = -1;
+        }
+    }
+
+    /** Patch the open op's length now that it is complete. */
+    private void closeOp(int headerAt, int literals, int runEnd) {
+        if (headerAt < 0) return;
+        if (literals > 0) {
+            scratch.putInt(headerAt, -literals);
+        } else {
+            scratch.putInt(headerAt + 4, runEnd - scratch.getInt(headerAt));
+        }
+    }
+
+    /** Decode a group of lanes written by {@link #encodeLanes} or inside a snapshot. */
+    List<List<Passenger>> getLanes(ByteBuffer b, List<? extends List<Passenger>> base) {
+        int n = b.getInt();
+        List<List<Passenger>> lanes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int ops = b.getInt();
+            List<Passenger> lane = new ArrayList<>();
+            for (int k = 0; k < ops; k++) {
+                int h = b.getInt();
+                if (h >= 0) {
+                    int len = b.getInt();
+                    lane.addAll(base.get(i).subList(h, h + len));
+                } else {
+                    for (int j = 0; j < -h; j++) lane.add(roster.get(b.getInt()));
+                }
+            }
+            lanes.add(lane);
+        }
+        return lanes;
+    }
+
+    private static List<LinkedList<Passenger>> linked(List<List<Passenger>> lanes) {
+        List<LinkedList<Passenger>> out = new ArrayList<>(lanes.size());
+        for (List<Passenger> lane : lanes) out.add(new LinkedList<>(lane));
+        return out;
+    }
+
+    // ============================
+    // Scalars and small containers
+    // ============================
+
+    private void room(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+    }
+
+    private void putInt(int v) {
+        room(4);
+        scratch.putInt(v);
+    }
+
+    private void putDoubles(double[] a) {
+        putInt(a.length);
+        room(8 * a.length);
+        for (double d : a) scratch.putDouble(d);
+    }
+
+    private static double[] getDoubles(ByteBuffer b) {
+        double[] a = new double[b.getInt()];
+        for (int i = 0; i < a.length; i++) a[i] = b.getDouble();
+        return a;
+    }
+
+    private void putPending(Map<Integer, List<Passenger>> pending) {
+        putInt(pending.size());
+        for (Map.Entry<Integer, List<Passenger>> e : pending.entrySet()) {
+            putInt(e.getKey());
+            putInt(e.getValue().size());
+            room(4 * e.getValue().size());
+            for (Passenger p : e.getValue()) scratch.putInt(p.getId());
+        }
+    }
+
+    private Map<Integer, List<Passenger>> getPending(ByteBuffer b) {
+        int n = b.getInt();
+        Map<Integer, List<Passenger>> pending = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int key = b.getInt();
+            int k = b.getInt();
+            List<Passenger> list = new ArrayList<>(k);
+            for (int j = 0; j < k; j++) list.add(roster.get(b.getInt()));
+            pending.put(key, list);
+        }
+        return pending;
+    }
+
+    private void putServing(Passenger[] serving) {
+        putInt(serving.length);
+        room(4 * serving.length);
+        for (Passenger p : serving) scratch.putInt(p == null ? -1 : p.getId());
+    }
+
+    private Passenger[] getServing(ByteBuffer b) {
+        Passenger[] a = new Passenger[b.getInt()];
+        for (int i = 0; i < a.length; i++) {
+            int id = b.getInt();
+            a[i] = id < 0 ? null : roster.get(id);
+        }
+        return a;
+    }
+}
@@ -0,0 +1,182 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.model.Passenger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Rewind snapshots kept off the Java heap.
+ *
+ * Each {@link SimulationEngine.EngineSnapshot} is encoded by a {@link SnapshotCodec}
+ * into a compact binary record (passengers as roster ids, flights as indices) and
+ * appended to a memory-mapped temporary file. Only a small window of recently used
+ * snapshots stays decoded on the heap; anything else is decoded again on demand,
+ * which is cheap next to the GC cost of keeping thousands of LinkedList copies alive.
+ *
+ * A reopened session can {@link #preload} snapshots that live elsewhere (its own
+ * mapped file); those are decoded through the supplied loader until overwritten.
+ *
+ * If no temporary file can be created, snapshots simply stay on the heap.
+ * Engine thread only.
+ */
+final class SnapshotStore {
+    /** Decoded snapshots kept on heap. */
+    private static final int HOT_WINDOW = 16;
+    private static final int SEGMENT_BYTES = 8 << 20;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final SnapshotCodec codec;
+
+    // snapshots [0, preloaded) not yet overwritten come from the loader
+    private IntFunction<SimulationEngine.EngineSnapshot> loader;
+    private int preloaded;
+
+    // record locations by snapshot index; segment -1 = preloaded
+    private int[] segmentOf = new int[64];
+    private int[] offsetOf = new int[64];
+    private int size;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int segmentUsed;
+    private final FileChannel channel;
+    private long fileLength;
+
+    private final Map<Integer, SimulationEngine.EngineSnapshot> hot =
+        new LinkedHashMap<Integer, SimulationEngine.EngineSnapshot>(HOT_WINDOW * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SimulationEngine.EngineSnapshot> e) {
+                return channel != null && size() > HOT_WINDOW;
+            }
+        };
+
+    SnapshotStore(List<Flight> flights, List<Passenger> roster) {
+        this.codec = new SnapshotCodec(flights, roster);
+
+        FileChannel ch = null;
+        try {
+            File tmp = File.createTempFile("sim-snapshots", ".bin");
+            tmp.deleteOnExit();
+            ch = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+            FileChannel toClose = ch;
+            CLEANER.register(this, () -> {
+                try {
+                    toClose.close();
+                } catch (IOException ignored) {
+                    // temp file; the OS reclaims it
+                }
+            });
+        } catch (IOException | SecurityException ex) {
+            ch = null; // heap only
+        }
+        this.channel = ch;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+        hot.clear();
+        segments.clear();
+        segmentUsed = 0;
+        fileLength = 0;
+        loader = null;
+        preloaded = 0;
+    }
+
+    /**
+     * Adopt {@code count} snapshots held elsewhere (a reopened session); they are
+     * decoded through {@code loader} when needed. Replaces the current contents.
+     */
+    void preload(int count, IntFunction<SimulationEngine.EngineSnapshot> loader) {
+        clear();
+        this.loader = loader;
+        this.preloaded = count;
+        if (count > segmentOf.length) {
+            segmentOf = new int[count];
+            offsetOf = new int[count];
+        }
+        Arrays.fill(segmentOf, 0, count, -1);
+        size = count;
+    }
+
+    /**
+     * Store snapshot {@code index}: replaces it if present, else must be size().
+     * Returns the bytes spilled to disk (0 if kept on the heap).
+     */
+    int put(int index, SimulationEngine.EngineSnapshot s) {
+        if (index > size) throw new IndexOutOfBoundsException("snapshot " + index + " of " + size);
+        hot.put(index, s);
+        int bytes = 0;
+        if (channel != null) {
+            try {
+                ByteBuffer record = codec.encode(s, null);
+                bytes = record.remaining();
+                write(index, record);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot spill snapshot: " + ex.getMessage(), ex);
+            }
+        }
+        if (index == size) size++;
+        return bytes;
+    }
+
+    SimulationEngine.EngineSnapshot get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("snapshot " + index);
+        SimulationEngine.EngineSnapshot s = hot.get(index);
+        if (s == null) {
+            if (index < preloaded && segmentOf[index] < 0) {
+                s = loader.apply(index);
+            } else {
+                ByteBuffer b = segments.get(segmentOf[index]).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                b.position(offsetOf[index]);
+                s = codec.decode(b, null);
+            }
+            hot.put(index, s);
+        }
+        return s;
+    }
+
+    // ---- storage ----
+
+    private void write(int index, ByteBuffer record) throws IOException {
+        int len = record.remaining();
+        MappedByteBuffer seg = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (seg == null || seg.capacity() - segmentUsed < len) {
+            int cap = Math.max(SEGMENT_BYTES, len);
+            seg = channel.map(FileChannel.MapMode.READ_WRITE, fileLength, cap);
+            fileLength += cap;
+            segments.add(seg);
+            segmentUsed = 0;
+        }
+        ByteBuffer dst = seg.duplicate();
+        dst.position(segmentUsed);
+        dst.put(record);
+
+        if (index >= segmentOf.length) {
+            segmentOf = Arrays.copyOf(segmentOf, segmentOf.length * 2);
+            offsetOf = Arrays.copyOf(offsetOf, offsetOf.length * 2);
+        }
+        segmentOf[index] = segments.size() - 1;
+        offsetOf[index] = segmentUsed;
+        segmentUsed += len;
+    }
+}
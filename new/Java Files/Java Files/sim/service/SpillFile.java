@@ -0,0 +1,84 @@
+package sim.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A temporary file that a rolling run retires data to and reads it back from.
+ *
+ * Writes come from the engine thread; positional reads may come from any thread.
+ * The file is deleted when closed, or when this object becomes unreachable.
+ */
+final class SpillFile {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    private long end;
+
+    SpillFile(String prefix) {
+        try {
+            File tmp = File.createTempFile(prefix, ".bin");
+            tmp.deleteOnExit();
+            channel = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException | SecurityException ex) {
+            throw new IllegalStateException("Cannot create spill file: " + ex.getMessage(), ex);
+        }
+        FileChannel toClose = channel;
+        CLEANER.register(this, () -> {
+            try {
+                toClose.close();
+            } catch (IOException ignored) {
+                // temp file; the OS reclaims it
+            }
+        });
+    }
+
+    /** Append {@code src} and return where it starts. */
+    long append(ByteBuffer src) {
+        long at = end;
+        write(at, src);
+        return at;
+    }
+
+    /** Write {@code src} at {@code pos}, growing the file as needed. */
+    void write(long pos, ByteBuffer src) {
+        try {
+            long p = pos;
+            while (src.hasRemaining()) p += channel.write(src, p);
+            end = Math.max(end, p);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot spill to disk: " + ex.getMessage(), ex);
+        }
+    }
+
+    /** Read {@code len} bytes at {@code pos}; unwritten bytes read as zero. */
+    ByteBuffer read(long pos, int len) {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (b.hasRemaining()) {
+                if (channel.read(b, pos + b.position()) < 0) break;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read spilled data: " + ex.getMessage(), ex);
+        }
+        b.clear();
+        return b;
+    }
+
+    /** Bytes written so far. */
+    long length() {
+        return end;
+    }
+
+    /** Start over; old contents are overwritten as new data arrives. */
+    void reset() {
+        end = 0;
+    }
+}
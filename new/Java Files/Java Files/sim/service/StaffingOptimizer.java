@@ -0,0 +1,369 @@
+package sim.service;
+
+import sim.model.Flight;
+import sim.ui.TicketCounterConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the smallest staffing that keeps missed passengers per flight under a target.
+ *
+ * A candidate opens the first n ticket counters (the configured counters in order;
+ * beyond the list, copies of the last one), k checkpoint lanes, and picks a
+ * checkpoint rate and optionally a common counter rate from ascending lists. More
+ * counters, more lanes or faster rates never make things worse, and the search
+ * leans on that:
+ * <ul>
+ *   <li>for each pair of rates it walks lanes upwards, finding the fewest counters
+ *       that work with k lanes by binary search below the count that worked with
+ *       k - 1, so the result is the whole counters/lanes trade-off curve;</li>
+ *   <li>each search round probes several counter counts at once, every probe a
+ *       headless {@link SimulationEngine} run on a thread pool;</li>
+ *   <li>results are memoized, and a candidate that dominates a known success (or is
+ *       dominated by a known failure) is settled without a run;</li>
+ *   <li>a run stops as soon as one flight closes boarding with too many missed,
+ *       since missed passengers are never recovered.</li>
+ * </ul>
+ */
+public final class StaffingOptimizer {
+    /** One staffing choice. */
+    public static final class Candidate {
+        private final int counters;
+        private final int counterRate;      // index into counterRates, -1 = as configured
+        private final int checkpoints;
+        private final int checkpointRate;   // index into checkpointRates
+        private final StaffingOptimizer owner;
+
+        Candidate(StaffingOptimizer owner, int counters, int counterRate, int checkpoints, int checkpointRate) {
+            this.owner = owner;
+            this.counters = counters;
+            this.counterRate = counterRate;
+            this.checkpoints = checkpoints;
+            this.checkpointRate = checkpointRate;
+        }
+
+        public int getCounters() { return counters; }
+        public int getCheckpoints() { return checkpoints; }
+        public double getCheckpointRate() { return owner.checkpointRates[checkpointRate]; }
+
+        /** Common counter rate, or NaN when each counter keeps its configured rate. */
+        public double getCounterRate() {
+            return counterRate < 0 ? Double.NaN : owner.counterRates[counterRate];
+        }
+
+        /** The ticket counters this candidate opens. */
+        public List<TicketCounterConfig> getCounterConfigs() {
+            List<TicketCounterConfig> out = new ArrayList<>(counters);
+            for (int i = 0; i < counters; i++) {
+                TicketCounterConfig t = owner.counterPool.get(Math.min(i, owner.counterPool.size() - 1));
+                double rate = counterRate < 0 ? t.getRate() : owner.counterRates[counterRate];
+                out.add(new TicketCounterConfig(i + 1, rate, t.getAllowedFlights()));
+            }
+            return out;
+        }
+
+        /** True if this is at least as well staffed as {@code o} in every respect. */
+        boolean dominates(Candidate o) {
+            return counters >= o.counters && counterRate >= o.counterRate
+                && checkpoints >= o.checkpoints && checkpointRate >= o.checkpointRate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Candidate)) return false;
+            Candidate c = (Candidate) o;
+            return counters == c.counters && counterRate == c.counterRate
+                && checkpoints == c.checkpoints && checkpointRate == c.checkpointRate;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(counters, counterRate, checkpoints, checkpointRate);
+        }
+
+        @Override
+        public String toString() {
+            String rate = counterRate < 0 ? "" : String.format(" @ %.2f/min", getCounterRate());
+            return String.format("%d counters%s, %d checkpoints @ %.2f/min",
+                counters, rate, checkpoints, getCheckpointRate());
+        }
+    }
+
+    /** What one run found. */
+    static final class Outcome {
+        final boolean feasible;
+        final int worstMissed;      // lower bound if the run stopped early
+        final boolean stoppedEarly;
+
+        Outcome(boolean feasible, int worstMissed, boolean stoppedEarly) {
+            this.feasible = feasible;
+            this.worstMissed = worstMissed;
+            this.stoppedEarly = stoppedEarly;
+        }
+    }
+
+    /** The trade-off curve and the cheapest point on it. */
+    public static final class Result {
+        private final List<Candidate> frontier;
+        private final Candidate best;
+        private final int runs;
+        private final int settledByDominance;
+        private final int stoppedEarly;
+
+        Result(List<Candidate> frontier, Candidate best, int runs, int settledByDominance, int stoppedEarly) {
+            this.frontier = Collections.unmodifiableList(frontier);
+            this.best = best;
+            this.runs = runs;
+            this.settledByDominance = settledByDominance;
+            this.stoppedEarly = stoppedEarly;
+        }
+
+        /** Minimal candidates: for each pair of rates, the fewest counters per lane count. */
+        public List<Candidate> getFrontier() { return frontier; }
+
+        /** Cheapest frontier candidate by the configured costs, or null if none works. */
+        public Candidate getBest() { return best; }
+
+        /** Simulations actually run. */
+        public int getRuns() { return runs; }
+
+        /** Candidates settled from earlier results without a run. */
+        public int getSettledByDominance() { return settledByDominance; }
+
+        /** Runs cut short because a flight had already missed too many. */
+        public int getStoppedEarly() { return stoppedEarly; }
+    }
+
+    // base configuration
+    private final double percentInPerson;
+    private final List<TicketCounterConfig> counterPool;
+    private final int arrivalSpanMinutes;
+    private final int intervalMinutes;
+    private final int transitDelayMinutes;
+    private final int holdDelayMinutes;
+    private final List<Flight> flights;
+
+    // search space and goal
+    private int maxCounters;
+    private int maxCheckpoints = 8;
+    private double[] checkpointRates = { 1.0 };
+    private double[] counterRates;          // null = as configured
+    private int maxMissedPerFlight;
+    private double counterCost = 1;
+    private double checkpointCost = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // per optimize() call
+    private final Map<Candidate, CompletableFuture<Outcome>> memo = new ConcurrentHashMap<>();
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicInteger settled = new AtomicInteger();
+    private final AtomicInteger stoppedEarly = new AtomicInteger();
+    private ExecutorService pool;
+
+    /**
+     * @param counterPool counters in the order they are opened (at least one); the
+     *                    last is repeated if candidates need more
+     */
+    public StaffingOptimizer(double percentInPerson,
+                             List<TicketCounterConfig> counterPool,
+                             int arrivalSpanMinutes,
+                             int intervalMinutes,
+                             int transitDelayMinutes,
+                             int holdDelayMinutes,
+                             List<Flight> flights) {
+        if (counterPool.isEmpty()) throw new IllegalArgumentException("At least one counter is needed");
+        this.percentInPerson = percentInPerson;
+        this.counterPool = new ArrayList<>(counterPool);
+        this.arrivalSpanMinutes = arrivalSpanMinutes;
+        this.intervalMinutes = intervalMinutes;
+        this.transitDelayMinutes = transitDelayMinutes;
+        this.holdDelayMinutes = holdDelayMinutes;
+        this.flights = new ArrayList<>(flights);
+        this.maxCounters = 2 * counterPool.size();
+    }
+
+    /** Most passengers any one flight may miss. Default 0. */
+    public void setMaxMissedPerFlight(int n) { maxMissedPerFlight = Math.max(0, n); }
+
+    /** Largest counter count tried. Default twice the configured counters. */
+    public void setMaxCounters(int n) { maxCounters = Math.max(1, n); }
+
+    /** Largest checkpoint lane count tried. Default 8. */
+    public void setMaxCheckpoints(int n) { maxCheckpoints = Math.max(1, n); }
+
+    /** Checkpoint rates to try (passengers per minute per lane). Default 1.0. */
+    public void setCheckpointRates(double... rates) { checkpointRates = ascending(rates); }
+
+    /** A common counter rate to try instead of each counter's own; none = as configured. */
+    public void setCounterRates(double... rates) {
+        counterRates = rates == null || rates.length == 0 ? null : ascending(rates);
+    }
+
+    /** Weights used to pick the best frontier candidate. Default 1 each. */
+    public void setCosts(double perCounter, double perCheckpoint) {
+        counterCost = perCounter;
+        checkpointCost = perCheckpoint;
+    }
+
+    /** Concurrent simulations. Default one per processor. */
+    public void setThreads(int n) { threads = Math.max(1, n); }
+
+    private static double[] ascending(double[] rates) {
+        if (rates.length == 0) throw new IllegalArgumentException("No rates given");
+        double[] r = rates.clone();
+        Arrays.sort(r);
+        return r;
+    }
+
+    // ============================
+    // Search
+    // ============================
+
+    /** Run the search; blocks until done. */
+    public Result optimize() {
+        memo.clear();
+        runs.set(0);
+        settled.set(0);
+        stoppedEarly.set(0);
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "staffing-optimizer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Candidate> frontier = new ArrayList<>();
+            int counterOptions = counterRates == null ? 1 : counterRates.length;
+            for (int cr = 0; cr < counterOptions; cr++) {
+                for (int pr = 0; pr < checkpointRates.length; pr++) {
+                    staircase(counterRates == null ? -1 : cr, pr, frontier);
+                }
+            }
+
+            Candidate best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (Candidate c : frontier) {
+                double cost = c.counters * counterCost + c.checkpoints * checkpointCost;
+                if (cost < bestCost) {   // ties keep the slower (earlier) rates
+                    best = c;
+                    bestCost = cost;
+                }
+            }
+            return new Result(frontier, best, runs.get(), settled.get(), stoppedEarly.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Fewest counters for each lane count, at one pair of rates. */
+    private void staircase(int counterRate, int checkpointRate, List<Candidate> frontier) {
+        int upper = maxCounters;
+        for (int k = 1; k <= maxCheckpoints; k++) {
+            int n = fewestCounters(counterRate, k, checkpointRate, upper);
+            if (n < 0) continue;             // needs more lanes (or saves nothing)
+            frontier.add(new Candidate(this, n, counterRate, k, checkpointRate));
+            if (n == 1) break;               // more lanes can only cost more
+            upper = n - 1;                   // a further lane is only worth it if it saves a counter
+        }
+    }
+
+    private boolean feasible(int counterRate, int k, int checkpointRate, int n) {
+        return evaluate(new Candidate(this, n, counterRate, k, checkpointRate)).join().feasible;
+    }
+
+    /**
+     * Smallest n in [1, upper] that works, or -1: a search with up to {@code threads}
+     * probes per round, so each round narrows the range by that factor.
+     */
+    private int fewestCounters(int counterRate, int k, int checkpointRate, int upper) {
+        if (upper < 1 || !feasible(counterRate, k, checkpointRate, upper)) return -1;
+        int lo = 1, hi = upper;              // hi works; everything below lo fails
+        while (lo < hi) {
+            int probes = Math.min(threads, hi - lo);
+            int[] at = new int[probes];
+            List<CompletableFuture<Outcome>> results = new ArrayList<>(probes);
+            for (int i = 0; i < probes; i++) {
+                at[i] = lo + (int) ((long) (hi - lo) * i / probes);
+                results.add(evaluate(new Candidate(this, at[i], counterRate, k, checkpointRate)));
+            }
+            int newLo = lo, newHi = hi;
+            for (int i = 0; i < probes; i++) {
+                if (results.get(i).join().feasible) {
+                    newHi = at[i];
+                    break;
+                }
+                newLo = at[i] + 1;
+            }
+            lo = newLo;
+            hi = newHi;
+        }
+        return hi;
+    }
+
+    /** A memoized result, settled by dominance if possible, else run on the pool. */
+    private CompletableFuture<Outcome> evaluate(Candidate c) {
+        CompletableFuture<Outcome> known = memo.get(c);
+        if (known != null) return known;
+        for (Map.Entry<Candidate, CompletableFuture<Outcome>> e : memo.entrySet()) {
+            CompletableFuture<Outcome> f = e.getValue();
+            if (!f.isDone()) continue;
+            Outcome o = f.join();
+            if ((o.feasible && c.dominates(e.getKey())) || (!o.feasible && e.getKey().dominates(c))) {
+                settled.incrementAndGet();
+                return CompletableFuture.completedFuture(new Outcome(o.feasible, -1, false));
+            }
+        }
+        return memo.computeIfAbsent(c, key -> CompletableFuture.supplyAsync(() -> simulate(key), pool));
+    }
+
+    // ============================
+    // One headless run
+    // ============================
+
+    private Outcome simulate(Candidate c) {
+        runs.incrementAndGet();
+        SimulationEngine engine = SimulationEngine.headless(
+            percentInPerson,
+            c.getCounterConfigs(),
+            c.checkpoints,
+            c.getCheckpointRate(),
+            arrivalSpanMinutes,
+            intervalMinutes,
+            transitDelayMinutes,
+            holdDelayMinutes,
+            flights
+        );
+
+        // each flight's misses are final once its boarding closes
+        Map<Flight, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < flights.size(); i++) index.put(flights.get(i), i);
+        PassengerStats stats = engine.getPassengerStats();
+        int worst = 0;
+
+        while (engine.getCurrentInterval() < engine.getTotalIntervals()) {
+            engine.computeNextInterval();
+            for (Flight f : engine.getFlightsJustClosed()) {
+                int missed = (int) stats.getMissed(index.get(f));
+                worst = Math.max(worst, missed);
+                if (missed > maxMissedPerFlight
+                        && engine.getCurrentInterval() < engine.getTotalIntervals()) {
+                    // nobody enters a closed hold room: this candidate cannot pass
+                    stoppedEarly.incrementAndGet();
+                    return new Outcome(false, missed, true);
+                }
+            }
+        }
+        return new Outcome(worst <= maxMissedPerFlight, worst, false);
+    }
+
+}
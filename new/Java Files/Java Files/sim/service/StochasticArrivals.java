@@ -0,0 +1,54 @@
+package sim.service;
+
+import sim.model.Flight;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Random arrivals around the generated profile: each flight's arrivals in a minute
+ * are Poisson with the profile's expected count as mean.
+ *
+ * Flight i draws from its own stream of {@link RandomStreams}, so runs with the same
+ * seed share arrival luck flight by flight even when their staffing differs.
+ */
+public final class StochasticArrivals implements ArrivalSource {
+    private final ArrivalGenerator generator;
+    private final int arrivalSpanMinutes;
+    private final RandomStreams streams;
+
+    private double[][] expected;
+    private int[] windowOpen;
+
+    /**
+     * @param arrivalSpanMinutes as given to the engine
+     * @param antithetic         draw the mirror image (1 - u) of {@code seed}'s run
+     */
+    public StochasticArrivals(int arrivalSpanMinutes, long seed, boolean antithetic) {
+        this.generator = new ArrivalGenerator(arrivalSpanMinutes, 1);
+        this.arrivalSpanMinutes = arrivalSpanMinutes;
+        this.streams = new RandomStreams(seed, antithetic);
+    }
+
+    @Override
+    public void bind(LocalTime start, List<Flight> flights) {
+        int startMinute = SimulationEngine.startMinute(flights, arrivalSpanMinutes);
+        expected = new double[flights.size()][];
+        windowOpen = new int[flights.size()];
+        for (int i = 0; i < flights.size(); i++) {
+            Flight f = flights.get(i);
+            expected[i] = generator.expectedPerMinuteArrivals(f);
+            windowOpen[i] = f.getDepartureMinute() - startMinute - arrivalSpanMinutes;
+        }
+    }
+
+    @Override
+    public void arrivalsAt(int minute, int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            int idx = minute - windowOpen[i];
+            counts[i] = idx >= 0 && idx < expected[i].length
+                ? RandomStreams.poisson(expected[i][idx], streams.uniform(RandomStreams.ARRIVALS, i, minute))
+                : 0;
+        }
+    }
+}
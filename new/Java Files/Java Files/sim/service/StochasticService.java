@@ -0,0 +1,28 @@
+package sim.service;
+
+/**
+ * Random service: each lane finishes a Poisson number of passengers a minute, with
+ * its configured rate as mean (exponential service times).
+ *
+ * Every counter and checkpoint lane draws from its own stream of
+ * {@link RandomStreams}, so lane k has the same luck in every run with the same
+ * seed, however many lanes the runs open.
+ */
+public final class StochasticService implements ServiceSource {
+    private final RandomStreams streams;
+
+    /** @param antithetic draw the mirror image (1 - u) of {@code seed}'s run */
+    public StochasticService(long seed, boolean antithetic) {
+        this.streams = new RandomStreams(seed, antithetic);
+    }
+
+    @Override
+    public double ticketCapacity(int counter, int minute, double rate) {
+        return RandomStreams.poisson(rate, streams.uniform(RandomStreams.TICKET, counter, minute));
+    }
+
+    @Override
+    public double checkpointCapacity(int lane, int minute, double rate) {
+        return RandomStreams.poisson(rate, streams.uniform(RandomStreams.CHECKPOINT, lane, minute));
+    }
+}
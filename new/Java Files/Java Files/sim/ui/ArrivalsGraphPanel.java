@@ -1,5 +1,7 @@
 package sim.ui;
 
+import sim.service.IntervalFrame;
+import sim.service.SeriesBuffer;
 import sim.service.SimulationEngine;
 
 import org.jfree.chart.ChartFactory;
@@ -8,8 +10,6 @@ import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.plot.XYPlot;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 
 import javax.swing.*;
 import java.awt.*;
@@ -19,12 +19,15 @@ import java.awt.*;
  * - X axis: interval index (matches timeline slider)
  * - Y axis: total arrivals during that minute-interval
  * - Vertical marker: currently viewed interval
+ *
+ * Points go into a primitive {@link SeriesBuffer}; the chart sees a min/max
+ * decimated view sized to its pixel width, refreshed once per sync.
  */
 public class ArrivalsGraphPanel extends JPanel {
     private final SimulationEngine engine;
 
-    private final XYSeries series;
-    private final XYSeriesCollection dataset;
+    private final SeriesBuffer series;
+    private final DecimatedXYDataset dataset;
 
     private final ValueMarker currentIntervalMarker;
     private final ChartPanel chartPanel;
@@ -36,9 +39,8 @@ public class ArrivalsGraphPanel extends JPanel {
         super(new BorderLayout());
         this.engine = engine;
 
-        // autoSort=true, allowDuplicateXValues=false
-        this.series = new XYSeries("Arrivals", true, false);
-        this.dataset = new XYSeriesCollection(series);
+        this.series = new SeriesBuffer(engine.getTotalIntervals() + 1);
+        this.dataset = new DecimatedXYDataset("Arrivals", series, 1.0);
 
         JFreeChart chart = ChartFactory.createXYLineChart(
                 "Arrivals per Minute Interval",
@@ -63,6 +65,9 @@ public class ArrivalsGraphPanel extends JPanel {
 
         add(chartPanel, BorderLayout.CENTER);
 
+        // re-decimate on zoom/resize
+        dataset.bindTo(chartPanel);
+
         // initial sync
         syncWithEngine();
     }
@@ -74,16 +79,24 @@ public class ArrivalsGraphPanel extends JPanel {
      *  - move the marker to engine.getCurrentInterval()
      */
     public void syncWithEngine() {
-        int maxComputed = engine.getMaxComputedInterval();
+        syncWithFrame(engine.currentFrame());
+    }
 
+    /**
+     * Same as syncWithEngine(), but driven by a published frame so it is safe to call
+     * on the EDT while the playback thread owns the engine.
+     */
+    public void syncWithFrame(IntervalFrame frame) {
         // append only new points (O(1) per interval)
-        for (int i = plottedMaxInterval + 1; i <= maxComputed; i++) {
-            int y = engine.getTotalArrivalsAtInterval(i);
+        for (int i = plottedMaxInterval + 1; i <= frame.getMaxComputedInterval(); i++) {
+            int y = frame.getArrivalsAtInterval(i);
             series.add(i, y);
             plottedMaxInterval = i;
         }
+        // one chart change for however many points arrived since the last sync
+        dataset.refresh();
 
-        setViewedInterval(engine.getCurrentInterval());
+        setViewedInterval(frame.getInterval());
     }
 
     /**
@@ -2,6 +2,7 @@ package sim.ui;
 
 import sim.model.Flight;
 import sim.model.Passenger;
+import sim.service.IntervalFrame;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
@@ -16,18 +17,14 @@ public class CheckpointLinesPanel extends JPanel {
     private final SimulationEngine engine;
     private final int[] checkpointQueuedOffsets;
     private final int[] checkpointServedOffsets;
-    private final List<Rectangle> clickableAreas;
-    private final List<Passenger> clickablePassengers;
     private final List<Rectangle> counterAreas;
     private final Flight filterFlight;
 
-    public CheckpointLinesPanel(SimulationEngine engine,
-                                List<Rectangle> clickableAreas,
-                                List<Passenger> clickablePassengers,
-                                Flight filterFlight) {
+    // frame to paint; null = follow the engine's current interval
+    private IntervalFrame frame;
+
+    public CheckpointLinesPanel(SimulationEngine engine, Flight filterFlight) {
         this.engine = engine;
-        this.clickableAreas = clickableAreas;
-        this.clickablePassengers = clickablePassengers;
         this.counterAreas = new ArrayList<>();            // << new list for counters
         this.filterFlight = filterFlight;
         this.checkpointQueuedOffsets = new int[engine.getCheckpointLines().size()];
@@ -36,7 +33,7 @@ public class CheckpointLinesPanel extends JPanel {
 
         // install shared scroll handler
         ScrollMouseHandler handler = new ScrollMouseHandler.CheckpointScrollHandler(
-            engine, clickableAreas, clickablePassengers,
+            engine, this::currentFrame,
             checkpointQueuedOffsets, checkpointServedOffsets,
             filterFlight,
             counterAreas
@@ -53,15 +50,23 @@ public class CheckpointLinesPanel extends JPanel {
             this,
             g,
             engine,
+            currentFrame(),
             checkpointQueuedOffsets,
             checkpointServedOffsets,
-            clickableAreas,
-            clickablePassengers,
             counterAreas,
             filterFlight
         );
     }
 
+    /** Paint this frame from now on (EDT only). */
+    public void setFrame(IntervalFrame frame) {
+        this.frame = frame;
+    }
+
+    IntervalFrame currentFrame() {
+        return frame != null ? frame : engine.currentFrame();
+    }
+
     /**
      * @return the maximum size that checkpoint line #lineIdx ever reached
      *         across all history intervals.
@@ -1,143 +1,164 @@
 package sim.ui;
 
 import sim.model.Flight;
-import sim.model.Passenger;
+import sim.service.CsvExporter;
+import sim.service.LaneCounts;
+import sim.service.RunData;
+import sim.service.RunFile;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
 
 public class DataTableFrame extends JFrame {
+    // above this many intervals the tables open with one row per interval
+    private static final int TRANSPOSE_THRESHOLD = 300;
+
     private final JTabbedPane tabbedPane;
+    private final List<IntervalTableModel> models = new ArrayList<>();
 
     public DataTableFrame(SimulationEngine engine) {
-        super("Interval Data");
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
-
         // Run full simulation to populate history and arrivals
-        engine.runAllIntervals();
+        this(runToEnd(engine), "Interval Data");
+    }
+
+    /** Tables for any recorded run, e.g. a reopened {@link RunFile}. */
+    public DataTableFrame(RunData engine, String title) {
+        super(title);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
         // Prepare time headers
-        List<Flight> flights = engine.getFlights();
-        LocalTime firstDep = flights.stream()
-            .map(Flight::getDepartureTime)
-            .min(LocalTime::compareTo)
-            .orElse(LocalTime.MIDNIGHT);
-        LocalTime startTime = firstDep.minusMinutes(engine.getArrivalSpan());
+        LocalTime startTime = engine.getGlobalStart();
         int interval = engine.getInterval();
         int totalIntervals = engine.getTotalIntervals();
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("HH:mm");
 
-        // Create tabbed pane
+        // Create tabbed pane; each table is built the first time its tab is shown
         tabbedPane = new JTabbedPane();
+        boolean transposed = totalIntervals > TRANSPOSE_THRESHOLD;
 
         // Arrivals tab
-        JTable arrivalsTable = new JTable(
-            new ArrivalsTableModel(engine, startTime, fmt)
-        );
-        configureTable(arrivalsTable);
-        tabbedPane.addTab("Arrivals", new JScrollPane(arrivalsTable));
-
-        // Ticket Queue tab
-        JTable ticketQueueTable = new JTable(
-            new BaseHistoryTableModel(
-                engine.getHistoryQueuedTicket(),
-                "Ticket Queue",
-                startTime,
-                interval,
-                totalIntervals,
-                fmt
-            )
-        );
-        configureTable(ticketQueueTable);
-        tabbedPane.addTab("Ticket Queue", new JScrollPane(ticketQueueTable));
-
-        // Ticket Completed tab
-        JTable ticketCompletedTable = new JTable(
-            new BaseHistoryTableModel(
-                engine.getHistoryServedTicket(),
-                "Ticket Completed",
-                startTime,
-                interval,
-                totalIntervals,
-                fmt
-            )
-        );
-        configureTable(ticketCompletedTable);
-        tabbedPane.addTab("Ticket Completed", new JScrollPane(ticketCompletedTable));
-
-        // Checkpoint Queue tab
-        JTable checkpointQueueTable = new JTable(
-            new BaseHistoryTableModel(
-                engine.getHistoryQueuedCheckpoint(),
-                "Checkpoint Queue",
-                startTime,
-                interval,
-                totalIntervals,
-                fmt
-            )
-        );
-        configureTable(checkpointQueueTable);
-        tabbedPane.addTab("Checkpoint Queue", new JScrollPane(checkpointQueueTable));
-
-        // Checkpoint Completed tab
-        JTable checkpointCompletedTable = new JTable(
-            new BaseHistoryTableModel(
-                engine.getHistoryServedCheckpoint(),
-                "Checkpoint Completed",
-                startTime,
-                interval,
-                totalIntervals,
-                fmt
-            )
-        );
-        configureTable(checkpointCompletedTable);
-        tabbedPane.addTab("Checkpoint Completed", new JScrollPane(checkpointCompletedTable));
+        addLazyTab("Arrivals", arrivalsModel(engine, startTime, fmt, transposed));
+
+        // Ticket / checkpoint tabs, straight from the engine's per-step lane counts
+        addLazyTab("Ticket Queue", historyModel(engine.getTicketQueueCounts(),
+            "Ticket Queue", startTime, interval, totalIntervals, fmt, transposed));
+        addLazyTab("Ticket Completed", historyModel(engine.getTicketServedCounts(),
+            "Ticket Completed", startTime, interval, totalIntervals, fmt, transposed));
+        addLazyTab("Checkpoint Queue", historyModel(engine.getCheckpointQueueCounts(),
+            "Checkpoint Queue", startTime, interval, totalIntervals, fmt, transposed));
+        addLazyTab("Checkpoint Completed", historyModel(engine.getCheckpointServedCounts(),
+            "Checkpoint Completed", startTime, interval, totalIntervals, fmt, transposed));
+
+        tabbedPane.addChangeListener(e -> ensureTab(tabbedPane.getSelectedIndex()));
+        ensureTab(0);
 
         add(tabbedPane, BorderLayout.CENTER);
 
-        // Export all tabs as CSV
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+
+        // Layout toggle: one row per interval lets JTable virtualize rows
+        JCheckBox transposeBox = new JCheckBox("One row per interval", transposed);
+        transposeBox.addActionListener(e -> {
+            for (IntervalTableModel m : models) {
+                m.setTransposed(transposeBox.isSelected());
+            }
+        });
+        bottomPanel.add(transposeBox);
+
+        // Export all tabs as CSV, written from the engine's counts off the EDT
+        JCheckBox gzipBox = new JCheckBox("Compress (.gz)");
+        bottomPanel.add(gzipBox);
         JButton exportBtn = new JButton("Save All as CSV");
         exportBtn.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
             chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
             chooser.setDialogTitle("Select Directory to Save CSVs");
             if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-                File dir = chooser.getSelectedFile();
+                exportBtn.setEnabled(false);
+                exportCsv(engine, chooser.getSelectedFile(), gzipBox.isSelected(),
+                          () -> exportBtn.setEnabled(true));
+            }
+        });
+        bottomPanel.add(exportBtn);
+
+        // Archive a live run as a run file that can be reopened later
+        if (engine instanceof SimulationEngine) {
+            JButton saveRunBtn = new JButton("Save Run...");
+            saveRunBtn.addActionListener(e -> saveRun((SimulationEngine) engine, saveRunBtn));
+            bottomPanel.add(saveRunBtn);
+        }
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        setSize(1000, 600);
+        setLocationRelativeTo(null);
+    }
+
+    private static RunData runToEnd(SimulationEngine engine) {
+        engine.runAllIntervals();
+        return engine;
+    }
+
+    private void saveRun(SimulationEngine engine, JButton button) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Save Run");
+        chooser.setSelectedFile(new File("run" + RunFile.EXTENSION));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        button.setEnabled(false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                synchronized (engine) {
+                    RunFile.write(engine, file.toPath());
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
                 try {
-                    writeTableAsCsv(arrivalsTable, new File(dir, "Arrivals.csv"));
-                    writeTableAsCsv(ticketQueueTable, new File(dir, "TicketQueue.csv"));
-                    writeTableAsCsv(ticketCompletedTable, new File(dir, "TicketCompleted.csv"));
-                    writeTableAsCsv(checkpointQueueTable, new File(dir, "CheckpointQueue.csv"));
-                    writeTableAsCsv(checkpointCompletedTable, new File(dir, "CheckpointCompleted.csv"));
-                    JOptionPane.showMessageDialog(
-                        this,
-                        "All tables saved to: " + dir.getAbsolutePath()
-                    );
-                } catch (IOException ex) {
+                    get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
                     JOptionPane.showMessageDialog(
-                        this,
-                        "Error saving CSVs: " + ex.getMessage(),
+                        DataTableFrame.this,
+                        "Error saving run: " + ex.getCause().getMessage(),
                         "Save Error",
                         JOptionPane.ERROR_MESSAGE
                     );
                 }
             }
-        });
-        bottomPanel.add(exportBtn);
-        add(bottomPanel, BorderLayout.SOUTH);
+        }.execute();
+    }
 
-        setSize(1000, 600);
-        setLocationRelativeTo(null);
+    private void addLazyTab(String title, IntervalTableModel model) {
+        models.add(model);
+        tabbedPane.addTab(title, new JPanel(new BorderLayout()));
+    }
+
+    /** Create the JTable for tab {@code index} on first view. */
+    private void ensureTab(int index) {
+        if (index < 0) return;
+        JPanel holder = (JPanel) tabbedPane.getComponentAt(index);
+        if (holder.getComponentCount() > 0) return;
+        JTable table = new JTable(models.get(index));
+        configureTable(table);
+        holder.add(new JScrollPane(table), BorderLayout.CENTER);
+        holder.revalidate();
     }
 
     private void configureTable(JTable table) {
@@ -163,132 +184,209 @@ public class DataTableFrame extends JFrame {
         );
     }
 
-    private void writeTableAsCsv(JTable table, File file) throws IOException {
-        try (
-            Writer out = new BufferedWriter(
-                new OutputStreamWriter(
-                    new FileOutputStream(file),
-                    StandardCharsets.UTF_8
-                )
-            )
-        ) {
-            // Header
-            for (int c = 0; c < table.getColumnCount(); c++) {
-                if (c > 0) out.write(',');
-                out.write(escapeCsv(table.getColumnName(c)));
+    private void exportCsv(RunData engine, File dir, boolean gzip, Runnable whenDone) {
+        ProgressMonitor monitor = new ProgressMonitor(
+            this, "Saving CSVs to " + dir.getAbsolutePath(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                CsvExporter.exportAll(engine, dir.toPath(), gzip,
+                    (rows, total) -> setProgress((int) (100 * rows / Math.max(1, total))));
+                return null;
             }
-            out.write("\n");
-            // Data rows
-            for (int r = 0; r < table.getRowCount(); r++) {
-                for (int c = 0; c < table.getColumnCount(); c++) {
-                    if (c > 0) out.write(',');
-                    Object v = table.getValueAt(r, c);
-                    out.write(escapeCsv(v == null ? "" : v.toString()));
+
+            @Override
+            protected void done() {
+                monitor.close();
+                whenDone.run();
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(
+                        DataTableFrame.this,
+                        "All tables saved to: " + dir.getAbsolutePath()
+                    );
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(
+                        DataTableFrame.this,
+                        "Error saving CSVs: " + ex.getCause().getMessage(),
+                        "Save Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
                 }
-                out.write("\n");
             }
+        };
+        worker.addPropertyChangeListener(ev -> {
+            if ("progress".equals(ev.getPropertyName())) {
+                monitor.setProgress((Integer) ev.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+
+    private static IntervalTableModel arrivalsModel(
+        RunData engine,
+        LocalTime startTime,
+        DateTimeFormatter fmt,
+        boolean transposed
+    ) {
+        List<Flight> flights = engine.getFlights();
+        int totalMinutes = Math.max(engine.getArrivalSpan() - 20, 0);
+        Map<Flight, int[]> perMin = engine.getMinuteArrivalsMap();
+        int[][] rows = new int[flights.size()][];
+        String[] names = new String[flights.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Flight f = flights.get(i);
+            rows[i] = perMin.getOrDefault(f, new int[totalMinutes]);
+            names[i] = "Arrivals - " + f.getFlightNumber();
         }
+        return new IntervalTableModel(
+            rows.length, totalMinutes,
+            (r, m) -> rows[r][m],
+            names, "Total Arrivals", false,
+            m -> startTime.plusMinutes(m + 1).format(fmt),
+            transposed
+        );
     }
 
-    private String escapeCsv(String s) {
-        boolean need =
-            s.contains(",") ||
-            s.contains("\"") ||
-            s.contains("\n") ||
-            s.contains("\r");
-        String t = s.replace("\"", "\"\"");
-        return need ? "\"" + t + "\"" : t;
+    private static IntervalTableModel historyModel(
+        LaneCounts counts,
+        String label,
+        LocalTime startTime,
+        int interval,
+        int totalIntervals,
+        DateTimeFormatter fmt,
+        boolean transposed
+    ) {
+        // clamp negative totalIntervals to zero, and never past what was recorded
+        int ti = Math.max(0, Math.min(totalIntervals, counts.steps()));
+        int lines = counts.lanes();
+        String[] names = new String[lines];
+        for (int r = 0; r < lines; r++) {
+            names[r] = label + " " + (r + 1);
+        }
+        return new IntervalTableModel(
+            lines, ti,
+            (r, c) -> counts.get(c, r),
+            names, "Total " + label, true,
+            c -> startTime.plusMinutes((long) (c + 1) * interval).format(fmt),
+            transposed
+        );
     }
 
-    private static class ArrivalsTableModel extends AbstractTableModel {
-        private final String[] columnNames;
-        private final Object[][] data;
-
-        public ArrivalsTableModel(
-            SimulationEngine engine,
-            LocalTime startTime,
-            DateTimeFormatter fmt
-        ) {
-            List<Flight> flights = engine.getFlights();
-            int totalMinutes = Math.max(engine.getArrivalSpan() - 20, 0);
-            columnNames = new String[totalMinutes + 1];
-            columnNames[0] = "Time";
-            for (int m = 0; m < totalMinutes; m++) {
-                columnNames[m + 1] = startTime.plusMinutes(m + 1).format(fmt);
-            }
-            data = new Object[flights.size() + 1][totalMinutes + 1];
-            Map<Flight, int[]> perMin = engine.getMinuteArrivalsMap();
-            int row = 0;
-            for (Flight f : flights) {
-                data[row][0] = "Arrivals - " + f.getFlightNumber();
-                int[] arr = perMin.getOrDefault(f, new int[totalMinutes]);
-                for (int m = 0; m < totalMinutes; m++) {
-                    data[row][m + 1] = arr[m];
-                }
-                row++;
-            }
-            data[row][0] = "Total Arrivals";
-            for (int m = 0; m < totalMinutes; m++) {
-                int sum = 0;
-                for (Flight f : flights) {
-                    sum += perMin.getOrDefault(f, new int[totalMinutes])[m];
-                }
-                data[row][m + 1] = sum;
-            }
+    /**
+     * Series x interval counts, computed per cell on demand (nothing is boxed until
+     * JTable asks for a visible cell). Wide layout: a row per series plus a total
+     * row, a column per interval. Transposed: a row per interval, so JTable only
+     * lays out the rows in view.
+     */
+    private static class IntervalTableModel extends AbstractTableModel {
+        interface Counts {
+            int get(int series, int interval);
         }
 
-        @Override public int getRowCount() { return data.length; }
-        @Override public int getColumnCount() { return columnNames.length; }
-        @Override public String getColumnName(int col) { return columnNames[col]; }
-        @Override public Object getValueAt(int row, int col) { return data[row][col]; }
-    }
+        private final int series;
+        private final int intervals;
+        private final Counts counts;
+        private final String[] seriesNames;
+        private final String totalName;
+        private final boolean totalFirst;
+        private final IntFunction<String> intervalName;
+        private boolean transposed;
 
-    private static class BaseHistoryTableModel extends AbstractTableModel {
-        private final String[] columnNames;
-        private final Object[][] data;
-
-        public BaseHistoryTableModel(
-            List<List<List<Passenger>>> history,
-            String label,
-            LocalTime startTime,
-            int interval,
-            int totalIntervals,
-            DateTimeFormatter fmt
-        ) {
-            // clamp negative totalIntervals to zero
-            int ti = Math.max(totalIntervals, 0);
-
-            columnNames = new String[ti + 1];
-            columnNames[0] = "Time";
-            for (int i = 0; i < ti; i++) {
-                columnNames[i + 1] =
-                    startTime.plusMinutes((long)(i + 1) * interval).format(fmt);
-            }
+        private int[] totals;          // per interval, built on first use
+        private String[] intervalNames; // formatted lazily
+
+        IntervalTableModel(int series,
+                           int intervals,
+                           Counts counts,
+                           String[] seriesNames,
+                           String totalName,
+                           boolean totalFirst,
+                           IntFunction<String> intervalName,
+                           boolean transposed) {
+            this.series = series;
+            this.intervals = intervals;
+            this.counts = counts;
+            this.seriesNames = seriesNames;
+            this.totalName = totalName;
+            this.totalFirst = totalFirst;
+            this.intervalName = intervalName;
+            this.transposed = transposed;
+        }
 
-            int lines = history.isEmpty() ? 0 : history.get(0).size();
-            data = new Object[lines + 1][ti + 1];
+        void setTransposed(boolean transposed) {
+            if (this.transposed == transposed) return;
+            this.transposed = transposed;
+            fireTableStructureChanged();
+        }
+
+        @Override public int getRowCount() {
+            return transposed ? intervals : series + 1;
+        }
 
-            // first column labels
-            data[0][0] = "Total " + label;
-            for (int r = 1; r <= lines; r++) {
-                data[r][0] = label + " " + r;
+        @Override public int getColumnCount() {
+            return transposed ? series + 2 : intervals + 1;
+        }
+
+        @Override public String getColumnName(int col) {
+            if (col == 0) return "Time";
+            return transposed ? seriesName(col - 1) : intervalLabel(col - 1);
+        }
+
+        @Override public Object getValueAt(int row, int col) {
+            if (transposed) {
+                if (col == 0) return intervalLabel(row);
+                return value(col - 1, row);
             }
+            if (col == 0) return seriesName(row);
+            return value(row, col - 1);
+        }
+
+        /** Position p in series order, where the total sits first or last. */
+        private int seriesIndex(int p) {
+            if (totalFirst) return p == 0 ? -1 : p - 1;
+            return p == series ? -1 : p;
+        }
+
+        private String seriesName(int p) {
+            int s = seriesIndex(p);
+            return s < 0 ? totalName : seriesNames[s];
+        }
 
-            // fill counts
-            for (int c = 0; c < ti; c++) {
-                int sum = 0;
-                for (int r = 1; r <= lines; r++) {
-                    int count = history.get(c).get(r - 1).size();
-                    data[r][c + 1] = count;
-                    sum += count;
+        private int value(int p, int interval) {
+            int s = seriesIndex(p);
+            return s < 0 ? total(interval) : counts.get(s, interval);
+        }
+
+        private int total(int interval) {
+            if (totals == null) {
+                int[] t = new int[intervals];
+                for (int c = 0; c < intervals; c++) {
+                    int sum = 0;
+                    for (int s = 0; s < series; s++) {
+                        sum += counts.get(s, c);
+                    }
+                    t[c] = sum;
                 }
-                data[0][c + 1] = sum;
+                totals = t;
             }
+            return totals[interval];
         }
 
-        @Override public int getRowCount() { return data.length; }
-        @Override public int getColumnCount() { return columnNames.length; }
-        @Override public String getColumnName(int col) { return columnNames[col]; }
-        @Override public Object getValueAt(int row, int col) { return data[row][col]; }
+        private String intervalLabel(int interval) {
+            if (intervalNames == null) {
+                intervalNames = new String[intervals];
+            }
+            String n = intervalNames[interval];
+            if (n == null) {
+                n = intervalName.apply(interval);
+                intervalNames[interval] = n;
+            }
+            return n;
+        }
     }
 }
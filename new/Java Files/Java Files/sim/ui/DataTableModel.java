@@ -38,10 +38,6 @@ public class DataTableModel extends AbstractTableModel {
 
 
         // Compute absolute time window
-        LocalTime firstDep = flights.stream()
-            .map(Flight::getDepartureTime)
-            .min(LocalTime::compareTo)
-            .orElse(LocalTime.MIDNIGHT);
         int arrivalSpan = engine.getArrivalSpan();          // e.g. 120 minutes
         int totalMinutes = arrivalSpan - 20;                // as per ArrivalGenerator
 
@@ -50,7 +46,7 @@ public class DataTableModel extends AbstractTableModel {
         columnNames = new String[totalMinutes + 1];
         columnNames[0] = "Minute";
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("HH:mm");
-        LocalTime startTime = firstDep.minusMinutes(arrivalSpan);
+        LocalTime startTime = engine.getGlobalStart();
         for (int m = 0; m < totalMinutes; m++) {
             columnNames[m + 1] = startTime.plusMinutes(m).format(fmt);
         }
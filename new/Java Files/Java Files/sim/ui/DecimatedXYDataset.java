@@ -0,0 +1,201 @@
+package sim.ui;
+
+import sim.service.SeriesBuffer;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeListener;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+
+import javax.swing.SwingUtilities;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Single-series chart dataset that serves a pixel-sized view of a {@link SeriesBuffer}.
+ *
+ * The buffer keeps every point; this dataset only exposes the visible x range,
+ * min/max-decimated to one bucket per horizontal pixel. Each bucket contributes its
+ * lowest and highest point in x order, so spikes and dips survive and the plotted
+ * line looks the same as the full-resolution one.
+ *
+ * Appending to the buffer does nothing by itself; {@link #refresh()} rebuilds the
+ * view and fires a single change event, so callers batch a whole frame's worth of
+ * points into one chart redraw. Also an IntervalXYDataset, so it can feed bar charts
+ * (each bar spans its bucket).
+ */
+public class DecimatedXYDataset extends AbstractIntervalXYDataset {
+    private final Comparable<?> key;
+    private final SeriesBuffer data;
+    private final double barWidth;
+
+    // requested view
+    private double viewLo = Double.NEGATIVE_INFINITY;
+    private double viewHi = Double.POSITIVE_INFINITY;
+    private int buckets = 1000;
+    private boolean viewChanged = true;
+    private int builtSize = -1;
+
+    // decimated points currently served to the chart
+    private double[] vx = new double[0];
+    private double[] vy = new double[0];
+    private int vn;
+    private double halfWidth;
+
+    /**
+     * @param barWidth x width of one undecimated point when drawn as a bar
+     */
+    public DecimatedXYDataset(Comparable<?> key, SeriesBuffer data, double barWidth) {
+        this.key = key;
+        this.data = data;
+        this.barWidth = barWidth;
+        this.halfWidth = barWidth / 2;
+    }
+
+    /** The full-resolution buffer; append to it, then call {@link #refresh()}. */
+    public SeriesBuffer getData() {
+        return data;
+    }
+
+    /** Serve x in [lo, hi] at {@code pixels} buckets; infinite bounds mean "everything". */
+    public void setView(double lo, double hi, int pixels) {
+        int b = Math.max(1, pixels);
+        if (lo != viewLo || hi != viewHi || b != buckets) {
+            viewLo = lo;
+            viewHi = hi;
+            buckets = b;
+            viewChanged = true;
+        }
+    }
+
+    /**
+     * Rebuild the view if the buffer grew or the view moved, firing one change event.
+     * @return whether anything changed
+     */
+    public boolean refresh() {
+        if (!viewChanged && builtSize == data.size()) {
+            return false;
+        }
+        rebuild();
+        viewChanged = false;
+        builtSize = data.size();
+        fireDatasetChanged();
+        return true;
+    }
+
+    /**
+     * Keep the view matched to a chart's domain axis and plot width: zooming in
+     * re-decimates from the full data, and auto-range shows everything.
+     */
+    public void bindTo(ChartPanel chartPanel) {
+        ValueAxis axis = chartPanel.getChart().getXYPlot().getDomainAxis();
+        Runnable update = () -> {
+            Rectangle2D area = chartPanel.getScreenDataArea();
+            int pixels = area != null && area.getWidth() > 0
+                    ? (int) Math.ceil(area.getWidth())
+                    : Math.max(1, chartPanel.getWidth());
+            if (axis.isAutoRange()) {
+                setView(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, pixels);
+            } else {
+                setView(axis.getLowerBound(), axis.getUpperBound(), pixels);
+            }
+            refresh();
+        };
+        // deferred so the axis has finished updating and the data area is laid out
+        AxisChangeListener onAxis = e -> SwingUtilities.invokeLater(update);
+        axis.addChangeListener(onAxis);
+        chartPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                SwingUtilities.invokeLater(update);
+            }
+        });
+    }
+
+    private void rebuild() {
+        int n = data.size();
+        int from = data.lowerBound(viewLo);
+        int to = data.upperBound(viewHi);
+        // one point either side so the line runs off the plot edge instead of stopping short
+        if (from > 0) from--;
+        if (to < n) to++;
+        int count = Math.max(0, to - from);
+
+        if (count <= 2 * buckets) {
+            ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                vx[i] = data.getX(from + i);
+                vy[i] = data.getY(from + i);
+            }
+            vn = count;
+            halfWidth = barWidth / 2;
+            return;
+        }
+
+        ensureCapacity(2 * buckets);
+        vn = 0;
+        double per = count / (double) buckets;
+        for (int k = 0; k < buckets; k++) {
+            int s = from + (int) (k * per);
+            int e = from + (int) ((k + 1) * per);
+            if (e <= s) continue;
+
+            int min = s, max = s;
+            for (int i = s + 1; i < e; i++) {
+                double y = data.getY(i);
+                if (y < data.getY(min)) min = i;
+                if (y > data.getY(max)) max = i;
+            }
+            int first = Math.min(min, max), second = Math.max(min, max);
+            emit(first);
+            if (second != first) emit(second);
+        }
+        double span = data.getX(to - 1) - data.getX(from);
+        halfWidth = Math.max(barWidth, span / buckets) / 2;
+    }
+
+    private void emit(int i) {
+        vx[vn] = data.getX(i);
+        vy[vn] = data.getY(i);
+        vn++;
+    }
+
+    private void ensureCapacity(int n) {
+        if (vx.length < n) {
+            vx = new double[n];
+            vy = new double[n];
+        }
+    }
+
+    // ---- XYDataset / IntervalXYDataset ----
+
+    @Override public int getSeriesCount() { return 1; }
+
+    @Override public Comparable<?> getSeriesKey(int series) { return key; }
+
+    @Override public DomainOrder getDomainOrder() { return DomainOrder.ASCENDING; }
+
+    @Override public int getItemCount(int series) { return vn; }
+
+    @Override public Number getX(int series, int item) { return vx[item]; }
+
+    @Override public double getXValue(int series, int item) { return vx[item]; }
+
+    @Override public Number getY(int series, int item) { return vy[item]; }
+
+    @Override public double getYValue(int series, int item) { return vy[item]; }
+
+    @Override public Number getStartX(int series, int item) { return vx[item] - halfWidth; }
+
+    @Override public double getStartXValue(int series, int item) { return vx[item] - halfWidth; }
+
+    @Override public Number getEndX(int series, int item) { return vx[item] + halfWidth; }
+
+    @Override public double getEndXValue(int series, int item) { return vx[item] + halfWidth; }
+
+    @Override public Number getStartY(int series, int item) { return vy[item]; }
+
+    @Override public Number getEndY(int series, int item) { return vy[item]; }
+}
@@ -0,0 +1,106 @@
+package sim.ui;
+
+import sim.service.LaneCells;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Low-detail drawing for hold rooms whose cells are too small for shapes: a room
+ * for a very large flight shrinks its cells towards {@link GridRenderer#MIN_CELL_SIZE}.
+ * Lane cells have a fixed size and never get this small, and a lane paints at most
+ * one window of cells, so lanes always draw shapes.
+ *
+ * Each passenger becomes one pixel, coloured by border class, written straight into
+ * the int[] of a scratch image that is then scaled up to the grid with
+ * nearest-neighbour sampling. The passenger count is drawn on top, since individual
+ * cells are no longer readable at this size.
+ *
+ * EDT only, like {@link SpriteCache}: the scratch image is shared.
+ */
+public final class DensityRaster {
+    /** Cells smaller than this on screen (after any transform scale) are rasterised. */
+    public static final int MIN_DETAIL_PIXELS = 6;
+
+    private static final Font COUNT_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 12);
+    private static final Color COUNT_BACKING = new Color(255, 255, 255, 200);
+
+    private static BufferedImage scratch = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+
+    private DensityRaster() {
+        // Prevent instantiation
+    }
+
+    /** True when cells of this size are big enough on screen to draw as shapes. */
+    public static boolean detailed(Graphics g, int cellSize) {
+        AffineTransform t = ((Graphics2D) g).getTransform();
+        double scale = Math.sqrt(Math.abs(t.getDeterminant()));
+        return cellSize * scale >= MIN_DETAIL_PIXELS;
+    }
+
+    /**
+     * Draw cells [first, last) laid out column-major, {@code rows} per column.
+     * Column 0 starts at (x, y); later columns go right.
+     *
+     * @param classRgb colour per {@link LaneCells} colour class
+     */
+    public static void draw(Graphics g,
+                            LaneCells cells,
+                            int first, int last,
+                            int rows,
+                            int x, int y,
+                            int cellSize,
+                            Color[] classRgb) {
+        int n = last - first;
+        if (n <= 0) return;
+        int cols = (n + rows - 1) / rows;
+
+        ensureScratch(cols, rows);
+        int stride = scratch.getWidth();
+        int[] px = ((DataBufferInt) scratch.getRaster().getDataBuffer()).getData();
+        for (int r = 0; r < rows; r++) {
+            Arrays.fill(px, r * stride, r * stride + cols, 0);
+        }
+
+        int[] argb = new int[classRgb.length];
+        for (int c = 0; c < argb.length; c++) {
+            argb[c] = 0xFF000000 | classRgb[c].getRGB();
+        }
+        for (int i = 0; i < n; i++) {
+            int idx = first + i;
+            px[(i % rows) * stride + i / rows] = argb[cells.colorClass(idx)];
+        }
+
+        g.drawImage(scratch, x, y, x + cols * cellSize, y + rows * cellSize, 0, 0, cols, rows, null);
+    }
+
+    /** Centre {@code count} over the given area on a light backing. */
+    public static void drawCount(Graphics g, int count, int x, int y, int w, int h) {
+        Font old = g.getFont();
+        g.setFont(COUNT_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        String s = String.valueOf(count);
+        int tw = fm.stringWidth(s), th = fm.getAscent();
+        int tx = x + (w - tw) / 2, ty = y + (h + th) / 2;
+
+        g.setColor(COUNT_BACKING);
+        g.fillRect(tx - 3, ty - th, tw + 6, th + fm.getDescent());
+        g.setColor(Color.BLACK);
+        g.drawString(s, tx, ty);
+        g.setFont(old);
+    }
+
+    private static void ensureScratch(int cols, int rows) {
+        if (scratch.getWidth() >= cols && scratch.getHeight() >= rows) return;
+        int w = Math.max(scratch.getWidth(), Integer.highestOneBit(cols - 1) << 1);
+        int h = Math.max(scratch.getHeight(), Integer.highestOneBit(rows - 1) << 1);
+        scratch = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -1,18 +1,15 @@
 package sim.ui;
 
 import sim.model.Flight;
-import sim.model.Passenger;
+import sim.service.EngineView;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
 import java.awt.*;
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
 
 public class FlightSnapshotFrame extends JFrame {
     private final SimulationEngine engine;
-    private final int step;
+    private final EngineView view;
 
     /**
      * Legacy constructor: shows snapshot at the most recently closed interval.
@@ -23,24 +20,15 @@ public class FlightSnapshotFrame extends JFrame {
 
     /**
      * New full constructor: show snapshot at a specific history step.
-     * @param engine the simulation engine (must have runAllIntervals() beforehand)
+     * @param engine the simulation engine; it is only read, never rewound
      * @param flight the flight to filter by
      * @param step   the interval index into the history lists
      */
     public FlightSnapshotFrame(SimulationEngine engine, Flight flight, int step) {
         super("Snapshot — Flight " + flight.getFlightNumber());
         this.engine = engine;
-        this.step   = Math.max(0, step);
-
-        // Bump engine.currentInterval so that the panels pick up the correct history step.
-        // (Panels typically render step = engine.getCurrentInterval() - 1)
-        try {
-            Field curr = SimulationEngine.class.getDeclaredField("currentInterval");
-            curr.setAccessible(true);
-            curr.setInt(engine, this.step + 1);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // panels render step = interval - 1; the view pins that without touching the engine
+        this.view   = engine.viewAt(Math.max(0, step) + 1);
 
         initUI(flight);
     }
@@ -59,9 +47,8 @@ public class FlightSnapshotFrame extends JFrame {
         int panelWidth = queuedW + boxSize + servedW + padding;
 
         // --- Ticket panel ---
-        List<Rectangle> areas1 = new ArrayList<>();
-        List<Passenger> pass1  = new ArrayList<>();
-        TicketLinesPanel ticketPanel = new TicketLinesPanel(engine, areas1, pass1, flight);
+        TicketLinesPanel ticketPanel = new TicketLinesPanel(engine, flight);
+        ticketPanel.setFrame(view.getFrame());
         ticketPanel.setPreferredSize(
             new Dimension(panelWidth, ticketPanel.getPreferredSize().height)
         );
@@ -72,9 +59,8 @@ public class FlightSnapshotFrame extends JFrame {
         );
 
         // --- Checkpoint panel ---
-        List<Rectangle> areas2 = new ArrayList<>();
-        List<Passenger> pass2  = new ArrayList<>();
-        CheckpointLinesPanel checkpointPanel = new CheckpointLinesPanel(engine, areas2, pass2, flight);
+        CheckpointLinesPanel checkpointPanel = new CheckpointLinesPanel(engine, flight);
+        checkpointPanel.setFrame(view.getFrame());
         checkpointPanel.setPreferredSize(
             new Dimension(panelWidth, checkpointPanel.getPreferredSize().height)
         );
@@ -86,6 +72,7 @@ public class FlightSnapshotFrame extends JFrame {
 
         // --- Hold-rooms panel ---
         HoldRoomsPanel holdPanel = new HoldRoomsPanel(engine, flight);
+        holdPanel.setFrame(view.getFrame());
         JScrollPane holdScroll = new JScrollPane(
             holdPanel,
             JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
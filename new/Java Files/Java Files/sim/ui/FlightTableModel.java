@@ -7,6 +7,7 @@ package sim.ui;
 
 
 import sim.model.Flight;
+import sim.service.ScheduleImporter;
 import javax.swing.table.AbstractTableModel;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -14,7 +15,7 @@ import java.util.List;
 
 
 public class FlightTableModel extends AbstractTableModel {
-    private final String[] columns = {"Flight #","Dep Time","Seats","Fill%","Shape"};
+    private final String[] columns = {"Flight #","Dep Time","Seats","Fill%","Shape","Day"};
     private final List<Flight> flights = new ArrayList<>();
 
 
@@ -26,6 +27,7 @@ public class FlightTableModel extends AbstractTableModel {
             case 2: return Integer.class;
             case 3: return Double.class;
             case 4: return Flight.ShapeType.class;
+            case 5: return Integer.class;
             default: return String.class;
         }
     }
@@ -42,6 +44,7 @@ public class FlightTableModel extends AbstractTableModel {
             case 2: return f.getSeats();
             case 3: return f.getFillPercent();
             case 4: return f.getShape();
+            case 5: return f.getDepartureDay();
             default: return null;
         }
     }
@@ -59,15 +62,8 @@ public class FlightTableModel extends AbstractTableModel {
                     f.setFlightNumber(val.toString());
                     break;
                 case 1:
-                    String s = val.toString();
-                    if (s.contains(".")) {
-                        String[] p = s.split("\\.");
-                        f.setDepartureTime(LocalTime.of(
-                            Integer.parseInt(p[0]), Integer.parseInt(p[1])
-                        ));
-                    } else {
-                        f.setDepartureTime(LocalTime.parse(s));
-                    }
+                    LocalTime dep = ScheduleImporter.parseDepartureTime(val.toString());
+                    if (dep != null) f.setDepartureTime(dep);
                     break;
                 case 2:
                     f.setSeats((Integer)val);
@@ -78,6 +74,9 @@ public class FlightTableModel extends AbstractTableModel {
                 case 4:
                     f.setShape((Flight.ShapeType)val);
                     break;
+                case 5:
+                    f.setDepartureDay(Math.max(0, (Integer)val));
+                    break;
             }
         } catch (Exception ex) {
             // ignore invalid input
@@ -92,6 +91,15 @@ public class FlightTableModel extends AbstractTableModel {
     }
 
 
+    /** Append many flights with a single table event (e.g. an imported schedule). */
+    public void addFlights(List<Flight> more) {
+        if (more.isEmpty()) return;
+        int first = flights.size();
+        flights.addAll(more);
+        fireTableRowsInserted(first, flights.size()-1);
+    }
+
+
     public void removeFlight(int idx) {
         flights.remove(idx);
         fireTableRowsDeleted(idx, idx);
@@ -5,11 +5,14 @@ package sim.ui;
 
 
 import sim.model.Flight;
+import sim.service.ScheduleImporter;
 import javax.swing.*;
 import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.io.File;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 
 public class FlightTablePanel extends JPanel {
@@ -48,12 +51,63 @@ addBtn.addActionListener(e -> model.addFlight(
             int sel = table.getSelectedRow();
             if (sel >= 0) model.removeFlight(sel);
         });
+        JButton importBtn = new JButton("Import Schedule...");
+        importBtn.addActionListener(e -> importSchedule(importBtn));
         JPanel btnPanel = new JPanel();
         btnPanel.add(addBtn);
         btnPanel.add(removeBtn);
+        btnPanel.add(importBtn);
         add(btnPanel, BorderLayout.SOUTH);
     }
 
 
+    /** Read a schedule file off the EDT, then add every good row in one table event. */
+    private void importSchedule(JButton button) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Schedule");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        button.setEnabled(false);
+        new SwingWorker<ScheduleImporter.Result, Void>() {
+            @Override
+            protected ScheduleImporter.Result doInBackground() throws Exception {
+                return ScheduleImporter.importFile(file.toPath());
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                ScheduleImporter.Result result;
+                try {
+                    result = get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(FlightTablePanel.this,
+                        "Cannot import " + file.getName() + ": " + ex.getCause().getMessage(),
+                        "Import Schedule",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                model.addFlights(result.getFlights());
+                if (result.getRejected() > 0) {
+                    StringBuilder msg = new StringBuilder();
+                    msg.append("Imported ").append(result.getFlights().size())
+                       .append(" flights; skipped ").append(result.getRejected()).append(" lines:\n");
+                    for (String p : result.getProblems()) msg.append(p).append('\n');
+                    JTextArea area = new JTextArea(msg.toString(), 15, 60);
+                    area.setEditable(false);
+                    JOptionPane.showMessageDialog(FlightTablePanel.this,
+                        new JScrollPane(area),
+                        "Import Schedule",
+                        JOptionPane.WARNING_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+
     public List<Flight> getFlights() { return model.getFlights(); }
 }
@@ -11,10 +11,10 @@ public class GlobalInputPanel extends JPanel {
     private final JTextField transitDelayField;
     private final JTextField holdroomDelayField;    // ✱ new
     private final JTextField intervalField;
+    private final JTextField trailingWindowField;
 
     public GlobalInputPanel() {
-        // now 7 rows instead of 6
-        setLayout(new GridLayout(7, 2, 5, 5));
+        setLayout(new GridLayout(8, 2, 5, 5));
 
         percentInPersonField = addLabeledField("% In Person (0-1):");
         checkpointsField     = addLabeledField("# of Checkpoints:");
@@ -23,6 +23,7 @@ public class GlobalInputPanel extends JPanel {
         transitDelayField    = addLabeledField("Transit Delay (min):");
         holdroomDelayField   = addLabeledField("Hold-room Delay (min):");  // ✱
         intervalField        = addLabeledField("Interval (min):");
+        trailingWindowField  = addLabeledField("Keep History (min, 0 = all):");
 
         // defaults
         percentInPersonField.setText("0.4");
@@ -31,6 +32,7 @@ public class GlobalInputPanel extends JPanel {
         arrivalSpanField.setText("120");
         transitDelayField.setText("2");
         holdroomDelayField.setText("5");  // default hold-room delay
+        trailingWindowField.setText("0"); // multi-day schedules: e.g. 1440
 
         // force interval = 1 and disable editing
         intervalField.setText("1");
@@ -57,8 +59,11 @@ intervalField.setForeground(Color.BLACK); // keep text readable
     public double getPercentInPerson()   { return Double.parseDouble(percentInPersonField.getText()); }
     public int    getNumCheckpoints()    { return Integer.parseInt(checkpointsField.getText()); }
     public double getRatePerCheckpoint() { return Double.parseDouble(rateCheckpointField.getText()); }
+    public void   setRatePerCheckpoint(double rate) { rateCheckpointField.setText(String.valueOf(Math.round(rate * 1000) / 1000.0)); }
     public int    getArrivalSpanMinutes(){ return Integer.parseInt(arrivalSpanField.getText()); }
     public int    getTransitDelayMinutes(){return Integer.parseInt(transitDelayField.getText());}
+    /** Intervals of history kept in memory; 0 keeps the whole run */
+    public int    getTrailingWindowMinutes(){ return Integer.parseInt(trailingWindowField.getText()); }
     /** Always returns 1 */
     public int    getIntervalMinutes()   { return 1; }
 }
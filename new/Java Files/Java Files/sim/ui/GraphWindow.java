@@ -1,30 +1,29 @@
 package sim.ui;
 
+import sim.service.SeriesBuffer;
+
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.data.category.DefaultCategoryDataset;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Map;
 
 public class GraphWindow extends JFrame {
 
-    public GraphWindow(String title, Map<Integer, Integer> heldUpData) {
+    public GraphWindow(String title, SeriesBuffer heldUpData) {
         super(title);
 
-        // Create dataset from simulation data
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        for (Map.Entry<Integer, Integer> entry : heldUpData.entrySet()) {
-            dataset.addValue(entry.getValue(), "Held Up", "Interval " + entry.getKey());
-        }
+        // Decimated view of the simulation data, sized to the plot width
+        DecimatedXYDataset dataset = new DecimatedXYDataset("Held Up", heldUpData, 1.0);
+        dataset.refresh();
 
         // Create chart
-        JFreeChart chart = ChartFactory.createBarChart(
+        JFreeChart chart = ChartFactory.createXYBarChart(
                 "Passenger Hold-Ups by Interval",
                 "Interval (min)",
+                false,
                 "Passengers Held",
                 dataset,
                 PlotOrientation.VERTICAL,
@@ -34,6 +33,7 @@ public class GraphWindow extends JFrame {
         // Set up chart panel
         ChartPanel panel = new ChartPanel(chart);
         panel.setPreferredSize(new Dimension(600, 400));
+        dataset.bindTo(panel);
         setContentPane(panel);
 
         pack();
@@ -2,13 +2,14 @@ package sim.ui;
 
 import sim.model.Flight;
 import sim.model.Passenger;
+import sim.service.IntervalFrame;
+import sim.service.LaneCells;
 import sim.service.SimulationEngine;
 
 import javax.swing.JComponent;
 import javax.swing.JViewport;
 import java.awt.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GridRenderer {
     private static final int ROWS = 3;
@@ -20,49 +21,105 @@ public class GridRenderer {
     public static final int HOLD_ROWS      = 9;      // 9 rows of passengers
     public static final int MIN_CELL_SIZE  = 3;      // never shrink below 3px
     public static final int HOLD_GAP        = 10;     // horizontal gap between hold rooms
+    private static final int HOLD_COL_WIDTH = HOLD_BOX_SIZE + 20;
+    private static final int HOLD_ROW_HEIGHT = HOLD_BOX_SIZE + 10;  // 10px between rooms
+
+    // border colour per LaneCells colour class (IN_PERSON, ONLINE, MISSED)
+    private static final Color[] BORDER_COLORS = {
+        new Color(200, 100, 0), Color.BLUE, Color.RED
+    };
+
+    // lane geometry shared by the ticket and checkpoint renderers
+    private static final int LANE_TOP  = 50;
+    private static final int LANE_BOX  = 60;
+    // box, grids, scrollbar and border spill all lie within centreY ± this
+    private static final int LANE_HALF = LANE_BOX / 2 + LANE_BOX / ROWS / 2 + 4;
+    // the 2.5px shape border spills just outside each cell
+    private static final int CELL_SPILL = 2;
+
+    /** Vertical distance between lane centres in a panel of height h. */
+    static int laneSpacing(int h, int lines) {
+        int rawSpace = lines > 1 ? (h - 2 * LANE_TOP) / (lines - 1) : 0;
+        return Math.max(rawSpace, MIN_LINE_SPACING);
+    }
+
+    /**
+     * Everything lane {@code lane} paints, across the full panel width; used to
+     * repaint just that lane when one of its grids is scrolled.
+     */
+    public static Rectangle laneBounds(Component panel, int lines, int lane) {
+        int centerY = LANE_TOP + lane * laneSpacing(panel.getHeight(), lines);
+        return new Rectangle(0, centerY - LANE_HALF, panel.getWidth(), 2 * LANE_HALF);
+    }
+
+    /** First lane whose band reaches below y (lanes are sorted top to bottom). */
+    private static int firstLaneBelow(int y, int space) {
+        return Math.max(0, Math.floorDiv(y - LANE_TOP - LANE_HALF, space) + 1);
+    }
+
+    /** Last lane whose band starts above y. */
+    private static int lastLaneAbove(int y, int space, int lines) {
+        return Math.min(lines - 1, Math.floorDiv(y + LANE_HALF - LANE_TOP, space));
+    }
+
+    private static boolean inClip(Rectangle clip, int x, int y, int w, int h) {
+        return x - CELL_SPILL < clip.x + clip.width  && x + w + CELL_SPILL > clip.x
+            && y - CELL_SPILL < clip.y + clip.height && y + h + CELL_SPILL > clip.y;
+    }
+
+    private static Rectangle clipOf(Graphics g, JComponent panel) {
+        Rectangle clip = g.getClipBounds();
+        return clip != null ? clip : new Rectangle(0, 0, panel.getWidth(), panel.getHeight());
+    }
 
     /**
      * Draws both the queued and served ticket‐counter grids,
      * including scrollbars and click‐to‐inspect hit rectangles.
+     * Only lanes inside the clip are painted, and only lanes inside the
+     * visible rectangle get hit rectangles.
      */
     public static void renderTicketLines(JComponent panel,
                                          Graphics g,
                                          SimulationEngine engine,
+                                         IntervalFrame frame,
                                          int[] queuedOffsets,
                                          int[] servedOffsets,
-                                         List<Rectangle> clickableAreas,
-                                         List<Passenger> clickablePassengers,
                                          List<Rectangle> counterAreas,
                                          Flight filterFlight) {
-        clickableAreas.clear();
-        clickablePassengers.clear();
         counterAreas.clear();
 
         int w = panel.getWidth();
         int h = panel.getHeight();
 
         int leftX = w / 2;
-        int top = 50, bottom = h - 50;
-        int boxSize = 60;
+        int top = LANE_TOP;
+        int boxSize = LANE_BOX;
         int cellW = boxSize / ROWS;
         int gridHeight = ROWS * cellW;
         int gridWidth = COLS * cellW;
         int trackH = cellW / 2;
 
-        int step = engine.getCurrentInterval() - 1;
+        int step = frame.getStep();
         if (step < 0) return;
 
-        int lines = engine.getTicketLines().size();
-        int rawSpace = lines > 1 ? (bottom - top) / (lines - 1) : 0;
-        int space = Math.max(rawSpace, MIN_LINE_SPACING);
+        int lines = frame.getQueuedTicket().size();
+        int filterIdx = filterFlight == null ? -1 : engine.getFlights().indexOf(filterFlight);
+        int space = laneSpacing(h, lines);
+
+        Rectangle clip = clipOf(g, panel);
+        int first = firstLaneBelow(clip.y, space);
+        int last  = lastLaneAbove(clip.y + clip.height, space, lines);
 
         for (int i = 0; i < lines; i++) {
-            int centerY = space > 0 ? top + i * space : h / 2;
+            int centerY = top + i * space;
             int boxX = leftX - boxSize / 2, boxY = centerY - boxSize / 2;
 
+            // counter hit boxes stay indexed by lane
+            counterAreas.add(new Rectangle(boxX, boxY, boxSize, boxSize));
+            if (i < first || i > last) continue;
+
             g.setColor(Color.BLACK);
             g.drawRect(boxX, boxY, boxSize, boxSize);
-            counterAreas.add(new Rectangle(boxX, boxY, boxSize, boxSize));
             String label = String.valueOf(engine.getCounterConfigs().get(i).getId());
             FontMetrics fm = g.getFontMetrics();
             int tw = fm.stringWidth(label), th = fm.getAscent();
@@ -70,16 +127,13 @@ public class GridRenderer {
             g.drawString(label, tx, ty);
             
             g.setColor(Color.YELLOW);
-            List<Passenger> fullQ = engine.getHistoryQueuedTicket().get(step).get(i);
-            List<Passenger> queued = filterFlight == null
-                ? fullQ
-                : fullQ.stream().filter(p -> p.getFlight() == filterFlight).collect(Collectors.toList());
+            LaneCells queued = frame.getQueuedTicket().get(i).forFlight(filterIdx);
             int startXq = boxX - cellW;
 
             int fullColsQ = (queued.size() + ROWS - 1) / ROWS;
             queuedOffsets[i] = Math.max(0, Math.min(queuedOffsets[i], Math.max(0, fullColsQ - COLS)));
-            drawGridPartial(g, queued, startXq, boxY + (boxSize - gridHeight) / 2, cellW, cellW, ROWS,
-                            queuedOffsets[i], clickableAreas, clickablePassengers);
+            drawGridPartial(g, engine, queued, startXq, boxY + (boxSize - gridHeight) / 2, cellW, cellW, ROWS,
+                            queuedOffsets[i], clip);
 
             if (fullColsQ > COLS) {
                 int trackXq = startXq - (COLS - 1) * cellW;
@@ -94,22 +148,13 @@ public class GridRenderer {
             }
 
             g.setColor(Color.GREEN);
-            List<Passenger> fullS;
-            if (filterFlight == null) {
-                fullS = engine.getVisibleCompletedTicketLine(i);
-            } else {
-                int delay = engine.getTransitDelayMinutes();
-                fullS = engine.getHistoryServedTicket().get(step).get(i).stream()
-                    .filter(p -> p.getFlight() == filterFlight)
-                    .filter(p -> p.getTicketCompletionMinute() + delay > step)
-                    .collect(Collectors.toList());
-            }
+            LaneCells fullS = frame.getVisibleServedTicket().get(i).forFlight(filterIdx);
             int startXs = boxX + boxSize + (COLS - 1) * cellW;
 
             int fullColsS = (fullS.size() + ROWS - 1) / ROWS;
             servedOffsets[i] = Math.max(0, Math.min(servedOffsets[i], Math.max(0, fullColsS - COLS)));
-            drawGridPartial(g, fullS, startXs, boxY + (boxSize - gridHeight) / 2, cellW, cellW, ROWS,
-                            servedOffsets[i], clickableAreas, clickablePassengers);
+            drawGridPartial(g, engine, fullS, startXs, boxY + (boxSize - gridHeight) / 2, cellW, cellW, ROWS,
+                            servedOffsets[i], clip);
 
             if (fullColsS > COLS) {
                 int trackXs = startXs - gridWidth + cellW;
@@ -127,47 +172,50 @@ public class GridRenderer {
 
     /**
      * Draws both the queued and served checkpoint‐grid, same pattern
-     * but right‐aligned.
+     * but right‐aligned, with the same clip culling.
      */
     public static void renderCheckpointLines(JComponent panel,
                                              Graphics g,
                                              SimulationEngine engine,
+                                             IntervalFrame frame,
                                              int[] queuedOffsets,
                                              int[] servedOffsets,
-                                             List<Rectangle> clickableAreas,
-                                             List<Passenger> clickablePassengers,
                                              List<Rectangle> counterAreas,
                                              Flight filterFlight) {
-        clickableAreas.clear();
-        clickablePassengers.clear();
         counterAreas.clear();
 
         int w = panel.getWidth();
         int h = panel.getHeight();
 
         int rightX = w / 2;
-        int top = 50, bottom = h - 50;
-        int boxSize = 60;
+        int top = LANE_TOP;
+        int boxSize = LANE_BOX;
         int cellW = boxSize / ROWS;
         int gridH = ROWS * cellW;
         int gridW = COLS * cellW;
         int trackH = cellW / 2;
 
-        int step = engine.getCurrentInterval() - 1;
+        int step = frame.getStep();
         if (step < 0) return;
 
-        int lines = engine.getCheckpointLines().size();
-        int rawSpace = lines > 1 ? (bottom - top) / (lines - 1) : 0;
-        int space = Math.max(rawSpace, MIN_LINE_SPACING);
+        int lines = frame.getQueuedCheckpoint().size();
+        int filterIdx = filterFlight == null ? -1 : engine.getFlights().indexOf(filterFlight);
+        int space = laneSpacing(h, lines);
+
+        Rectangle clip = clipOf(g, panel);
+        int first = firstLaneBelow(clip.y, space);
+        int last  = lastLaneAbove(clip.y + clip.height, space, lines);
 
         for (int i = 0; i < lines; i++) {
-            int centerY = space > 0 ? top + i * space : h / 2;
+            int centerY = top + i * space;
             int boxX = rightX - boxSize / 2;
             int boxY = centerY - boxSize / 2;
 
+            counterAreas.add(new Rectangle(boxX, boxY, boxSize, boxSize));
+            if (i < first || i > last) continue;
+
             g.setColor(Color.BLACK);
             g.drawRect(boxX, boxY, boxSize, boxSize);
-            counterAreas.add(new Rectangle(boxX, boxY, boxSize, boxSize));
 
             String lbl = String.valueOf(i + 1);
             FontMetrics fm2 = g.getFontMetrics();
@@ -176,16 +224,12 @@ public class GridRenderer {
             g.drawString(lbl, x2, y2);
 
             g.setColor(Color.YELLOW);
-            List<Passenger> fullQC = engine.getHistoryQueuedCheckpoint().get(step).get(i);
-            List<Passenger> queuedC = filterFlight == null
-                ? fullQC
-                : fullQC.stream().filter(p -> p.getFlight() == filterFlight).collect(Collectors.toList());
+            LaneCells queuedC = frame.getQueuedCheckpoint().get(i).forFlight(filterIdx);
             int startXc = boxX - cellW;
-            drawGridPartial(g, queuedC, startXc,
+            drawGridPartial(g, engine, queuedC, startXc,
                             boxY + (boxSize - gridH) / 2,
                             cellW, cellW, ROWS,
-                            queuedOffsets[i],
-                            clickableAreas, clickablePassengers);
+                            queuedOffsets[i], clip);
 
             int fullColsQC = (queuedC.size() + ROWS - 1) / ROWS;
             if (fullColsQC > COLS) {
@@ -202,16 +246,12 @@ public class GridRenderer {
             }
 
             g.setColor(Color.GREEN);
-            List<Passenger> fullSC = engine.getHistoryServedCheckpoint().get(step).get(i);
-            List<Passenger> servedC = filterFlight == null
-                ? fullSC
-                : fullSC.stream().filter(p -> p.getFlight() == filterFlight).collect(Collectors.toList());
+            LaneCells servedC = frame.getServedCheckpoint().get(i).forFlight(filterIdx);
             int startXsc = boxX + boxSize + (COLS - 1) * cellW;
-            drawGridPartial(g, servedC, startXsc,
+            drawGridPartial(g, engine, servedC, startXsc,
                             boxY + (boxSize - gridH) / 2,
                             cellW, cellW, ROWS,
-                            servedOffsets[i],
-                            clickableAreas, clickablePassengers);
+                            servedOffsets[i], clip);
 
             int fullColsSC = (servedC.size() + ROWS - 1) / ROWS;
             if (fullColsSC > COLS) {
@@ -229,117 +269,207 @@ public class GridRenderer {
         }
     }
 
-    // shared helper
+    // shared helper; paints only the cells inside clip
     private static void drawGridPartial(Graphics g,
-                                        List<Passenger> list,
+                                        SimulationEngine engine,
+                                        LaneCells list,
                                         int startX,
                                         int startY,
                                         int cellW,
                                         int cellH,
                                         int rows,
                                         int offset,
-                                        List<Rectangle> clickableAreas,
-                                        List<Passenger> clickablePassengers) {
+                                        Rectangle clip) {
         int size     = list.size();
         int fullCols = (size + rows - 1) / rows;
         int total    = Math.min(size, fullCols * rows);
 
-        for (int idx = 0; idx < total; idx++) {
+        List<Flight> flights = engine.getFlights();
+
+        // only the COLS columns in view, starting at the scroll offset
+        int first = Math.max(0, Math.min(total, offset * rows));
+        int last  = Math.min(total, (offset + COLS) * rows);
+
+        for (int idx = first; idx < last; idx++) {
             int row = idx % rows;
-            int col = idx / rows;
-            int rel = col - offset;
-            if (rel < 0 || rel >= COLS) continue;
+            int rel = idx / rows - offset;
 
             int x = startX - rel * cellW;
             int y = startY + row * cellH;
 
-            Passenger p = list.get(idx);
-            Color darkerOrange = new Color(200, 100, 0);
-            boolean completedCkpt = p.getCheckpointCompletionMinute() >= 0;
-            Color borderColor = (p.isMissed() && !completedCkpt)
-                                ? Color.RED
-                                : (p.isInPerson() ? darkerOrange : Color.BLUE);
-
-            ShapePainter.paintShape(
-                g,
-                p.getFlight().getShape(),
-                x, y, cellW, cellH,
-                borderColor
-            );
-
-            clickableAreas.add(new Rectangle(x, y, cellW, cellH));
-            clickablePassengers.add(p);
+            if (inClip(clip, x, y, cellW, cellH)) {
+                SpriteCache.drawShape(
+                    g,
+                    flights.get(list.flightIndex(idx)).getShape(),
+                    x, y, cellW, cellH,
+                    BORDER_COLORS[list.colorClass(idx)]
+                );
+            }
         }
     }
 
     /**
      * Draws the hold-room boxes, one per flight, in a horizontal row.
+     * Only rooms inside the clip are painted.
      */
     public static void renderHoldRooms(JComponent panel,
                                        Graphics g,
                                        SimulationEngine engine,
-                                       List<Rectangle> clickableAreas,
-                                       List<Passenger> clickablePassengers,
+                                       IntervalFrame frame,
                                        Flight filterFlight) {
-        clickableAreas.clear();
-        clickablePassengers.clear();
-
-        int step = engine.getCurrentInterval() - 1;
+        int step = frame.getStep();
         if (step < 0) return;
 
         // snapshot of hold-room contents at this step
-        List<List<Passenger>> snapshot = engine.getHistoryHoldRooms().get(step);
+        List<LaneCells> snapshot = frame.getHoldRooms();
+        List<Flight> flights = engine.getFlights();
+        int filterIdx = filterFlight == null ? -1 : flights.indexOf(filterFlight);
 
-        // compute how many rows per column will fit _visibly_ in the scroll viewport
-        int availableHeight;
-        Container parent = panel.getParent();
-        if (parent instanceof JViewport) {
-            availableHeight = ((JViewport) parent).getExtentSize().height - 2 * HOLD_GAP;
-        } else {
-            availableHeight = panel.getHeight() - 2 * HOLD_GAP;
-        }
-        int rowHeight = HOLD_BOX_SIZE + 10;  // 10px between rooms
-        int maxRows = Math.max(1, availableHeight / rowHeight);
+        int maxRows = holdRoomRows(panel);
+        int rooms = snapshot.size();
+        int cols = (rooms + maxRows - 1) / maxRows;
 
-        for (int i = 0; i < snapshot.size(); i++) {
-            int col = i / maxRows;
-            int row = i % maxRows;
+        Rectangle clip = clipOf(g, panel);
+        int firstCol = Math.max(0, (clip.x - HOLD_GAP - HOLD_BOX_SIZE) / HOLD_COL_WIDTH);
+        int lastCol  = Math.min(cols - 1, (clip.x + clip.width - HOLD_GAP) / HOLD_COL_WIDTH);
+        int firstRow = Math.max(0, (clip.y - HOLD_GAP - HOLD_BOX_SIZE) / HOLD_ROW_HEIGHT);
+        int lastRow  = Math.min(maxRows - 1, (clip.y + clip.height - HOLD_GAP) / HOLD_ROW_HEIGHT);
 
-            int boxX = HOLD_GAP + col * (HOLD_BOX_SIZE + 20);
-            int boxY = HOLD_GAP + row * rowHeight;
+        for (int col = firstCol; col <= lastCol; col++) {
+          for (int row = firstRow; row <= lastRow; row++) {
+            int i = col * maxRows + row;
+            if (i >= rooms) break;
+
+            int boxX = HOLD_GAP + col * HOLD_COL_WIDTH;
+            int boxY = HOLD_GAP + row * HOLD_ROW_HEIGHT;
 
             // outline container
             g.setColor(Color.BLACK);
             g.drawRect(boxX, boxY, HOLD_BOX_SIZE, HOLD_BOX_SIZE);
 
-            Flight f = engine.getFlights().get(i);
-            List<Passenger> full = filterFlight == null
-                ? snapshot.get(i)
-                : snapshot.get(i).stream()
-                          .filter(p -> p.getFlight() == filterFlight)
-                          .collect(Collectors.toList());
+            Flight f = flights.get(i);
+            LaneCells full = snapshot.get(i).forFlight(filterIdx);
 
             // fixed cell size per flight
             int cellSize = engine.getHoldRoomCellSize(f);
+            int rows = Math.max(1, GridRenderer.HOLD_BOX_SIZE / cellSize);
+
+            // too small to read as shapes: one pixel per passenger plus the count
+            if (!DensityRaster.detailed(g, cellSize)) {
+                DensityRaster.draw(g, full, 0, full.size(), rows, boxX, boxY, cellSize, BORDER_COLORS);
+                if (full.size() > 0) {
+                    DensityRaster.drawCount(g, full.size(), boxX, boxY, HOLD_BOX_SIZE, HOLD_BOX_SIZE);
+                }
+                continue;
+            }
 
             for (int idx = 0; idx < full.size(); idx++) {
-                int rows = Math.max(1, GridRenderer.HOLD_BOX_SIZE / cellSize);
                 int r    = idx % rows;
                 int c    = idx / rows;
                 int x    = boxX + c * cellSize;
                 int y    = boxY + r * cellSize;
-                Passenger p = full.get(idx);
 
-                Color borderColor = p.isMissed()
-                    ? Color.RED
-                    : (p.isInPerson() ? new Color(200,100,0) : Color.BLUE);
+                if (inClip(clip, x, y, cellSize, cellSize)) {
+                    SpriteCache.drawShape(g, flights.get(full.flightIndex(idx)).getShape(),
+                                            x, y, cellSize, cellSize,
+                                            BORDER_COLORS[full.colorClass(idx)]);
+                }
+            }
+          }
+        }
+    }
+
+    /** Rows of hold rooms per column: as many as fit in the visible viewport height. */
+    private static int holdRoomRows(JComponent panel) {
+        int availableHeight;
+        Container parent = panel.getParent();
+        if (parent instanceof JViewport) {
+            availableHeight = ((JViewport) parent).getExtentSize().height - 2 * HOLD_GAP;
+        } else {
+            availableHeight = panel.getHeight() - 2 * HOLD_GAP;
+        }
+        return Math.max(1, availableHeight / HOLD_ROW_HEIGHT);
+    }
 
-                ShapePainter.paintShape(g, p.getFlight().getShape(),
-                                        x, y, cellSize, cellSize, borderColor);
+    // ----------------------------------------------------------------
+    // Hit testing: invert the layout above instead of keeping a
+    // rectangle per painted passenger.
 
-                clickableAreas.add(new Rectangle(x, y, cellSize, cellSize));
-                clickablePassengers.add(p);
-            }
+    /**
+     * Passenger painted at {@code pt} by renderTicketLines or renderCheckpointLines
+     * (both share the lane layout), or null.
+     */
+    public static Passenger passengerInLanes(JComponent panel,
+                                             List<LaneCells> queued,
+                                             List<LaneCells> served,
+                                             int[] queuedOffsets,
+                                             int[] servedOffsets,
+                                             int filterIdx,
+                                             Point pt) {
+        int lines = queued.size();
+        if (lines == 0) return null;
+
+        int cellW = LANE_BOX / ROWS;
+        int space = laneSpacing(panel.getHeight(), lines);
+        int lane = Math.floorDiv(pt.y - LANE_TOP + space / 2, space);
+        if (lane < 0 || lane >= lines) return null;
+
+        int boxX = panel.getWidth() / 2 - LANE_BOX / 2;
+        int boxY = LANE_TOP + lane * space - LANE_BOX / 2;
+        int row = Math.floorDiv(pt.y - boxY, cellW);
+        if (row < 0 || row >= ROWS) return null;
+
+        // grids grow leftwards from their start column
+        int startXq = boxX - cellW;
+        int startXs = boxX + LANE_BOX + (COLS - 1) * cellW;
+        if (pt.x < boxX) {
+            return cellAt(queued.get(lane).forFlight(filterIdx), queuedOffsets[lane],
+                          -Math.floorDiv(pt.x - startXq, cellW), row);
         }
+        if (pt.x >= boxX + LANE_BOX) {
+            return cellAt(served.get(lane).forFlight(filterIdx), servedOffsets[lane],
+                          -Math.floorDiv(pt.x - startXs, cellW), row);
+        }
+        return null;
+    }
+
+    private static Passenger cellAt(LaneCells cells, int offset, int rel, int row) {
+        if (rel < 0 || rel >= COLS) return null;
+        int idx = (offset + rel) * ROWS + row;
+        return idx < cells.size() ? cells.passenger(idx) : null;
+    }
+
+    /** Passenger painted at {@code pt} by renderHoldRooms, or null. */
+    public static Passenger passengerInHoldRooms(JComponent panel,
+                                                 SimulationEngine engine,
+                                                 IntervalFrame frame,
+                                                 Flight filterFlight,
+                                                 Point pt) {
+        if (frame.getStep() < 0) return null;
+        List<LaneCells> snapshot = frame.getHoldRooms();
+        List<Flight> flights = engine.getFlights();
+
+        int maxRows = holdRoomRows(panel);
+        int col = Math.floorDiv(pt.x - HOLD_GAP, HOLD_COL_WIDTH);
+        int row = Math.floorDiv(pt.y - HOLD_GAP, HOLD_ROW_HEIGHT);
+        if (col < 0 || row < 0 || row >= maxRows) return null;
+        int i = col * maxRows + row;
+        if (i >= snapshot.size()) return null;
+
+        int boxX = HOLD_GAP + col * HOLD_COL_WIDTH;
+        int boxY = HOLD_GAP + row * HOLD_ROW_HEIGHT;
+        // the gaps between rooms belong to no room
+        if (pt.x - boxX >= HOLD_BOX_SIZE || pt.y - boxY >= HOLD_BOX_SIZE) return null;
+        int cellSize = engine.getHoldRoomCellSize(flights.get(i));
+        int rows = Math.max(1, HOLD_BOX_SIZE / cellSize);
+
+        int r = (pt.y - boxY) / cellSize;
+        int c = (pt.x - boxX) / cellSize;
+        if (r >= rows) return null;
+
+        int filterIdx = filterFlight == null ? -1 : flights.indexOf(filterFlight);
+        LaneCells full = snapshot.get(i).forFlight(filterIdx);
+        int idx = c * rows + r;
+        return idx < full.size() ? full.passenger(idx) : null;
     }
 }
@@ -2,6 +2,7 @@ package sim.ui;
 
 import sim.model.Flight;
 import sim.model.Passenger;
+import sim.service.IntervalFrame;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
@@ -10,8 +11,6 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 public class HoldRoomsPanel extends JPanel {
     private static final int HOLD_BOX_SIZE = GridRenderer.HOLD_BOX_SIZE;
@@ -19,17 +18,13 @@ public class HoldRoomsPanel extends JPanel {
 
     private final SimulationEngine engine;
     private final Flight           filterFlight;
-    private final List<Rectangle>  clickableAreas;
-    private final List<Passenger>  clickablePassengers;
 
-    public HoldRoomsPanel(SimulationEngine engine,
-                            List<Rectangle> clickableAreas,
-                            List<Passenger> clickablePassengers,
-                            Flight filterFlight) {
+    // frame to paint; null = follow the engine's current interval
+    private IntervalFrame          frame;
+
+    public HoldRoomsPanel(SimulationEngine engine, Flight filterFlight) {
         this.engine              = engine;
         this.filterFlight        = filterFlight;
-        this.clickableAreas      = clickableAreas;
-        this.clickablePassengers = clickablePassengers;
 
         int count  = engine.getFlights().size();
         int width  = HOLD_GAP + count * (HOLD_BOX_SIZE + HOLD_GAP);
@@ -39,31 +34,33 @@ public class HoldRoomsPanel extends JPanel {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                for (int i = 0; i < clickableAreas.size(); i++) {
-                    if (clickableAreas.get(i).contains(e.getPoint())) {
-                        Passenger p = clickablePassengers.get(i);
-                        showPassengerDetails(p);
-                        return;
-                    }
+                Passenger p = GridRenderer.passengerInHoldRooms(
+                    HoldRoomsPanel.this, engine, currentFrame(), filterFlight, e.getPoint());
+                if (p != null) {
+                    showPassengerDetails(p);
                 }
             }
         });
     }
 
-    public HoldRoomsPanel(SimulationEngine engine, Flight filterFlight) {
-        this(engine, new ArrayList<>(), new ArrayList<>(), filterFlight);
-    }
-
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         GridRenderer.renderHoldRooms(
-            this, g, engine,
-            clickableAreas, clickablePassengers,
+            this, g, engine, currentFrame(),
             filterFlight
         );
     }
 
+    /** Paint this frame from now on (EDT only). */
+    public void setFrame(IntervalFrame frame) {
+        this.frame = frame;
+    }
+
+    IntervalFrame currentFrame() {
+        return frame != null ? frame : engine.currentFrame();
+    }
+
     private void showPassengerDetails(Passenger p) {
        // compute sim start
         LocalTime simStart = p.getFlight()
@@ -1,14 +1,23 @@
 package sim.ui;
 
 import sim.model.Flight;
+import sim.service.QueueObservations;
+import sim.service.RateCalibrator;
+import sim.service.RunFile;
+import sim.service.SensitivityAnalysis;
+import sim.service.SessionFile;
 import sim.service.SimulationEngine;
+import sim.service.StaffingOptimizer;
 import sim.ui.TicketCounterConfig;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class MainFrame extends JFrame {
     private GlobalInputPanel   globalInputPanel;
@@ -41,8 +50,62 @@ public class MainFrame extends JFrame {
         tabs.addTab("Ticket Counters", ticketCounterPanel);
         add(tabs, BorderLayout.CENTER);
 
-        // South: launch button
-        add(startSimulationButton, BorderLayout.SOUTH);
+        // South: launch button, plus reopening an archived run and the studies
+        JButton openRunButton = new JButton("Open Run...");
+        openRunButton.addActionListener(e -> onOpenRun());
+        JButton optimizeButton = new JButton("Optimize Staffing...");
+        optimizeButton.addActionListener(e -> onOptimizeStaffing(optimizeButton));
+        JButton calibrateButton = new JButton("Calibrate Rates...");
+        calibrateButton.addActionListener(e -> onCalibrateRates(calibrateButton));
+        JButton sensitivityButton = new JButton("Sensitivity...");
+        sensitivityButton.addActionListener(e -> onSensitivity(sensitivityButton));
+        JPanel tools = new JPanel(new GridLayout(1, 3));
+        tools.add(optimizeButton);
+        tools.add(calibrateButton);
+        tools.add(sensitivityButton);
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(tools, BorderLayout.WEST);
+        south.add(startSimulationButton, BorderLayout.CENTER);
+        south.add(openRunButton, BorderLayout.EAST);
+        add(south, BorderLayout.SOUTH);
+    }
+
+    private void onOpenRun() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Open Run");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        try {
+            RunFile run = RunFile.open(file.toPath());
+            if (run.hasSession() && askResume(file.getName())) {
+                SimulationEngine engine;
+                try {
+                    engine = SessionFile.reopen(run);
+                } finally {
+                    run.close();
+                }
+                new SimulationFrame(engine).setVisible(true);
+            } else {
+                new RunReviewFrame(run, file.getName()).setVisible(true);
+            }
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Cannot open " + file.getName() + ": " + ex.getMessage(),
+                "Open Run",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /** A saved session can be resumed in the simulation view or just reviewed. */
+    private boolean askResume(String name) {
+        Object[] options = { "Resume Simulation", "Review" };
+        int choice = JOptionPane.showOptionDialog(this,
+            name + " is a saved session.",
+            "Open Run",
+            JOptionPane.DEFAULT_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null, options, options[0]);
+        return choice == 0;
     }
 
     private void onStartSimulation() {
@@ -74,6 +137,7 @@ public class MainFrame extends JFrame {
             int    interval          = globalInputPanel.getIntervalMinutes();
             int    transitDelay      = globalInputPanel.getTransitDelayMinutes();
             int    holdDelay         = globalInputPanel.getHoldroomDelayMinutes(); // new
+            int    trailingWindow    = globalInputPanel.getTrailingWindowMinutes();
             List<Flight> flights     = flightTablePanel.getFlights();
 
             // build the pre-run engine for the data table (populate its history)
@@ -88,6 +152,7 @@ public class MainFrame extends JFrame {
                 holdDelay,      // pass hold-room delay here
                 flights
             );
+            tableEngine.setTrailingWindow(trailingWindow);
             // ◀– run all intervals to fill history before showing table
             tableEngine.runAllIntervals();
 
@@ -103,6 +168,7 @@ public class MainFrame extends JFrame {
                 holdDelay,      // and here
                 flights
             );
+            simEngine.setTrailingWindow(trailingWindow);
 
             new DataTableFrame(tableEngine).setVisible(true);
             new SimulationFrame(simEngine).setVisible(true);
@@ -119,5 +185,298 @@ public class MainFrame extends JFrame {
                 JOptionPane.ERROR_MESSAGE);
         }
     }
-}
 
+    /** Search counter and checkpoint staffing for the current flights, off the EDT. */
+    private void onOptimizeStaffing(JButton button) {
+        List<Flight> flights = flightTablePanel.getFlights();
+        List<TicketCounterConfig> counters = ticketCounterPanel.getCounters();
+        if (flights.isEmpty() || counters.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Please add at least one flight and one ticket counter first.",
+                "Optimize Staffing",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        StaffingOptimizer optimizer;
+        try {
+            optimizer = new StaffingOptimizer(
+                globalInputPanel.getPercentInPerson(),
+                counters,
+                globalInputPanel.getArrivalSpanMinutes(),
+                globalInputPanel.getIntervalMinutes(),
+                globalInputPanel.getTransitDelayMinutes(),
+                globalInputPanel.getHoldroomDelayMinutes(),
+                flights
+            );
+            JTextField missedField = new JTextField("0");
+            JTextField maxCountersField = new JTextField(String.valueOf(2 * counters.size()));
+            JTextField maxCheckpointsField = new JTextField(
+                String.valueOf(Math.max(8, 2 * globalInputPanel.getNumCheckpoints())));
+            JTextField ratesField = new JTextField(String.valueOf(globalInputPanel.getRatePerCheckpoint()));
+            JPanel form = new JPanel(new GridLayout(4, 2, 5, 5));
+            form.add(new JLabel("Max Missed per Flight:"));
+            form.add(missedField);
+            form.add(new JLabel("Max Counters:"));
+            form.add(maxCountersField);
+            form.add(new JLabel("Max Checkpoints:"));
+            form.add(maxCheckpointsField);
+            form.add(new JLabel("Checkpoint Rates (comma separated):"));
+            form.add(ratesField);
+            if (JOptionPane.showConfirmDialog(this, form, "Optimize Staffing",
+                    JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+                return;
+            }
+
+            optimizer.setMaxMissedPerFlight(Integer.parseInt(missedField.getText().trim()));
+            optimizer.setMaxCounters(Integer.parseInt(maxCountersField.getText().trim()));
+            optimizer.setMaxCheckpoints(Integer.parseInt(maxCheckpointsField.getText().trim()));
+            String[] parts = ratesField.getText().split(",");
+            double[] rates = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) rates[i] = Double.parseDouble(parts[i].trim());
+            optimizer.setCheckpointRates(rates);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Invalid number: " + ex.getMessage(),
+                "Optimize Staffing",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        button.setEnabled(false);
+        new SwingWorker<StaffingOptimizer.Result, Void>() {
+            @Override
+            protected StaffingOptimizer.Result doInBackground() {
+                return optimizer.optimize();
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    showStaffing(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error optimizing staffing: " + ex.getCause().getMessage(),
+                        "Optimize Staffing",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void showStaffing(StaffingOptimizer.Result result) {
+        StringBuilder sb = new StringBuilder();
+        if (result.getBest() == null) {
+            sb.append("No configuration in range meets the target.\n");
+        } else {
+            sb.append("Best: ").append(result.getBest()).append("\n\nTrade-offs:\n");
+            for (StaffingOptimizer.Candidate c : result.getFrontier()) {
+                sb.append("  ").append(c).append("\n");
+            }
+        }
+        sb.append(String.format("%nSimulations: %d (%d stopped early), %d settled without running",
+            result.getRuns(), result.getStoppedEarly(), result.getSettledByDominance()));
+        JTextArea area = new JTextArea(sb.toString(), 12, 50);
+        area.setEditable(false);
+        JOptionPane.showMessageDialog(this,
+            new JScrollPane(area),
+            "Optimize Staffing",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /** Fit counter and checkpoint rates to observed queue lengths, off the EDT. */
+    private void onCalibrateRates(JButton button) {
+        List<Flight> flights = flightTablePanel.getFlights();
+        List<TicketCounterConfig> counters = ticketCounterPanel.getCounters();
+        if (flights.isEmpty() || counters.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Please add at least one flight and one ticket counter first.",
+                "Calibrate Rates",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Observed Queue Lengths");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        RateCalibrator calibrator;
+        try {
+            int numCheckpoints = globalInputPanel.getNumCheckpoints();
+            QueueObservations observed = QueueObservations.read(file.toPath(), counters.size(), numCheckpoints);
+            calibrator = new RateCalibrator(
+                globalInputPanel.getPercentInPerson(),
+                counters,
+                numCheckpoints,
+                globalInputPanel.getRatePerCheckpoint(),
+                globalInputPanel.getArrivalSpanMinutes(),
+                globalInputPanel.getIntervalMinutes(),
+                globalInputPanel.getTransitDelayMinutes(),
+                globalInputPanel.getHoldroomDelayMinutes(),
+                flights,
+                observed
+            );
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Cannot calibrate from " + file.getName() + ": " + ex.getMessage(),
+                "Calibrate Rates",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        button.setEnabled(false);
+        new SwingWorker<RateCalibrator.Result, Void>() {
+            @Override
+            protected RateCalibrator.Result doInBackground() {
+                return calibrator.fit();
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    offerRates(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error calibrating rates: " + ex.getCause().getMessage(),
+                        "Calibrate Rates",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void offerRates(RateCalibrator.Result result) {
+        StringBuilder sb = new StringBuilder();
+        double[] rates = result.getCounterRates();
+        for (int i = 0; i < rates.length; i++) {
+            sb.append(String.format("Counter %d: %.3f/min%n", i + 1, rates[i]));
+        }
+        sb.append(String.format("Checkpoints: %.3f/min%n%n", result.getCheckpointRate()));
+        sb.append(String.format("RMS error: %.2f passengers%n", result.getError()));
+        sb.append(String.format("Simulations: %d (%d cached)", result.getRuns(), result.getCacheHits()));
+        JTextArea area = new JTextArea(sb.toString(), 12, 40);
+        area.setEditable(false);
+        Object[] options = { "Apply", "Close" };
+        int choice = JOptionPane.showOptionDialog(this,
+            new JScrollPane(area),
+            "Calibrate Rates",
+            JOptionPane.DEFAULT_OPTION,
+            JOptionPane.INFORMATION_MESSAGE,
+            null, options, options[0]);
+        if (choice == 0) {
+            ticketCounterPanel.setRates(rates);
+            globalInputPanel.setRatePerCheckpoint(result.getCheckpointRate());
+        }
+    }
+
+    /**
+     * Which inputs drive missed passengers: varies each input around its current
+     * value (a quarter either way; percent in person by 0.2) and shows Sobol indices.
+     */
+    private void onSensitivity(JButton button) {
+        List<Flight> flights = flightTablePanel.getFlights();
+        List<TicketCounterConfig> counters = ticketCounterPanel.getCounters();
+        if (flights.isEmpty() || counters.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Please add at least one flight and one ticket counter first.",
+                "Sensitivity",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        SensitivityAnalysis study;
+        try {
+            double inPerson = globalInputPanel.getPercentInPerson();
+            double cpRate = globalInputPanel.getRatePerCheckpoint();
+            int transit = globalInputPanel.getTransitDelayMinutes();
+            int hold = globalInputPanel.getHoldroomDelayMinutes();
+            study = new SensitivityAnalysis(
+                inPerson,
+                counters,
+                globalInputPanel.getNumCheckpoints(),
+                cpRate,
+                globalInputPanel.getArrivalSpanMinutes(),
+                globalInputPanel.getIntervalMinutes(),
+                transit,
+                hold,
+                flights
+            );
+            study.vary(SensitivityAnalysis.Factor.PERCENT_IN_PERSON,
+                Math.max(0, inPerson - 0.2), Math.min(1, inPerson + 0.2));
+            study.vary(SensitivityAnalysis.Factor.TRANSIT_DELAY, transit * 0.75, transit * 1.25 + 1);
+            study.vary(SensitivityAnalysis.Factor.HOLD_DELAY, hold * 0.75, hold * 1.25 + 1);
+            study.vary(SensitivityAnalysis.Factor.COUNTER_RATE, 0.75, 1.25);
+            study.vary(SensitivityAnalysis.Factor.CHECKPOINT_RATE, cpRate * 0.75, cpRate * 1.25);
+            study.vary(SensitivityAnalysis.Factor.FILL, 0.75, 1.25);
+
+            String samples = JOptionPane.showInputDialog(this,
+                "Base samples (each runs 8 simulations):", "256");
+            if (samples == null) return;
+            study.setBaseSamples(Integer.parseInt(samples.trim()));
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Invalid number: " + ex.getMessage(),
+                "Sensitivity",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Running sensitivity study", null, 0, study.totalRuns());
+        button.setEnabled(false);
+        new SwingWorker<SensitivityAnalysis.Result, Integer>() {
+            @Override
+            protected SensitivityAnalysis.Result doInBackground() {
+                study.setProgressListener(this::publish);
+                return study.run();
+            }
+
+            @Override
+            protected void process(List<Integer> done) {
+                monitor.setProgress(done.get(done.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                button.setEnabled(true);
+                try {
+                    showSensitivity(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error in sensitivity study: " + ex.getCause().getMessage(),
+                        "Sensitivity",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void showSensitivity(SensitivityAnalysis.Result result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Missed passengers: mean %.1f, variance %.1f over %d runs%n%n",
+            result.getMean(), result.getVariance(), result.getRuns()));
+        sb.append(String.format("%-28s %-22s %s%n", "Input", "First order", "Total effect"));
+        for (SensitivityAnalysis.Index i : result.getIndices()) {
+            sb.append(String.format("%-28s %5.2f [%5.2f, %5.2f]  %5.2f [%5.2f, %5.2f]%n",
+                i.getFactor(),
+                i.getFirst(), i.getFirstLow(), i.getFirstHigh(),
+                i.getTotal(), i.getTotalLow(), i.getTotalHigh()));
+        }
+        JTextArea area = new JTextArea(sb.toString(), 12, 70);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        area.setEditable(false);
+        JOptionPane.showMessageDialog(this,
+            new JScrollPane(area),
+            "Sensitivity",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+}
@@ -0,0 +1,307 @@
+package sim.ui;
+
+import sim.service.LaneCounts;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Heat map of queue length: one row per lane, one column per interval.
+ *
+ * Counts are pulled incrementally from a {@link LaneCounts} source into a local int[]
+ * and painted by writing pixels straight into a raster. Zoom (mouse wheel; Shift for
+ * lanes) and pan (drag) only resample the local copy, so the engine is never
+ * touched while exploring. Each pixel shows the largest count it covers, so short
+ * spikes stay visible when zoomed out. Double-click resets the view.
+ */
+public class QueueHeatMapPanel extends JPanel {
+    private static final int LEFT = 48, RIGHT = 56, TOP = 18, BOTTOM = 22;
+    private static final int[] PALETTE = buildPalette();
+
+    private final String title;
+    private final LaneCounts source;
+    private final String[] laneNames;
+    private final int lanes;
+
+    // local copy of the source, same layout (step-major)
+    private int[] data = new int[0];
+    private int steps;
+    private int generation = -1;
+    private int maxCount;
+
+    // view in data coordinates; null x/y span = fit everything
+    private double viewStep, viewSteps = -1;
+    private double viewLane, viewLanes = -1;
+    private int markerStep = -1;
+
+    private BufferedImage raster;
+    private int[] columnMax = new int[0];
+
+    // drag-to-pan state
+    private Point dragFrom;
+    private double dragStep, dragLane;
+
+    public QueueHeatMapPanel(String title, LaneCounts source, String[] laneNames) {
+        this.title = title;
+        this.source = source;
+        this.laneNames = laneNames;
+        this.lanes = source.lanes();
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(900, 240));
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override public void mouseWheelMoved(MouseWheelEvent e) { zoom(e); }
+            @Override public void mousePressed(MouseEvent e) {
+                dragFrom = e.getPoint();
+                dragStep = shownStep();
+                dragLane = shownLane();
+            }
+            @Override public void mouseDragged(MouseEvent e) { pan(e); }
+            @Override public void mouseReleased(MouseEvent e) { dragFrom = null; }
+            @Override public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    viewSteps = -1;
+                    viewLanes = -1;
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Pull any newly recorded intervals and move the "now" marker (EDT).
+     * Cheap when nothing changed: only new rows are copied.
+     */
+    public void sync(int currentInterval) {
+        boolean changed = false;
+        int gen = source.generation();
+        if (gen != generation) {
+            generation = gen;
+            steps = 0;
+            maxCount = 0;
+            changed = true;
+        }
+        int n = source.steps();
+        if (n > steps) {
+            if (data.length < n * lanes) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, n * lanes));
+            }
+            source.copyRows(steps, n, data);
+            for (int i = steps * lanes; i < n * lanes; i++) {
+                if (data[i] > maxCount) maxCount = data[i];
+            }
+            steps = n;
+            changed = true;
+        }
+        int marker = currentInterval - 1;
+        if (marker != markerStep) {
+            markerStep = marker;
+            changed = true;
+        }
+        if (changed) repaint();
+    }
+
+    // ---- view helpers ----
+
+    private double shownStep()  { return viewSteps > 0 ? viewStep : 0; }
+    private double shownSteps() { return viewSteps > 0 ? viewSteps : Math.max(1, steps); }
+    private double shownLane()  { return viewLanes > 0 ? viewLane : 0; }
+    private double shownLanes() { return viewLanes > 0 ? viewLanes : Math.max(1, lanes); }
+
+    private int plotW() { return Math.max(1, getWidth() - LEFT - RIGHT); }
+    private int plotH() { return Math.max(1, getHeight() - TOP - BOTTOM); }
+
+    private void zoom(MouseWheelEvent e) {
+        double factor = Math.pow(1.25, e.getPreciseWheelRotation());
+        if (e.isShiftDown()) {
+            double at = shownLane() + (e.getY() - TOP) / (double) plotH() * shownLanes();
+            double span = clampSpan(shownLanes() * factor, lanes);
+            viewLanes = span;
+            viewLane = clampStart(at - (at - shownLane()) * factor, span, lanes);
+        } else {
+            double at = shownStep() + (e.getX() - LEFT) / (double) plotW() * shownSteps();
+            double span = clampSpan(shownSteps() * factor, Math.max(1, steps));
+            viewSteps = span;
+            viewStep = clampStart(at - (at - shownStep()) * factor, span, Math.max(1, steps));
+        }
+        repaint();
+    }
+
+    private void pan(MouseEvent e) {
+        if (dragFrom == null) return;
+        double span = shownSteps();
+        viewSteps = span;
+        viewStep = clampStart(dragStep - (e.getX() - dragFrom.x) / (double) plotW() * span,
+                              span, Math.max(1, steps));
+        if (viewLanes > 0) {
+            viewLane = clampStart(dragLane - (e.getY() - dragFrom.y) / (double) plotH() * viewLanes,
+                                  viewLanes, lanes);
+        }
+        repaint();
+    }
+
+    private static double clampSpan(double span, int total) {
+        return Math.max(Math.min(4, total), Math.min(total, span));
+    }
+
+    private static double clampStart(double start, double span, int total) {
+        return Math.max(0, Math.min(total - span, start));
+    }
+
+    // ---- painting ----
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int w = plotW(), h = plotH();
+
+        g.setColor(Color.BLACK);
+        g.drawString(title + (steps == 0 ? " (no intervals yet)" : ""), LEFT, TOP - 4);
+        if (steps == 0 || lanes == 0) return;
+
+        renderRaster(w, h);
+        g.drawImage(raster, LEFT, TOP, LEFT + w, TOP + h, 0, 0, w, h, null);
+        g.setColor(Color.GRAY);
+        g.drawRect(LEFT - 1, TOP - 1, w + 1, h + 1);
+
+        paintAxes(g, w, h);
+        paintLegend(g, h);
+
+        // "now" marker
+        double s0 = shownStep(), ss = shownSteps();
+        if (markerStep >= s0 && markerStep < s0 + ss) {
+            int x = LEFT + (int) ((markerStep + 0.5 - s0) / ss * w);
+            g.setColor(Color.BLUE);
+            g.drawLine(x, TOP, x, TOP + h);
+        }
+    }
+
+    /** Resample the visible window into the raster: max count per pixel. */
+    private void renderRaster(int w, int h) {
+        if (raster == null || raster.getWidth() < w || raster.getHeight() < h) {
+            raster = new BufferedImage(Math.max(w, 1), Math.max(h, 1), BufferedImage.TYPE_INT_RGB);
+        }
+        int stride = raster.getWidth();
+        int[] px = ((DataBufferInt) raster.getRaster().getDataBuffer()).getData();
+
+        double s0 = shownStep(), ss = shownSteps();
+        double l0 = shownLane(), ls = shownLanes();
+
+        // lanes shown, and for each the max over every pixel column's step range
+        int laneFirst = (int) Math.floor(l0);
+        int laneLast = Math.min(lanes, (int) Math.ceil(l0 + ls));
+        int shownLaneCount = laneLast - laneFirst;
+        if (columnMax.length < shownLaneCount * w) {
+            columnMax = new int[shownLaneCount * w];
+        }
+        for (int x = 0; x < w; x++) {
+            int a = (int) Math.floor(s0 + x * ss / w);
+            int b = Math.max(a + 1, (int) Math.floor(s0 + (x + 1) * ss / w));
+            a = Math.min(a, steps - 1);
+            b = Math.min(b, steps);
+            for (int l = 0; l < shownLaneCount; l++) {
+                int lane = laneFirst + l;
+                int m = 0;
+                for (int s = a; s < b; s++) {
+                    int v = data[s * lanes + lane];
+                    if (v > m) m = v;
+                }
+                columnMax[l * w + x] = m;
+            }
+        }
+
+        double scale = maxCount > 0 ? (PALETTE.length - 1) / (double) maxCount : 0;
+        for (int y = 0; y < h; y++) {
+            int a = (int) Math.floor(l0 + y * ls / h) - laneFirst;
+            int b = Math.max(a + 1, (int) Math.floor(l0 + (y + 1) * ls / h) - laneFirst);
+            a = Math.max(0, Math.min(a, shownLaneCount - 1));
+            b = Math.min(b, shownLaneCount);
+            int row = y * stride;
+            for (int x = 0; x < w; x++) {
+                int m = 0;
+                for (int l = a; l < b; l++) {
+                    int v = columnMax[l * w + x];
+                    if (v > m) m = v;
+                }
+                px[row + x] = PALETTE[(int) (m * scale)];
+            }
+        }
+    }
+
+    private void paintAxes(Graphics g, int w, int h) {
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(Color.BLACK);
+
+        // lane labels, when rows are tall enough to read
+        double l0 = shownLane(), ls = shownLanes();
+        double rowH = h / ls;
+        if (rowH >= fm.getAscent()) {
+            for (int lane = (int) Math.floor(l0); lane < Math.min(lanes, l0 + ls); lane++) {
+                int y = TOP + (int) ((lane + 0.5 - l0) * rowH) + fm.getAscent() / 2;
+                String s = laneNames[lane];
+                g.drawString(s, LEFT - 4 - fm.stringWidth(s), y);
+            }
+        }
+
+        // interval ticks about every 100px
+        double s0 = shownStep(), ss = shownSteps();
+        int ticks = Math.max(1, w / 100);
+        for (int t = 0; t <= ticks; t++) {
+            int x = LEFT + t * w / ticks;
+            int interval = (int) Math.round(s0 + t * ss / ticks);
+            String s = String.valueOf(interval);
+            g.drawLine(x, TOP + h, x, TOP + h + 3);
+            g.drawString(s, x - fm.stringWidth(s) / 2, TOP + h + 4 + fm.getAscent());
+        }
+    }
+
+    private void paintLegend(Graphics g, int h) {
+        int x = getWidth() - RIGHT + 8;
+        for (int y = 0; y < h; y++) {
+            g.setColor(new Color(PALETTE[(PALETTE.length - 1) * (h - 1 - y) / Math.max(1, h - 1)]));
+            g.drawLine(x, TOP + y, x + 10, TOP + y);
+        }
+        g.setColor(Color.BLACK);
+        g.drawString(String.valueOf(maxCount), x + 14, TOP + g.getFontMetrics().getAscent());
+        g.drawString("0", x + 14, TOP + h);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        if (steps == 0 || lanes == 0) return null;
+        int x = e.getX() - LEFT, y = e.getY() - TOP;
+        if (x < 0 || y < 0 || x >= plotW() || y >= plotH()) return null;
+        int step = (int) Math.floor(shownStep() + x * shownSteps() / plotW());
+        int lane = (int) Math.floor(shownLane() + y * shownLanes() / plotH());
+        if (step >= steps || lane >= lanes) return null;
+        return laneNames[lane] + ", interval " + (step + 1) + ": " + data[step * lanes + lane] + " waiting";
+    }
+
+    /** White → yellow → orange → red → dark red. */
+    private static int[] buildPalette() {
+        int[][] stops = {
+            {255, 255, 255}, {255, 240, 120}, {255, 160, 40}, {220, 40, 20}, {110, 0, 0}
+        };
+        int[] lut = new int[256];
+        for (int i = 0; i < lut.length; i++) {
+            double t = i / 255.0 * (stops.length - 1);
+            int k = Math.min(stops.length - 2, (int) t);
+            double f = t - k;
+            int r = (int) Math.round(stops[k][0] + f * (stops[k + 1][0] - stops[k][0]));
+            int gr = (int) Math.round(stops[k][1] + f * (stops[k + 1][1] - stops[k][1]));
+            int b = (int) Math.round(stops[k][2] + f * (stops[k + 1][2] - stops[k][2]));
+            lut[i] = (r << 16) | (gr << 8) | b;
+        }
+        return lut;
+    }
+}
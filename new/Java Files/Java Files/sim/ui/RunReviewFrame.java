@@ -0,0 +1,135 @@
+package sim.ui;
+
+import sim.service.LaneCounts;
+import sim.service.RunData;
+import sim.service.RunFile;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Timeline for a reopened {@link RunFile}: scrub the recorded intervals, see queue
+ * heat maps and totals, and open the data tables, flight summary or held-ups graph.
+ *
+ * Everything is read from the file's mapped columns, so opening is instant and only
+ * the intervals actually looked at are paged in. The tables and summary opened from
+ * here read the same file, which is closed once the last of these windows closes.
+ */
+public class RunReviewFrame extends JFrame {
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final RunFile run;
+    // open windows reading the run (this one included); EDT only
+    private int users;
+
+    public RunReviewFrame(RunFile run, String name) {
+        super("Run Review - " + name);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(8, 8));
+        this.run = run;
+
+        LaneCounts ticketQueue = run.getTicketQueueCounts();
+        LaneCounts checkpointQueue = run.getCheckpointQueueCounts();
+        int steps = ticketQueue.steps();
+        LocalTime startTime = run.getGlobalStart();
+
+        // heat maps
+        String[] counterNames = run.getCounterConfigs().stream()
+            .map(c -> "Counter " + c.getId())
+            .toArray(String[]::new);
+        String[] checkpointNames = new String[checkpointQueue.lanes()];
+        for (int i = 0; i < checkpointNames.length; i++) {
+            checkpointNames[i] = "Checkpoint " + (i + 1);
+        }
+        QueueHeatMapPanel ticketHeatMap =
+            new QueueHeatMapPanel("Ticket queue length", ticketQueue, counterNames);
+        QueueHeatMapPanel checkpointHeatMap =
+            new QueueHeatMapPanel("Checkpoint queue length", checkpointQueue, checkpointNames);
+        JPanel heat = new JPanel(new GridLayout(2, 1, 0, 4));
+        heat.add(ticketHeatMap);
+        heat.add(checkpointHeatMap);
+        add(heat, BorderLayout.CENTER);
+
+        // timeline
+        JPanel timeline = new JPanel(new BorderLayout(8, 4));
+        timeline.setBorder(BorderFactory.createTitledBorder("Timeline (recorded intervals)"));
+        JLabel intervalLabel = new JLabel();
+        JSlider slider = new JSlider(0, steps, steps);
+        slider.setPaintTicks(true);
+        slider.setPaintLabels(true);
+        slider.setMajorTickSpacing(SimulationFrame.computeMajorTickSpacing(steps));
+        SimulationFrame.rebuildTimelineLabels(slider);
+        timeline.add(intervalLabel, BorderLayout.NORTH);
+        timeline.add(slider, BorderLayout.CENTER);
+
+        Runnable sync = () -> {
+            int interval = slider.getValue();
+            ticketHeatMap.sync(interval);
+            checkpointHeatMap.sync(interval);
+            String text = "Interval: " + interval + " / " + run.getTotalIntervals()
+                + "   " + startTime.plusMinutes((long) interval * run.getInterval()).format(TIME_FMT);
+            if (interval > 0) {
+                text += "   Ticket queue: " + rowTotal(ticketQueue, interval - 1)
+                    + "   Checkpoint queue: " + rowTotal(checkpointQueue, interval - 1);
+            }
+            intervalLabel.setText(text);
+        };
+        slider.addChangeListener(e -> sync.run());
+        sync.run();
+
+        // views over the whole run
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton tablesBtn = new JButton("Data Tables");
+        tablesBtn.addActionListener(e ->
+            share(new DataTableFrame(run, "Interval Data - " + name)).setVisible(true));
+        JButton summaryBtn = new JButton("Flights Summary");
+        summaryBtn.addActionListener(e ->
+            share(new FlightsSummaryFrame(run, "All Flights Summary - " + name)).setVisible(true));
+        JButton graphBtn = new JButton("Show Graph");
+        graphBtn.addActionListener(e ->
+            new GraphWindow("Passenger Hold-Ups by Interval", run.getHeldUpsSeries()).setVisible(true));
+        buttons.add(tablesBtn);
+        buttons.add(summaryBtn);
+        buttons.add(graphBtn);
+        buttons.add(new JLabel(run.getPassengerCount() + " passengers, "
+            + run.getFlights().size() + " flights"));
+        timeline.add(buttons, BorderLayout.SOUTH);
+        add(timeline, BorderLayout.SOUTH);
+
+        share(this);
+
+        setSize(1000, 650);
+        setLocationRelativeTo(null);
+    }
+
+    /** Count {@code w} as a user of the run until it closes; the last one out closes the file. */
+    private <W extends Window> W share(W w) {
+        users++;
+        w.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                w.removeWindowListener(this);
+                if (--users > 0) return;
+                try {
+                    run.close();
+                } catch (IOException ignored) {
+                    // read-only file; nothing to lose
+                }
+            }
+        });
+        return w;
+    }
+
+    private static int rowTotal(LaneCounts counts, int step) {
+        int sum = 0;
+        for (int lane = 0; lane < counts.lanes(); lane++) {
+            sum += counts.get(step, lane);
+        }
+        return sum;
+    }
+}
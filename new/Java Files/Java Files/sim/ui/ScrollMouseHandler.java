@@ -2,6 +2,9 @@ package sim.ui;
 
 import sim.model.Flight;
 import sim.model.Passenger;
+import sim.service.IntervalFrame;
+import sim.service.LaneCells;
+import sim.service.LaneCounts;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
@@ -12,7 +15,7 @@ import java.time.LocalTime;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Handles mouse interactions for scrolling queued and served passenger grids,
@@ -23,8 +26,7 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
     protected static final int COLS = 15;
 
     protected final SimulationEngine engine;
-    protected final List<Rectangle> clickableAreas;
-    protected final List<Passenger> clickablePassengers;
+    protected final Supplier<IntervalFrame> frames;   // frame currently on screen
     protected final int[] queuedOffsets;
     protected final int[] servedOffsets;
     protected final Flight filterFlight;
@@ -38,15 +40,13 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
     protected int initialOffset;
 
     public ScrollMouseHandler(SimulationEngine engine,
-                              List<Rectangle> clickableAreas,
-                              List<Passenger> clickablePassengers,
+                              Supplier<IntervalFrame> frames,
                               int[] queuedOffsets,
                               int[] servedOffsets,
                               Flight filterFlight,
                               List<Rectangle> counterAreas) {  // ← added param
         this.engine = engine;
-        this.clickableAreas = clickableAreas;
-        this.clickablePassengers = clickablePassengers;
+        this.frames = frames;
         this.queuedOffsets = queuedOffsets;
         this.servedOffsets = servedOffsets;
         this.filterFlight = filterFlight;
@@ -59,16 +59,45 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
     @Override public void mouseClicked(MouseEvent e)  { handleClick(e); }
 
     protected abstract void handlePress(MouseEvent e);
+
+    /** Index of filterFlight in the engine's flight list, or -1 for "all flights". */
+    protected int filterIndex() {
+        return filterFlight == null ? -1 : engine.getFlights().indexOf(filterFlight);
+    }
     protected abstract void handleDrag(MouseEvent e);
 
+    /** Passenger drawn under pt in the frame on screen, or null. */
+    protected abstract Passenger passengerAt(JComponent c, Point pt);
+
+    /** Only the dragged lane changes while scrolling; leave the rest of the panel alone. */
+    protected void repaintLane(Component c, int lines) {
+        Rectangle r = GridRenderer.laneBounds(c, lines, dragLine);
+        c.repaint(r.x, r.y, r.width, r.height);
+    }
+
+    /** {step, count} of lane's longest queue in counts; the earliest step on a tie. */
+    protected static int[] longestQueue(LaneCounts counts, int lane) {
+        int steps = counts.steps();
+        int lanes = counts.lanes();
+        int[] rows = new int[steps * lanes];
+        counts.copyRows(0, steps, rows);
+        int maxSize = 0, maxIdx = 0;
+        for (int j = 0; j < steps; j++) {
+            int sz = rows[j * lanes + lane];
+            if (sz > maxSize) {
+                maxSize = sz;
+                maxIdx  = j;
+            }
+        }
+        return new int[] { maxIdx, maxSize };
+    }
+
     /**
      * Click on a passenger “dot” shows its info.
      */
     protected void handleClick(MouseEvent e) {
-        Point pt = e.getPoint();
-        for (int i = 0; i < clickableAreas.size(); i++) {
-            if (clickableAreas.get(i).contains(pt)) {
-                Passenger p = clickablePassengers.get(i);
+        Passenger p = passengerAt((JComponent) e.getComponent(), e.getPoint());
+        if (p != null) {
                 LocalTime simStart = p.getFlight()
                                        .getDepartureTime()
                                        .minusMinutes(engine.getArrivalSpan());
@@ -104,8 +133,6 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
                     "Passenger Info",
                     JOptionPane.INFORMATION_MESSAGE
                 );
-                return;
-            }
         }
     }
 
@@ -113,13 +140,12 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
     // Ticket lines handler—uses historyQueuedTicket & visibleCompletedTicket
     public static class TicketScrollHandler extends ScrollMouseHandler {
         public TicketScrollHandler(SimulationEngine engine,
-                                   List<Rectangle> clickableAreas,
-                                   List<Passenger> clickablePassengers,
+                                   Supplier<IntervalFrame> frames,
                                    int[] queuedOffsets,
                                    int[] servedOffsets,
                                    Flight filterFlight,
                                    List<Rectangle> counterAreas) {
-            super(engine, clickableAreas, clickablePassengers,
+            super(engine, frames,
                   queuedOffsets, servedOffsets,
                   filterFlight, counterAreas);
         }
@@ -137,20 +163,13 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             int gridWidth = COLS * cellW;
             int gridHeight = ROWS * cellW;
             int trackH = cellW / 2;
-            int lines = engine.getTicketLines().size();
+            int lines = frames.get().getQueuedTicket().size();
             int rawSpace = lines > 1 ? (bottom - top) / (lines - 1) : 0;
             int space = Math.max(rawSpace, GridRenderer.MIN_LINE_SPACING);
 
             // queued scroll zone
             for (int i = 0; i < lines; i++) {
-                List<Passenger> fullQ = engine.getHistoryQueuedTicket()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(i);
-                List<Passenger> q = filterFlight == null
-                    ? fullQ
-                    : fullQ.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells q = frames.get().getQueuedTicket().get(i).forFlight(filterIndex());
                 int fullCols = (q.size() + ROWS - 1) / ROWS;
                 if (fullCols <= COLS) continue;
 
@@ -175,22 +194,8 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
 
             // served scroll zone (snapshot & live)
             for (int i = 0; i < lines; i++) {
-                List<Passenger> fullS;
-                if (filterFlight == null) {
-                    // live mode
-                    fullS = engine.getVisibleCompletedTicketLine(i);
-                } else {
-                    // snapshot mode: only those still within transit window
-                    int step  = engine.getCurrentInterval() - 1;
-                    int delay = engine.getTransitDelayMinutes();
-                    fullS = engine.getHistoryServedTicket()
-                                .get(step)
-                                .get(i)
-                                .stream()
-                                .filter(p -> p.getFlight() == filterFlight)
-                                .filter(p -> p.getTicketCompletionMinute() + delay > step)
-                                .collect(Collectors.toList());
-                }
+                // only those still within the transit window
+                LaneCells fullS = frames.get().getVisibleServedTicket().get(i).forFlight(filterIndex());
                 int fullCols = (fullS.size() + ROWS - 1) / ROWS;
                 if (fullCols <= COLS) continue;
 
@@ -221,39 +226,26 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             int cellW = 60 / ROWS;
 
             if (draggingQueued) {
-                List<Passenger> fullQ = engine.getHistoryQueuedTicket()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(dragLine);
-                List<Passenger> q = filterFlight == null
-                    ? fullQ
-                    : fullQ.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells q = frames.get().getQueuedTicket().get(dragLine).forFlight(filterIndex());
                 int fullCols = (q.size() + ROWS - 1) / ROWS;
 
                 int off = initialOffset + dx / cellW;
                 queuedOffsets[dragLine] = Math.max(0, Math.min(off, fullCols - COLS));
             } else {
-                List<Passenger> fullS;
-                if (filterFlight == null) {
-                    fullS = engine.getVisibleCompletedTicketLine(dragLine);
-                } else {
-                    int step  = engine.getCurrentInterval() - 1;
-                    int delay = engine.getTransitDelayMinutes();
-                    fullS = engine.getHistoryServedTicket()
-                                .get(step)
-                                .get(dragLine)
-                                .stream()
-                                .filter(p -> p.getFlight() == filterFlight)
-                                .filter(p -> p.getTicketCompletionMinute() + delay > step)
-                                .collect(Collectors.toList());
-                }
+                LaneCells fullS = frames.get().getVisibleServedTicket().get(dragLine).forFlight(filterIndex());
                 int fullCols = (fullS.size() + ROWS - 1) / ROWS;
                 int off = initialOffset + dx / cellW;
                 servedOffsets[dragLine] = Math.max(0, Math.min(off, fullCols - COLS));
             }
 
-            ((Component) e.getComponent()).repaint();
+            repaintLane(e.getComponent(), frames.get().getQueuedTicket().size());
+        }
+
+        @Override
+        protected Passenger passengerAt(JComponent c, Point pt) {
+            IntervalFrame frame = frames.get();
+            return GridRenderer.passengerInLanes(c, frame.getQueuedTicket(), frame.getVisibleServedTicket(),
+                                                 queuedOffsets, servedOffsets, filterIndex(), pt);
         }
 
         @Override
@@ -262,22 +254,19 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             Point pt = e.getPoint();
             for (int i = 0; i < counterAreas.size(); i++) {
                 if (counterAreas.get(i).contains(pt)) {
-                    int waiting, completed;
+                    IntervalFrame frame = frames.get();
+                    int waiting = frame.getQueuedTicket().get(i).forFlight(filterIndex()).size();
+                    int completed;
                     if (filterFlight == null) {
-                        waiting = engine.getTicketLines().get(i).size();
-                        completed = engine.getCompletedTicketLines().get(i).size();
+                        completed = frame.getServedTicketCount(i);
                     } else {
-                        int step = engine.getCurrentInterval() - 1;
-                        waiting = (int) engine.getHistoryQueuedTicket()
-                                            .get(step).get(i)
-                                            .stream()
-                                            .filter(p -> p.getFlight() == filterFlight)
-                                            .count();
-                        completed = (int) engine.getHistoryServedTicket()
-                                             .get(step).get(i)
-                                             .stream()
-                                             .filter(p -> p.getFlight() == filterFlight)
-                                             .count();
+                        synchronized (engine) {
+                            completed = frame.getStep() < 0 ? 0 : (int) engine.getHistoryServedTicket()
+                                                 .get(frame.getStep()).get(i)
+                                                 .stream()
+                                                 .filter(p -> p.getFlight() == filterFlight)
+                                                 .count();
+                        }
                     }
                     int id = engine.getCounterConfigs().get(i).getId();
                     // build the base message
@@ -287,23 +276,12 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
                         .append("\nCompleted: ").append(completed);
 
                     // ——— compute max queue & when ———
-                    var hist     = engine.getHistoryQueuedTicket();
                     int interval = engine.getInterval();
-                    LocalTime firstDep = engine.getFlights().stream()
-                        .map(Flight::getDepartureTime)
-                        .min(LocalTime::compareTo)
-                        .orElse(LocalTime.MIDNIGHT);
-                    LocalTime startTime = firstDep.minusMinutes(engine.getArrivalSpan());
+                    LocalTime startTime = engine.getGlobalStart();
                     DateTimeFormatter fmt = DateTimeFormatter.ofPattern("HH:mm");
 
-                    int maxSize = 0, maxIdx = 0;
-                    for (int j = 0; j < hist.size(); j++) {
-                        int sz = hist.get(j).get(i).size();
-                        if (sz > maxSize) {
-                            maxSize = sz;
-                            maxIdx  = j;
-                        }
-                    }
+                    int[] longest = longestQueue(engine.getTicketQueueCounts(), i);
+                    int maxIdx = longest[0], maxSize = longest[1];
                     LocalTime maxTime = startTime.plusMinutes((long)(maxIdx + 1) * interval);
 
                     msg.append("\nMax # in line: ").append(maxSize)
@@ -326,13 +304,12 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
     // Checkpoint lines handler—uses historyQueuedCheckpoint & historyServedCheckpoint
     public static class CheckpointScrollHandler extends ScrollMouseHandler {
         public CheckpointScrollHandler(SimulationEngine engine,
-                                       List<Rectangle> clickableAreas,
-                                       List<Passenger> clickablePassengers,
+                                       Supplier<IntervalFrame> frames,
                                        int[] queuedOffsets,
                                        int[] servedOffsets,
                                        Flight filterFlight,
                                        List<Rectangle> counterAreas) {
-            super(engine, clickableAreas, clickablePassengers,
+            super(engine, frames,
                   queuedOffsets, servedOffsets,
                   filterFlight, counterAreas);
         }
@@ -350,20 +327,13 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             int gridWidth = COLS * cellW;
             int gridHeight = ROWS * cellW;
             int trackH = cellW / 2;
-            int lines = engine.getCheckpointLines().size();
+            int lines = frames.get().getQueuedCheckpoint().size();
             int rawSpace = lines > 1 ? (bottom - top) / (lines - 1) : 0;
             int space = Math.max(rawSpace, GridRenderer.MIN_LINE_SPACING);
 
             // queued scroll zone
             for (int i = 0; i < lines; i++) {
-                List<Passenger> fullQ = engine.getHistoryQueuedCheckpoint()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(i);
-                List<Passenger> q = filterFlight == null
-                    ? fullQ
-                    : fullQ.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells q = frames.get().getQueuedCheckpoint().get(i).forFlight(filterIndex());
                 int fullCols = (q.size() + ROWS - 1) / ROWS;
                 if (fullCols <= COLS) continue;
 
@@ -388,14 +358,7 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
 
             // served scroll zone
             for (int i = 0; i < lines; i++) {
-                List<Passenger> fullS = engine.getHistoryServedCheckpoint()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(i);
-                List<Passenger> s = filterFlight == null
-                    ? fullS
-                    : fullS.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells s = frames.get().getServedCheckpoint().get(i).forFlight(filterIndex());
                 int fullCols = (s.size() + ROWS - 1) / ROWS;
                 if (fullCols <= COLS) continue;
 
@@ -426,31 +389,24 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             int cellW = 60 / ROWS;
 
             if (draggingQueued) {
-                List<Passenger> fullQ = engine.getHistoryQueuedCheckpoint()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(dragLine);
-                List<Passenger> q = filterFlight == null
-                    ? fullQ
-                    : fullQ.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells q = frames.get().getQueuedCheckpoint().get(dragLine).forFlight(filterIndex());
                 int fullCols = (q.size() + ROWS - 1) / ROWS;
                 int off = initialOffset + dx / cellW;
                 queuedOffsets[dragLine] = Math.max(0, Math.min(off, fullCols - COLS));
             } else {
-                List<Passenger> fullS = engine.getHistoryServedCheckpoint()
-                                              .get(engine.getCurrentInterval() - 1)
-                                              .get(dragLine);
-                List<Passenger> s = filterFlight == null
-                    ? fullS
-                    : fullS.stream()
-                           .filter(p -> p.getFlight() == filterFlight)
-                           .collect(Collectors.toList());
+                LaneCells s = frames.get().getServedCheckpoint().get(dragLine).forFlight(filterIndex());
                 int fullCols = (s.size() + ROWS - 1) / ROWS;
                 int off = initialOffset + dx / cellW;
                 servedOffsets[dragLine] = Math.max(0, Math.min(off, fullCols - COLS));
             }
-            ((Component) e.getComponent()).repaint();
+            repaintLane(e.getComponent(), frames.get().getQueuedCheckpoint().size());
+        }
+
+        @Override
+        protected Passenger passengerAt(JComponent c, Point pt) {
+            IntervalFrame frame = frames.get();
+            return GridRenderer.passengerInLanes(c, frame.getQueuedCheckpoint(), frame.getServedCheckpoint(),
+                                                 queuedOffsets, servedOffsets, filterIndex(), pt);
         }
 
         @Override
@@ -459,23 +415,9 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
             Point pt = e.getPoint();
             for (int i = 0; i < counterAreas.size(); i++) {
                 if (counterAreas.get(i).contains(pt)) {
-                    int waiting, completed;
-                    if (filterFlight == null) {
-                        waiting = engine.getCheckpointLines().get(i).size();
-                        completed = engine.getCompletedCheckpointLines().get(i).size();
-                    } else {
-                        int step = engine.getCurrentInterval() - 1;
-                        waiting = (int) engine.getHistoryQueuedCheckpoint()
-                                             .get(step).get(i)
-                                             .stream()
-                                             .filter(p -> p.getFlight() == filterFlight)
-                                             .count();
-                        completed = (int) engine.getHistoryServedCheckpoint()
-                                               .get(step).get(i)
-                                               .stream()
-                                               .filter(p -> p.getFlight() == filterFlight)
-                                               .count();
-                    }
+                    IntervalFrame frame = frames.get();
+                    int waiting = frame.getQueuedCheckpoint().get(i).forFlight(filterIndex()).size();
+                    int completed = frame.getServedCheckpoint().get(i).forFlight(filterIndex()).size();
                     int id = i + 1;
             // build the base message with StringBuilder
             StringBuilder msg = new StringBuilder()
@@ -484,24 +426,13 @@ public abstract class ScrollMouseHandler extends MouseAdapter {
                 .append("\nCompleted: ").append(completed);
 
             // ——— compute max queue & when ———
-            var hist     = engine.getHistoryQueuedCheckpoint();
             int interval = engine.getInterval();
-            // reconstruct sim start time
-            LocalTime firstDep = engine.getFlights().stream()
-                .map(Flight::getDepartureTime)
-                .min(LocalTime::compareTo)
-                .orElse(LocalTime.MIDNIGHT);
-            LocalTime startTime = firstDep.minusMinutes(engine.getArrivalSpan());
+            // sim start time
+            LocalTime startTime = engine.getGlobalStart();
             DateTimeFormatter fmt = DateTimeFormatter.ofPattern("HH:mm");
 
-            int maxSize = 0, maxIdx = 0;
-            for (int j = 0; j < hist.size(); j++) {
-                int sz = hist.get(j).get(i).size();
-                if (sz > maxSize) {
-                    maxSize = sz;
-                    maxIdx  = j;
-                }
-            }
+            int[] longest = longestQueue(engine.getCheckpointQueueCounts(), i);
+            int maxIdx = longest[0], maxSize = longest[1];
             LocalTime maxTime = startTime.plusMinutes((long)(maxIdx + 1) * interval);
 
             msg.append("\nMax # in line: ").append(maxSize)
@@ -12,6 +12,9 @@ import sim.model.Flight.ShapeType;
  * Utility class responsible for rendering passenger shapes with borders.
  */
 public class ShapePainter {
+    /** Shared border stroke; BasicStroke is immutable so one instance serves every call. */
+    static final BasicStroke BORDER_STROKE = new BasicStroke(2.5f);
+
     private ShapePainter() {
         // Prevent instantiation
     }
@@ -58,7 +61,7 @@ public class ShapePainter {
 
         // Draw thicker border
         g2.setColor(borderColor);
-        g2.setStroke(new BasicStroke(2.5f));  // <-- thicker border
+        g2.setStroke(BORDER_STROKE);  // <-- thicker border
 
 
         switch (type) {
@@ -1,31 +1,41 @@
 package sim.ui;
 
 import sim.model.Flight;
+import sim.service.IntervalFrame;
+import sim.service.PlaybackDriver;
+import sim.service.RunFile;
+import sim.service.SeriesBuffer;
+import sim.service.SessionFile;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import java.awt.*;
+import java.io.File;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Hashtable;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 public class SimulationFrame extends JFrame {
     private final JLabel            timeLabel;
     private final LocalTime         startTime;
     private final DateTimeFormatter TIME_FMT     = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int        FRAME_MS     = 16;   // ~60 Hz display refresh during AutoRun
 
     private final JButton           autoRunBtn;
     private final JButton           pausePlayBtn;
     private final JButton           summaryBtn;
     private final JSlider           speedSlider;
 
-    // remove final so it can be referenced in lambdas before assignment without "definite assignment" errors
-    private javax.swing.Timer       autoRunTimer;
+    // AutoRun: the engine steps on the driver's thread; frameTimer shows its newest frame on the EDT
+    private final PlaybackDriver    driver;
+    private javax.swing.Timer       frameTimer;
+    private IntervalFrame           shownFrame;
 
     private       boolean           isPaused    = false;
 
@@ -39,9 +49,12 @@ public class SimulationFrame extends JFrame {
 
     // Arrivals graph tab (strongly typed so we can call syncWithEngine/setViewedInterval)
     private final ArrivalsGraphPanel arrivalsGraphPanel;
+    private final QueueHeatMapPanel ticketHeatMap;
+    private final QueueHeatMapPanel checkpointHeatMap;
 
     // track, for each flight, the interval index at which it closed
-    private final Map<Flight,Integer> closeSteps = new LinkedHashMap<>();
+    // (concurrent: the playback thread checks it to decide where to pause)
+    private final Map<Flight,Integer> closeSteps = new ConcurrentHashMap<>();
 
     // track whether we have finished at least once (enables Summary permanently)
     private boolean simulationCompleted = false;
@@ -52,11 +65,22 @@ public class SimulationFrame extends JFrame {
         setLayout(new BorderLayout());
 
         // compute start time
-        LocalTime firstDep = engine.getFlights().stream()
-            .map(Flight::getDepartureTime)
-            .min(LocalTime::compareTo)
-            .orElse(LocalTime.MIDNIGHT);
-        startTime = firstDep.minusMinutes(engine.getArrivalSpan());
+        startTime = engine.getGlobalStart();
+
+        // a resumed session has already been through the closures it computed
+        for (Flight f : engine.getFlights()) {
+            int closeStep = engine.getBoardingCloseInterval(f);
+            if (closeStep < engine.getMaxComputedInterval()) {
+                closeSteps.put(f, closeStep);
+            }
+        }
+        simulationCompleted = engine.getMaxComputedInterval() >= engine.getTotalIntervals();
+
+        driver = new PlaybackDriver(engine);
+        // pause on a boarding close we haven't announced yet, so no closure is skipped over
+        driver.setPauseOnClosures(closed ->
+            closed.stream().anyMatch(f -> !closeSteps.containsKey(f))
+        );
 
         // === Top panel with BoxLayout for precise width control ===
         JPanel topPanel = new JPanel();
@@ -104,7 +128,7 @@ public class SimulationFrame extends JFrame {
 
         // Ticket panel
         TicketLinesPanel ticketPanel = new TicketLinesPanel(
-            engine, new ArrayList<>(), new ArrayList<>(), null
+            engine, null
         );
         Dimension tPref = ticketPanel.getPreferredSize();
         ticketPanel.setPreferredSize(new Dimension(panelW, tPref.height));
@@ -116,7 +140,7 @@ public class SimulationFrame extends JFrame {
         // Checkpoint panel
         split.add(Box.createHorizontalStrut(gutter));
         CheckpointLinesPanel cpPanel = new CheckpointLinesPanel(
-            engine, new ArrayList<>(), new ArrayList<>(), null
+            engine, null
         );
         Dimension cPref = cpPanel.getPreferredSize();
         cpPanel.setPreferredSize(new Dimension(panelW, cPref.height));
@@ -127,7 +151,7 @@ public class SimulationFrame extends JFrame {
         // Hold-rooms panel
         split.add(Box.createHorizontalStrut(gutter));
         HoldRoomsPanel holdPanel = new HoldRoomsPanel(
-            engine, new ArrayList<>(), new ArrayList<>(), null
+            engine, null
         );
         split.add(holdPanel);
 
@@ -163,11 +187,18 @@ public class SimulationFrame extends JFrame {
 
         JButton graphBtn = new JButton("Show Graph");
         graphBtn.addActionListener(e -> {
-            Map<Integer, Integer> heldUps = engine.getHoldUpsByInterval();
+            SeriesBuffer heldUps;
+            synchronized (engine) {
+                heldUps = engine.getHeldUpsSeries();
+            }
             new GraphWindow("Passenger Hold-Ups by Interval", heldUps).setVisible(true);
         });
         btnPanel.add(graphBtn);
 
+        JButton saveSessionBtn = new JButton("Save Session...");
+        saveSessionBtn.addActionListener(e -> saveSession(engine, saveSessionBtn));
+        btnPanel.add(saveSessionBtn);
+
         btnPanel.add(summaryBtn);
         control.add(btnPanel);
 
@@ -207,25 +238,44 @@ public class SimulationFrame extends JFrame {
         arrivalsTab.add(arrivalsGraphPanel, BorderLayout.CENTER);
         tabs.addTab("Arrivals", arrivalsTab);
 
+        // ----- Queue heat map tab -----
+        String[] counterNames = engine.getCounterConfigs().stream()
+            .map(c -> "Counter " + c.getId())
+            .toArray(String[]::new);
+        String[] checkpointNames = new String[engine.getCheckpointLines().size()];
+        for (int i = 0; i < checkpointNames.length; i++) {
+            checkpointNames[i] = "Checkpoint " + (i + 1);
+        }
+        ticketHeatMap = new QueueHeatMapPanel(
+            "Ticket queue length", engine.getTicketQueueCounts(), counterNames);
+        checkpointHeatMap = new QueueHeatMapPanel(
+            "Checkpoint queue length", engine.getCheckpointQueueCounts(), checkpointNames);
+        JPanel heatTab = new JPanel(new GridLayout(2, 1, 0, 4));
+        heatTab.add(ticketHeatMap);
+        heatTab.add(checkpointHeatMap);
+        tabs.addTab("Queue Heat Map", heatTab);
+
         timelineAndGraphContainer.add(tabs, BorderLayout.CENTER);
         control.add(timelineAndGraphContainer);
 
         JPanel sliderPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         sliderPanel.setBorder(BorderFactory.createTitledBorder(
-            "AutoRun Speed (ms per interval)"
+            "AutoRun Speed (intervals per second)"
         ));
-        speedSlider = new JSlider(100, 2000, 1000);
-        speedSlider.setMajorTickSpacing(500);
-        speedSlider.setMinorTickSpacing(100);
+        // log scale: every 25 slider steps is 10x faster (1/s .. 10,000/s)
+        speedSlider = new JSlider(0, 100, 0);
+        speedSlider.setMajorTickSpacing(25);
+        speedSlider.setMinorTickSpacing(5);
         speedSlider.setPaintTicks(true);
         speedSlider.setPaintLabels(true);
         Hashtable<Integer,JLabel> labels = new Hashtable<>();
-        labels.put(100,  new JLabel("0.1s"));
-        labels.put(500,  new JLabel("0.5s"));
-        labels.put(1000, new JLabel("1s"));
-        labels.put(1500, new JLabel("1.5s"));
-        labels.put(2000, new JLabel("2s"));
+        labels.put(0,   new JLabel("1/s"));
+        labels.put(25,  new JLabel("10/s"));
+        labels.put(50,  new JLabel("100/s"));
+        labels.put(75,  new JLabel("1k/s"));
+        labels.put(100, new JLabel("10k/s"));
         speedSlider.setLabelTable(labels);
+        driver.setIntervalsPerSecond(sliderToIntervalsPerSecond(speedSlider.getValue()));
         sliderPanel.add(speedSlider);
         control.add(sliderPanel);
 
@@ -236,14 +286,20 @@ public class SimulationFrame extends JFrame {
             new FlightsSummaryFrame(engine).setVisible(true)
         );
 
-        // Helper: refresh UI from engine state
+        // Helper: refresh UI from the newest published frame
         Runnable refreshUI = () -> {
-            LocalTime now = startTime.plusMinutes(engine.getCurrentInterval());
+            IntervalFrame frame = driver.getLatestFrame();
+            shownFrame = frame;
+            ticketPanel.setFrame(frame);
+            cpPanel.setFrame(frame);
+            holdPanel.setFrame(frame);
+
+            LocalTime now = startTime.plusMinutes(frame.getInterval());
             timeLabel.setText(now.format(TIME_FMT));
             split.repaint();
 
             // keep timeline slider bounded to what exists
-            int maxComputed = engine.getMaxComputedInterval();
+            int maxComputed = frame.getMaxComputedInterval();
 
             // IMPORTANT: prevent programmatic slider updates from triggering scrub listener
             timelineProgrammaticUpdate = true;
@@ -260,7 +316,7 @@ public class SimulationFrame extends JFrame {
                 }
 
                 // set slider value to current interval if within bounds
-                int ci = engine.getCurrentInterval();
+                int ci = frame.getInterval();
                 if (ci <= timelineSlider.getMaximum()) {
                     timelineSlider.setValue(ci);
                 } else {
@@ -270,20 +326,22 @@ public class SimulationFrame extends JFrame {
                 timelineProgrammaticUpdate = false;
             }
 
-            intervalLabel.setText("Interval: " + engine.getCurrentInterval()
-                    + " / " + engine.getTotalIntervals());
+            intervalLabel.setText("Interval: " + frame.getInterval()
+                    + " / " + frame.getTotalIntervals());
 
             // update arrivals graph: extend series + move marker
-            arrivalsGraphPanel.syncWithEngine();
+            arrivalsGraphPanel.syncWithFrame(frame);
+            ticketHeatMap.sync(frame.getInterval());
+            checkpointHeatMap.sync(frame.getInterval());
 
             // enable/disable controls
-            prevBtn.setEnabled(engine.canRewind());
+            prevBtn.setEnabled(frame.canRewind());
 
-            boolean canAdvance = engine.getCurrentInterval() < engine.getTotalIntervals();
+            boolean canAdvance = !frame.isFinished();
             nextBtn.setEnabled(canAdvance);
 
             // AutoRun button is only enabled when not currently running
-            if (autoRunTimer == null || !autoRunTimer.isRunning()) {
+            if (!driver.isRunning()) {
                 autoRunBtn.setEnabled(canAdvance);
             }
 
@@ -297,7 +355,7 @@ public class SimulationFrame extends JFrame {
         java.util.function.Consumer<List<Flight>> handleClosures = (closed) -> {
             if (closed == null || closed.isEmpty()) return;
 
-            int step = engine.getCurrentInterval() - 1;
+            int step = shownFrame.getStep();
 
             // only treat as "new" closure if we haven't recorded it before
             List<Flight> newlyClosed = new ArrayList<>();
@@ -311,16 +369,12 @@ public class SimulationFrame extends JFrame {
             // If we are rewinding/replaying, do not stop or re-alert unless truly new
             if (newlyClosed.isEmpty()) return;
 
-            if (autoRunTimer != null && autoRunTimer.isRunning()) {
-                autoRunTimer.stop();
-                pausePlayBtn.setText("Play");
-                isPaused = true;
-            }
+            stopPlayback();
 
             for (Flight f : newlyClosed) {
                 int total = (int)Math.round(f.getSeats() * f.getFillPercent());
                 int idx   = engine.getFlights().indexOf(f);
-                int made  = engine.getHoldRoomLines().get(idx).size();
+                int made  = shownFrame.getHoldRooms().get(idx).size();
                 JOptionPane.showMessageDialog(
                         SimulationFrame.this,
                         String.format("%s: %d of %d made their flight.",
@@ -331,54 +385,59 @@ public class SimulationFrame extends JFrame {
             }
         };
 
-        // --- TIMER: advance each interval ---
-        autoRunTimer = new javax.swing.Timer(speedSlider.getValue(), ev -> {
-            javax.swing.Timer t = (javax.swing.Timer)ev.getSource();
-            if (engine.getCurrentInterval() < engine.getTotalIntervals()) {
-                engine.computeNextInterval();
-                refreshUI.run();
-
-                // detect newly closed flights
-                List<Flight> closed = engine.getFlightsJustClosed();
-                handleClosures.accept(closed);
-
-                // end of simulation
-                if (engine.getCurrentInterval() >= engine.getTotalIntervals()) {
-                    simulationCompleted = true;
-                    t.stop();
-                    autoRunBtn.setEnabled(false);
-                    pausePlayBtn.setEnabled(false);
-                    summaryBtn.setEnabled(true);
+        // --- FRAME TIMER: show the newest frame the playback thread has published ---
+        frameTimer = new javax.swing.Timer(FRAME_MS, ev -> {
+            if (driver.isRunning()) {
+                if (driver.getLatestFrame() != shownFrame) {
+                    refreshUI.run();
                 }
+                return;
             }
-        });
 
-        speedSlider.addChangeListener((ChangeEvent e) -> {
-            if (autoRunTimer != null) {
-                autoRunTimer.setDelay(speedSlider.getValue());
+            // playback stopped itself (end of day or a new boarding close):
+            // join the worker so its final frame is the one we show
+            frameTimer.stop();
+            driver.pause();
+            refreshUI.run();
+            handleClosures.accept(shownFrame.getClosedFlights());
+
+            if (shownFrame.isFinished()) {
+                simulationCompleted = true;
+                autoRunBtn.setEnabled(false);
+                pausePlayBtn.setEnabled(false);
+                summaryBtn.setEnabled(true);
+            } else {
+                pausePlayBtn.setText("Play");
+                isPaused = true;
             }
         });
 
+        speedSlider.addChangeListener((ChangeEvent e) ->
+            driver.setIntervalsPerSecond(sliderToIntervalsPerSecond(speedSlider.getValue()))
+        );
+
         // --- Prev Interval ---
         prevBtn.addActionListener(ev -> {
-            if (autoRunTimer != null && autoRunTimer.isRunning()) {
-                autoRunTimer.stop();
-                pausePlayBtn.setText("Play");
-                isPaused = true;
+            stopPlayback();
+            synchronized (engine) {
+                engine.rewindOneInterval();
             }
-            engine.rewindOneInterval();
+            driver.publishCurrent();
             refreshUI.run();
         });
 
         // --- Next Interval ---
         nextBtn.addActionListener(ev -> {
-            engine.computeNextInterval();
+            stopPlayback();
+            synchronized (engine) {
+                engine.computeNextInterval();
+            }
+            driver.publishCurrent();
             refreshUI.run();
 
-            List<Flight> closed = engine.getFlightsJustClosed();
-            handleClosures.accept(closed);
+            handleClosures.accept(shownFrame.getClosedFlights());
 
-            if (engine.getCurrentInterval() >= engine.getTotalIntervals()) {
+            if (shownFrame.isFinished()) {
                 simulationCompleted = true;
                 nextBtn.setEnabled(false);
                 autoRunBtn.setEnabled(false);
@@ -404,13 +463,12 @@ public class SimulationFrame extends JFrame {
             int target = timelineSlider.getValue();
 
             // stop autorun before jump
-            if (autoRunTimer != null && autoRunTimer.isRunning()) {
-                autoRunTimer.stop();
-                pausePlayBtn.setText("Play");
-                isPaused = true;
-            }
+            stopPlayback();
 
-            engine.goToInterval(target);
+            synchronized (engine) {
+                engine.goToInterval(target);
+            }
+            driver.publishCurrent();
             refreshUI.run();
         });
 
@@ -421,22 +479,17 @@ public class SimulationFrame extends JFrame {
             pausePlayBtn.setText("Pause");
             isPaused = false;
 
-            if (autoRunTimer != null) {
-                autoRunTimer.start();
-            }
+            startPlayback();
         });
 
         pausePlayBtn.addActionListener(e -> {
-            if (autoRunTimer == null) return;
-
             if (isPaused) {
-                autoRunTimer.start();
+                startPlayback();
                 pausePlayBtn.setText("Pause");
+                isPaused = false;
             } else {
-                autoRunTimer.stop();
-                pausePlayBtn.setText("Play");
+                stopPlayback();
             }
-            isPaused = !isPaused;
             refreshUI.run();
         });
 
@@ -447,6 +500,64 @@ public class SimulationFrame extends JFrame {
         setLocationRelativeTo(null);
     }
 
+    private void startPlayback() {
+        driver.start();
+        frameTimer.start();
+    }
+
+    /** Stop AutoRun (if running) and leave the engine on the last published frame. */
+    private void stopPlayback() {
+        if (frameTimer != null) {
+            frameTimer.stop();
+        }
+        if (driver.isRunning()) {
+            driver.pause();
+            pausePlayBtn.setText("Play");
+            isPaused = true;
+        }
+    }
+
+    /** Save the whole session (results and rewind state) so it can be resumed later. */
+    private void saveSession(SimulationEngine engine, JButton button) {
+        stopPlayback();
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Save Session");
+        chooser.setSelectedFile(new File("session" + RunFile.EXTENSION));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        button.setEnabled(false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                SessionFile.save(engine, file.toPath());
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(
+                        SimulationFrame.this,
+                        "Error saving session: " + ex.getCause().getMessage(),
+                        "Save Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            }
+        }.execute();
+    }
+
+    /** Slider position (0..100) to playback speed: 1, 10, 100, 1k, 10k intervals/s at the labels. */
+    private static double sliderToIntervalsPerSecond(int value) {
+        return Math.pow(10.0, value / 25.0);
+    }
+
     /**
      * Choose a major tick spacing that prevents label overlap for large interval counts.
      *
@@ -458,7 +569,7 @@ public class SimulationFrame extends JFrame {
      *
      * For <100, keep a reasonable default.
      */
-    private static int computeMajorTickSpacing(int maxIntervals) {
+    static int computeMajorTickSpacing(int maxIntervals) {
         if (maxIntervals >= 1000) return 500;
         if (maxIntervals >= 500)  return 100;
         if (maxIntervals >= 150)  return 50;   // 150..500 uses 50s
@@ -474,7 +585,7 @@ public class SimulationFrame extends JFrame {
      * Rebuild label table so Swing doesn't try to paint too many labels.
      * Also prevents the far-right "max" label from overlapping the last major label.
      */
-    private static void rebuildTimelineLabels(JSlider slider) {
+    static void rebuildTimelineLabels(JSlider slider) {
         int max = slider.getMaximum();
         int major = slider.getMajorTickSpacing();
         if (major <= 0) major = 1;
@@ -0,0 +1,106 @@
+package sim.ui;
+
+import sim.model.Flight.ShapeType;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered passenger shapes.
+ *
+ * Each (shape, fill colour, border colour, cell size) combination is painted once
+ * with {@link ShapePainter} into a screen-compatible translucent image, and every
+ * later passenger with the same look is a single drawImage. Compatible
+ * BufferedImages are managed by Java2D (cached in video memory where the pipeline
+ * supports it) without the content-loss handling a VolatileImage would need.
+ *
+ * Swing paints on the EDT only, so the cache is not synchronized.
+ */
+public final class SpriteCache {
+    // the 2.5px border stroke spills ~1.25px outside the cell on every side
+    private static final int PAD = 2;
+    private static final int MAX_SIZE = (1 << 12) - 1;
+
+    private static final Map<Long, BufferedImage> sprites = new HashMap<>();
+    private static GraphicsConfiguration spriteConfig;
+
+    private SpriteCache() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Same result as {@link ShapePainter#paintShape} with the Graphics' current colour
+     * as fill, blitted from the cache when possible.
+     */
+    public static void drawShape(Graphics g,
+                                 ShapeType type,
+                                 int x, int y,
+                                 int w, int h,
+                                 Color borderColor) {
+        Graphics2D g2 = (Graphics2D) g;
+        Color fill = g2.getColor();
+        if (!cacheable(g2, fill, borderColor, w, h)) {
+            ShapePainter.paintShape(g, type, x, y, w, h, borderColor);
+            return;
+        }
+
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        if (gc != spriteConfig) {
+            // moved to another screen: sprites must be compatible with the new device
+            sprites.clear();
+            spriteConfig = gc;
+        }
+
+        long key = ((long) (fill.getRGB() & 0xFFFFFF) << 39)
+                 | ((long) (borderColor.getRGB() & 0xFFFFFF) << 15)
+                 | ((long) type.ordinal() << 12)
+                 | w;
+        BufferedImage sprite = sprites.get(key);
+        if (sprite == null) {
+            sprite = render(gc, type, w, fill, borderColor);
+            sprites.put(key, sprite);
+        }
+        g2.drawImage(sprite, x - PAD, y - PAD, null);
+    }
+
+    /** Drop every cached sprite (e.g. after a look-and-feel change). */
+    public static void clear() {
+        sprites.clear();
+    }
+
+    private static boolean cacheable(Graphics2D g2, Color fill, Color border, int w, int h) {
+        if (w != h || w <= 0 || w > MAX_SIZE) return false;
+        if (fill.getAlpha() != 255 || border.getAlpha() != 255) return false;
+        // sprites are rendered 1:1; a scaled or rotated context would blur them
+        int t = g2.getTransform().getType();
+        return (t & ~AffineTransform.TYPE_TRANSLATION) == 0;
+    }
+
+    private static BufferedImage render(GraphicsConfiguration gc,
+                                        ShapeType type,
+                                        int size,
+                                        Color fill,
+                                        Color border) {
+        int dim = size + 2 * PAD + 1;
+        BufferedImage img = gc != null
+            ? gc.createCompatibleImage(dim, dim, Transparency.TRANSLUCENT)
+            : new BufferedImage(dim, dim, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D sg = img.createGraphics();
+        try {
+            sg.setComposite(AlphaComposite.Src);
+            sg.setColor(fill);
+            ShapePainter.paintShape(sg, type, PAD, PAD, size, size, border);
+        } finally {
+            sg.dispose();
+        }
+        return img;
+    }
+}
@@ -52,4 +52,11 @@ public class TicketCounterPanel extends JPanel {
     public List<TicketCounterConfig> getCounters() {
         return model.getCounters();
         }
+
+    /** Set each counter's rate, in counter order (e.g. from a calibration). */
+    public void setRates(double[] rates) {
+        for (int i = 0; i < rates.length && i < model.getRowCount(); i++) {
+            model.setValueAt(rates[i], i, 1);
+        }
+    }
 }
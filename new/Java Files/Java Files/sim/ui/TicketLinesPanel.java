@@ -2,6 +2,7 @@ package sim.ui;
 
 import sim.model.Flight;
 import sim.model.Passenger;
+import sim.service.IntervalFrame;
 import sim.service.SimulationEngine;
 
 import javax.swing.*;
@@ -16,18 +17,14 @@ public class TicketLinesPanel extends JPanel {
     private final SimulationEngine engine;
     private final int[] queuedOffsets;
     private final int[] servedOffsets;
-    private final List<Rectangle> clickableAreas;
-    private final List<Passenger> clickablePassengers;
     private final List<Rectangle> counterAreas;
     private final Flight filterFlight;
 
-    public TicketLinesPanel(SimulationEngine engine,
-                             List<Rectangle> clickableAreas,
-                             List<Passenger> clickablePassengers,
-                             Flight filterFlight) {
+    // frame to paint; null = follow the engine's current interval
+    private IntervalFrame frame;
+
+    public TicketLinesPanel(SimulationEngine engine, Flight filterFlight) {
         this.engine = engine;
-        this.clickableAreas = clickableAreas;
-        this.clickablePassengers = clickablePassengers;
         this.counterAreas = new ArrayList<>();          // << new list for counters
         this.filterFlight = filterFlight;
         this.queuedOffsets = new int[engine.getTicketLines().size()];
@@ -36,7 +33,7 @@ public class TicketLinesPanel extends JPanel {
 
         // install shared scroll handler
         ScrollMouseHandler handler = new ScrollMouseHandler.TicketScrollHandler(
-            engine, clickableAreas, clickablePassengers,
+            engine, this::currentFrame,
             queuedOffsets, servedOffsets,
             filterFlight,
             counterAreas
@@ -53,15 +50,23 @@ public class TicketLinesPanel extends JPanel {
             this,
             g,
             engine,
+            currentFrame(),
             queuedOffsets,
             servedOffsets,
-            clickableAreas,
-            clickablePassengers,
             counterAreas,
             filterFlight
         );
     }
 
+    /** Paint this frame from now on (EDT only). */
+    public void setFrame(IntervalFrame frame) {
+        this.frame = frame;
+    }
+
+    IntervalFrame currentFrame() {
+        return frame != null ? frame : engine.currentFrame();
+    }
+
     /**
      * @return the maximum size that line #lineIdx ever reached
      *         across all history intervals.